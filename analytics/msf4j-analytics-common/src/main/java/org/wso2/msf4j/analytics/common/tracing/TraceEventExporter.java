@@ -0,0 +1,228 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+
+package org.wso2.msf4j.analytics.common.tracing;
+
+import com.google.gson.Gson;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Publishes trace events to a DAS receiver in the background.
+ * <p>
+ * Events are queued in a ring buffer of fixed capacity, so publishing never blocks the request flow. When the
+ * buffer is full the event is dropped and counted instead of letting the backlog grow without limit. A single
+ * exporter thread drains the buffer and posts the events to the receiver as a JSON array, once a batch is full or
+ * the flush interval has passed since the first event of the batch.
+ * <p>
+ * Events are sent with {@link HttpURLConnection}, which keeps the connection to the receiver alive and reuses it
+ * for the following batches as long as every response is read completely.
+ */
+final class TraceEventExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(TraceEventExporter.class);
+
+    private final URL receiverUrl;
+    private final BlockingQueue<TraceEvent> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int timeout;
+    private final Gson gson = new Gson();
+    private final LongAdder publishedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final Thread exporterThread;
+    private long reportedDropCount;
+    private volatile boolean closed;
+
+    /**
+     * @param receiverUrl   URL of the receiver of DAS server
+     * @param capacity      maximum number of events waiting to be published
+     * @param batchSize     maximum number of events sent in one request
+     * @param flushInterval time in milliseconds an event waits for the batch to fill up
+     * @param timeout       timeout in milliseconds for connecting to and reading from the receiver
+     * @throws IOException if the URL of the receiver is malformed
+     */
+    TraceEventExporter(String receiverUrl, int capacity, int batchSize, long flushInterval, int timeout)
+            throws IOException {
+        this.receiverUrl = new URL(receiverUrl);
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+        this.timeout = timeout;
+        this.exporterThread = new Thread(this::export, "msf4j-trace-exporter");
+        exporterThread.setDaemon(true);
+        exporterThread.start();
+    }
+
+    /**
+     * Queue a trace event to be published.
+     *
+     * @param traceEvent trace event to be published
+     * @return false if the event was dropped since the buffer is full or the exporter is closed
+     */
+    boolean publish(TraceEvent traceEvent) {
+        if (closed || !buffer.offer(traceEvent)) {
+            droppedCount.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Stop the exporter after publishing the events which are already queued.
+     *
+     * @param timeout maximum time in milliseconds to wait for the queued events to be published
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void close(long timeout) throws InterruptedException {
+        closed = true;
+        exporterThread.interrupt();
+        exporterThread.join(timeout);
+    }
+
+    /**
+     * @return number of events accepted by the receiver
+     */
+    long getPublishedCount() {
+        return publishedCount.sum();
+    }
+
+    /**
+     * @return number of events dropped since the buffer was full
+     */
+    long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * @return number of events which could not be delivered to the receiver
+     */
+    long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    /**
+     * @return number of events waiting in the buffer
+     */
+    int getPendingCount() {
+        return buffer.size();
+    }
+
+    private void export() {
+        List<TraceEvent> batch = new ArrayList<>(batchSize);
+        while (!closed) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                // Closed, the rest of the buffer is drained below
+            }
+            send(batch);
+        }
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            send(batch);
+        }
+    }
+
+    /**
+     * Wait for the first event, then collect more until the batch is full or the flush interval elapses.
+     */
+    private void fillBatch(List<TraceEvent> batch) throws InterruptedException {
+        batch.add(buffer.take());
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            if (buffer.drainTo(batch, batchSize - batch.size()) == 0) {
+                TraceEvent traceEvent = buffer.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (traceEvent == null) {
+                    return;
+                }
+                batch.add(traceEvent);
+            }
+        }
+    }
+
+    private void send(List<TraceEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Publishing trace events " + batch);
+        }
+        try {
+            int status = post(gson.toJson(batch).getBytes(StandardCharsets.UTF_8));
+            if (status == HttpURLConnection.HTTP_OK) {
+                publishedCount.add(batch.size());
+            } else {
+                failedCount.add(batch.size());
+                log.error("Error while publishing " + batch.size() + " trace events, DAS responded with status " +
+                          status);
+            }
+        } catch (IOException e) {
+            failedCount.add(batch.size());
+            log.error("Error while publishing " + batch.size() + " trace events", e);
+        } finally {
+            batch.clear();
+        }
+        long dropCount = droppedCount.sum();
+        if (dropCount > reportedDropCount) {
+            log.warn((dropCount - reportedDropCount) + " trace events were dropped since the buffer of the trace " +
+                     "exporter was full");
+            reportedDropCount = dropCount;
+        }
+    }
+
+    private int post(byte[] body) throws IOException {
+        HttpURLConnection urlConn = (HttpURLConnection) receiverUrl.openConnection();
+        urlConn.setConnectTimeout(timeout);
+        urlConn.setReadTimeout(timeout);
+        urlConn.setDoOutput(true);
+        urlConn.setRequestMethod(HttpMethod.POST);
+        urlConn.setRequestProperty(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+        urlConn.setFixedLengthStreamingMode(body.length);
+        try (OutputStream outputStream = urlConn.getOutputStream()) {
+            outputStream.write(body);
+        }
+        int status = urlConn.getResponseCode();
+        // Read the response completely, so that the connection can be reused
+        InputStream responseStream = (status < HttpURLConnection.HTTP_BAD_REQUEST) ?
+                                     urlConn.getInputStream() : urlConn.getErrorStream();
+        if (responseStream != null) {
+            try (InputStream inputStream = responseStream) {
+                IOUtils.toByteArray(inputStream);
+            }
+        }
+        return status;
+    }
+}
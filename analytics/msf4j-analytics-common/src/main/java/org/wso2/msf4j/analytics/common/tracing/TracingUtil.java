@@ -20,23 +20,36 @@ package org.wso2.msf4j.analytics.common.tracing;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.msf4j.util.SystemVariableUtil;
 
+import java.io.IOException;
 import java.util.Random;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.client.Entity;
-import javax.ws.rs.core.Response;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Utility methods of for MSF4J tracing.
  */
 public class TracingUtil {
 
+    public static final String EXPORTER_CAPACITY_PROPERTY = "msf4j.tracing.exporter.capacity";
+    public static final String EXPORTER_BATCH_SIZE_PROPERTY = "msf4j.tracing.exporter.batchSize";
+    public static final String EXPORTER_FLUSH_INTERVAL_PROPERTY = "msf4j.tracing.exporter.flushInterval";
+    public static final String EXPORTER_TIMEOUT_PROPERTY = "msf4j.tracing.exporter.timeout";
+
     private static final Logger log = LoggerFactory.getLogger(TracingUtil.class);
-    private static final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private static final int DEFAULT_EXPORTER_CAPACITY = 8192;
+    private static final int DEFAULT_EXPORTER_BATCH_SIZE = 100;
+    private static final long DEFAULT_EXPORTER_FLUSH_INTERVAL = 1000;  // In milliseconds
+    private static final int DEFAULT_EXPORTER_TIMEOUT = 5000;  // In milliseconds
+    private static final long EXPORTER_CLOSE_TIMEOUT = 5000;  // In milliseconds
     private static final Random random = new Random();
+    // Trace event exporters, by the URL of the DAS receiver
+    private static final ConcurrentMap<String, TraceEventExporter> exporters = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(TracingUtil::closeExporters, "msf4j-trace-exporter-shutdown"));
+    }
 
     /**
      * Generate a random string unique identifier.
@@ -48,17 +61,59 @@ public class TracingUtil {
     }
 
     /**
-     * Publish trace event to DAS in the background.
+     * Publish trace event to DAS in the background. The event is dropped if too many events are already waiting
+     * to be published to the same DAS receiver.
      */
     public static void pushToDAS(TraceEvent traceEvent, String dasUrl) {
-        Future<?> future = executorService.submit(() -> {
-            log.debug("Publishing trace event " + traceEvent);
-            if (ClientBuilder.newClient().target(dasUrl)
-                    .request().post(Entity.json(traceEvent)).getStatus() != Response.Status.OK.getStatusCode()) {
-                log.error("Error while publishing trace event " + traceEvent);
+        TraceEventExporter exporter = getExporter(dasUrl);
+        if (exporter != null) {
+            exporter.publish(traceEvent);
+        }
+    }
+
+    /**
+     * Get the number of trace events dropped since the exporter to the given DAS receiver was full.
+     *
+     * @param dasUrl URL of the receiver of DAS server
+     * @return number of dropped trace events
+     */
+    public static long getDroppedTraceEventCount(String dasUrl) {
+        TraceEventExporter exporter = exporters.get(dasUrl);
+        return exporter == null ? 0 : exporter.getDroppedCount();
+    }
+
+    private static TraceEventExporter getExporter(String dasUrl) {
+        TraceEventExporter exporter = exporters.get(dasUrl);
+        if (exporter != null) {
+            return exporter;
+        }
+        return exporters.computeIfAbsent(dasUrl, key -> {
+            try {
+                return new TraceEventExporter(key,
+                        Integer.parseInt(SystemVariableUtil.getValue(EXPORTER_CAPACITY_PROPERTY,
+                                                                     String.valueOf(DEFAULT_EXPORTER_CAPACITY))),
+                        Integer.parseInt(SystemVariableUtil.getValue(EXPORTER_BATCH_SIZE_PROPERTY,
+                                                                     String.valueOf(DEFAULT_EXPORTER_BATCH_SIZE))),
+                        Long.parseLong(SystemVariableUtil.getValue(EXPORTER_FLUSH_INTERVAL_PROPERTY,
+                                                                   String.valueOf(DEFAULT_EXPORTER_FLUSH_INTERVAL))),
+                        Integer.parseInt(SystemVariableUtil.getValue(EXPORTER_TIMEOUT_PROPERTY,
+                                                                     String.valueOf(DEFAULT_EXPORTER_TIMEOUT))));
+            } catch (IOException e) {
+                log.error("Invalid DAS receiver URL " + key, e);
+                return null;
             }
         });
-        future.isDone(); // Added to avoid findbugs warning
+    }
+
+    private static void closeExporters() {
+        for (TraceEventExporter exporter : exporters.values()) {
+            try {
+                exporter.close(EXPORTER_CLOSE_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
     }
 
 }
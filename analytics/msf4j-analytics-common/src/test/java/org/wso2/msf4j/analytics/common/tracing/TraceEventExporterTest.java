@@ -0,0 +1,179 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+
+package org.wso2.msf4j.analytics.common.tracing;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests TraceEventExporter against a stub DAS receiver.
+ */
+public class TraceEventExporterTest {
+
+    private HttpServer server;
+    private String receiverUrl;
+    // Batches received by the stub server
+    private final List<JsonArray> batches = new CopyOnWriteArrayList<>();
+    private volatile CountDownLatch requestLatch = new CountDownLatch(0);
+    private volatile CountDownLatch responseLatch = new CountDownLatch(0);
+    private volatile int responseStatus;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/receiver", exchange -> {
+            String body = new String(IOUtils.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8);
+            batches.add(new JsonParser().parse(body).getAsJsonArray());
+            requestLatch.countDown();
+            try {
+                responseLatch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(responseStatus, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        receiverUrl = "http://localhost:" + server.getAddress().getPort() + "/receiver";
+    }
+
+    @AfterClass
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @BeforeMethod
+    public void reset() {
+        batches.clear();
+        requestLatch = new CountDownLatch(0);
+        responseLatch = new CountDownLatch(0);
+        responseStatus = 200;
+    }
+
+    @Test
+    public void testEventsAreBatched() throws Exception {
+        TraceEventExporter exporter = new TraceEventExporter(receiverUrl, 100, 2, 5000, 1000);
+        try {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(exporter.publish(traceEvent(i)));
+            }
+            waitFor(() -> exporter.getPublishedCount() == 4);
+            assertEquals(batches.size(), 2);
+            assertEquals(batches.get(0).size(), 2);
+            assertEquals(batches.get(0).get(0).getAsJsonObject().get("traceId").getAsString(), "0");
+            assertEquals(batches.get(1).get(1).getAsJsonObject().get("traceId").getAsString(), "3");
+        } finally {
+            exporter.close(1000);
+        }
+    }
+
+    @Test
+    public void testPartialBatchIsFlushedAfterInterval() throws Exception {
+        TraceEventExporter exporter = new TraceEventExporter(receiverUrl, 100, 100, 100, 1000);
+        try {
+            exporter.publish(traceEvent(0));
+            waitFor(() -> exporter.getPublishedCount() == 1);
+            assertEquals(batches.size(), 1);
+            assertEquals(batches.get(0).size(), 1);
+        } finally {
+            exporter.close(1000);
+        }
+    }
+
+    @Test
+    public void testEventsAreDroppedWhenFull() throws Exception {
+        requestLatch = new CountDownLatch(1);
+        responseLatch = new CountDownLatch(1);
+        TraceEventExporter exporter = new TraceEventExporter(receiverUrl, 2, 1, 0, 5000);
+        try {
+            exporter.publish(traceEvent(0));
+            // The exporter thread is blocked on the first request, so only two more events fit in the buffer
+            assertTrue(requestLatch.await(5, TimeUnit.SECONDS));
+            assertTrue(exporter.publish(traceEvent(1)));
+            assertTrue(exporter.publish(traceEvent(2)));
+            assertFalse(exporter.publish(traceEvent(3)));
+            assertEquals(exporter.getDroppedCount(), 1);
+            assertEquals(exporter.getPendingCount(), 2);
+
+            responseLatch.countDown();
+            waitFor(() -> exporter.getPublishedCount() == 3);
+            assertEquals(exporter.getDroppedCount(), 1);
+        } finally {
+            responseLatch.countDown();
+            exporter.close(1000);
+        }
+    }
+
+    @Test
+    public void testFailedRequestsAreCounted() throws Exception {
+        responseStatus = 500;
+        TraceEventExporter exporter = new TraceEventExporter(receiverUrl, 100, 10, 0, 1000);
+        try {
+            exporter.publish(traceEvent(0));
+            waitFor(() -> exporter.getFailedCount() == 1);
+            assertEquals(exporter.getPublishedCount(), 0);
+        } finally {
+            exporter.close(1000);
+        }
+    }
+
+    @Test
+    public void testCloseFlushesQueuedEvents() throws Exception {
+        TraceEventExporter exporter = new TraceEventExporter(receiverUrl, 100, 100, 60000, 1000);
+        exporter.publish(traceEvent(0));
+        exporter.publish(traceEvent(1));
+        exporter.close(5000);
+        assertEquals(exporter.getPublishedCount(), 2);
+        assertFalse(exporter.publish(traceEvent(2)));
+    }
+
+    private static TraceEvent traceEvent(int id) {
+        return new TraceEvent(TracingConstants.SERVER_TRACE_START, String.valueOf(id), "origin",
+                              System.currentTimeMillis());
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
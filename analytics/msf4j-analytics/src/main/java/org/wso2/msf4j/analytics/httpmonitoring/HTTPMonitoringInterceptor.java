@@ -77,12 +77,23 @@ public class HTTPMonitoringInterceptor implements Interceptor {
         return httpMon;
     }
 
+    @Override
+    public boolean appliesTo(Method method) {
+        return enabled && getMethodInterceptor(method).interceptor != null;
+    }
+
     @Override
     public boolean preCall(Request request, Response responder, ServiceMethodInfo serviceMethodInfo) throws Exception {
         if (!enabled) {
             return true;
         }
-        Method method = serviceMethodInfo.getMethod();
+        return getMethodInterceptor(serviceMethodInfo.getMethod()).preCall(request, responder, serviceMethodInfo);
+    }
+
+    /**
+     * Get the monitoring interceptor of a method, creating it when the method is seen for the first time.
+     */
+    private MethodInterceptor getMethodInterceptor(Method method) {
         MethodInterceptor methodInterceptor = map.get(method);
         if (methodInterceptor == null || !methodInterceptor.annotationScanned) {
             HTTPMonitored httpMon = extractFinalAnnotation(method);
@@ -94,8 +105,7 @@ public class HTTPMonitoringInterceptor implements Interceptor {
             methodInterceptor = new MethodInterceptor(true, interceptor);
             map.put(method, methodInterceptor);
         }
-
-        return methodInterceptor.preCall(request, responder, serviceMethodInfo);
+        return methodInterceptor;
     }
 
     @Override
@@ -79,9 +79,20 @@ public class MetricsInterceptor implements Interceptor {
         return annotation;
     }
 
+    @Override
+    public boolean appliesTo(Method method) {
+        return getMethodInterceptors(method).interceptors != null;
+    }
+
     @Override
     public boolean preCall(Request request, Response responder, ServiceMethodInfo serviceMethodInfo) throws Exception {
-        Method method = serviceMethodInfo.getMethod();
+        return getMethodInterceptors(serviceMethodInfo.getMethod()).preCall(request, responder, serviceMethodInfo);
+    }
+
+    /**
+     * Get the metric interceptors of a method, creating them when the method is seen for the first time.
+     */
+    private MethodInterceptors getMethodInterceptors(Method method) {
         MethodInterceptors methodInterceptors = map.get(method);
         if (methodInterceptors == null || !methodInterceptors.annotationScanned) {
             List<Interceptor> interceptors = new CopyOnWriteArrayList<>();
@@ -107,8 +118,7 @@ public class MetricsInterceptor implements Interceptor {
             methodInterceptors = new MethodInterceptors(true, interceptors);
             map.put(method, methodInterceptors);
         }
-
-        return methodInterceptors.preCall(request, responder, serviceMethodInfo);
+        return methodInterceptors;
     }
 
     @Override
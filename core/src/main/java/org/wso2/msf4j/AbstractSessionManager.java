@@ -18,7 +18,11 @@
  */
 package org.wso2.msf4j;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.msf4j.internal.session.ExpiryWheel;
 import org.wso2.msf4j.internal.session.SessionIdGenerator;
+import org.wso2.msf4j.util.SystemVariableUtil;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -28,8 +32,19 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Abstract SessionManager implementation which leave the sessions persistence related method to be implemented.
+ * <p>
+ * Expired sessions are found with a timing wheel, so a check only visits the sessions which are due to expire. The
+ * limits can be set with the {@value #MAX_INACTIVE_INTERVAL_PROPERTY}, {@value #MAX_ACTIVE_SESSIONS_PROPERTY} and
+ * {@value #EXPIRY_CHECK_INTERVAL_PROPERTY} system properties or environment variables, or with the setters before
+ * the session manager is initialized.
  */
 public abstract class AbstractSessionManager implements SessionManager {
+    private static final Logger log = LoggerFactory.getLogger(AbstractSessionManager.class);
+
+    public static final String MAX_INACTIVE_INTERVAL_PROPERTY = "msf4j.session.maxInactiveInterval";
+    public static final String MAX_ACTIVE_SESSIONS_PROPERTY = "msf4j.session.maxActiveSessions";
+    public static final String EXPIRY_CHECK_INTERVAL_PROPERTY = "msf4j.session.expiryCheckInterval";
+
     private boolean isStopped;
 
     /**
@@ -43,6 +58,17 @@ public abstract class AbstractSessionManager implements SessionManager {
      */
     private static final int DEFAULT_MAX_ACTIVE_SESSIONS = 100_000;
 
+    /**
+     * Interval of the checks for expired sessions, which is also the precision of the session expiry.
+     */
+    private static final int DEFAULT_EXPIRY_CHECK_INTERVAL = 30;  // In seconds
+
+    /**
+     * Number of expiry checks in one turn of the timing wheel. Sessions expiring after more checks than this are
+     * visited once per turn until they are due.
+     */
+    private static final int EXPIRY_WHEEL_SIZE = 512;
+
     /**
      * The session id length of Sessions created by this Manager.
      */
@@ -51,21 +77,46 @@ public abstract class AbstractSessionManager implements SessionManager {
     private Map<String, Session> sessions = new ConcurrentHashMap<>();
     private SessionIdGenerator sessionIdGenerator = new SessionIdGenerator();
 
+    private int maxInactiveInterval = Integer.parseInt(SystemVariableUtil.getValue(
+            MAX_INACTIVE_INTERVAL_PROPERTY, String.valueOf(DEFAULT_MAX_INACTIVE_INTERVAL)));
+    private int maxActiveSessions = Integer.parseInt(SystemVariableUtil.getValue(
+            MAX_ACTIVE_SESSIONS_PROPERTY, String.valueOf(DEFAULT_MAX_ACTIVE_SESSIONS)));
+    private int expiryCheckInterval = Integer.parseInt(SystemVariableUtil.getValue(
+            EXPIRY_CHECK_INTERVAL_PROPERTY, String.valueOf(DEFAULT_EXPIRY_CHECK_INTERVAL)));
+
+    private ExpiryWheel<Session> expiryWheel;
     private ScheduledExecutorService sessionExpiryChecker;
 
     public final void init() {
         sessionIdGenerator.setSessionIdLength(SESSION_ID_LENGTH);
+        long checkIntervalMillis = TimeUnit.SECONDS.toMillis(expiryCheckInterval);
+        expiryWheel = new ExpiryWheel<>(checkIntervalMillis, EXPIRY_WHEEL_SIZE, AbstractSessionManager::getExpiryTime,
+                                        System.currentTimeMillis());
         loadSessions(sessions);
+        sessions.values().forEach(expiryWheel::schedule);
 
         // Session expiry scheduled task
         sessionExpiryChecker = Executors.newScheduledThreadPool(1);
-        sessionExpiryChecker.scheduleAtFixedRate(() ->
-                        sessions.values().parallelStream()
-                                .filter(session ->
-                                        (System.currentTimeMillis() - session.getLastAccessedTime() >=
-                                                session.getMaxInactiveInterval() * 60 * 1000))
-                                .forEach(Session::invalidate),
-                30, 30, TimeUnit.SECONDS);
+        sessionExpiryChecker.scheduleAtFixedRate(this::expireSessions, checkIntervalMillis, checkIntervalMillis,
+                                                 TimeUnit.MILLISECONDS);
+    }
+
+    private static long getExpiryTime(Session session) {
+        return session.getLastAccessedTime() + TimeUnit.MINUTES.toMillis(session.getMaxInactiveInterval());
+    }
+
+    private void expireSessions() {
+        expiryWheel.advance(System.currentTimeMillis(), session -> {
+            // Sessions which have been invalidated since they were scheduled are no longer in the map
+            if (sessions.get(session.getId()) == session) {
+                try {
+                    session.invalidate();
+                } catch (RuntimeException e) {
+                    // Keep expiring the other sessions, and keep the task scheduled
+                    log.warn("Couldn't invalidate expired session", e);
+                }
+            }
+        });
     }
 
     public final Session getSession(String sessionId) {
@@ -73,9 +124,12 @@ public abstract class AbstractSessionManager implements SessionManager {
         Session session = sessions.get(sessionId);
         if (session == null) {
             session = readSession(sessionId);
+            if (session != null) {
+                sessions.put(session.getId(), session);
+                expiryWheel.schedule(session);
+            }
         }
         if (session != null) {
-            sessions.put(session.getId(), session);
             session.setNew(false);
         }
         return session;
@@ -83,12 +137,13 @@ public abstract class AbstractSessionManager implements SessionManager {
 
     public final Session createSession() {
         checkValidity();
-        if (sessions.size() >= DEFAULT_MAX_ACTIVE_SESSIONS) {
+        if (sessions.size() >= maxActiveSessions) {
             throw new IllegalStateException("Too many active sessions");
         }
-        Session session = new Session(sessionIdGenerator.generateSessionId(""), DEFAULT_MAX_INACTIVE_INTERVAL);
+        Session session = new Session(sessionIdGenerator.generateSessionId(""), maxInactiveInterval);
         session.setManager(this);
         sessions.put(session.getId(), session);
+        expiryWheel.schedule(session);
         saveSession(session);
         return session;
     }
@@ -101,12 +156,45 @@ public abstract class AbstractSessionManager implements SessionManager {
 
     @Override
     public final int getDefaultMaxInactiveInterval() {
-        return DEFAULT_MAX_INACTIVE_INTERVAL;
+        return maxInactiveInterval;
+    }
+
+    /**
+     * @param maxInactiveInterval time in minutes new sessions can be inactive before they expire
+     */
+    public final void setDefaultMaxInactiveInterval(int maxInactiveInterval) {
+        this.maxInactiveInterval = maxInactiveInterval;
     }
 
     @Override
     public final int getDefaultMaxActiveSessions() {
-        return DEFAULT_MAX_ACTIVE_SESSIONS;
+        return maxActiveSessions;
+    }
+
+    /**
+     * @param maxActiveSessions maximum number of sessions which can be active at a given time
+     */
+    public final void setDefaultMaxActiveSessions(int maxActiveSessions) {
+        this.maxActiveSessions = maxActiveSessions;
+    }
+
+    /**
+     * @return interval of the checks for expired sessions, in seconds
+     */
+    public final int getExpiryCheckInterval() {
+        return expiryCheckInterval;
+    }
+
+    /**
+     * Set the interval of the checks for expired sessions. It takes effect when the session manager is initialized.
+     *
+     * @param expiryCheckInterval interval of the checks for expired sessions, in seconds
+     */
+    public final void setExpiryCheckInterval(int expiryCheckInterval) {
+        if (expiryCheckInterval <= 0) {
+            throw new IllegalArgumentException("Session expiry check interval must be positive");
+        }
+        this.expiryCheckInterval = expiryCheckInterval;
     }
 
     @Override
@@ -117,9 +205,17 @@ public abstract class AbstractSessionManager implements SessionManager {
     @Override
     public final void stop() {
         sessionExpiryChecker.shutdown();
+        onStop();
         isStopped = true;
     }
 
+    /**
+     * Called when the session manager is stopped, before it stops accepting calls, for example to write pending
+     * changes to the persistent storage.
+     */
+    protected void onStop() {
+    }
+
     protected final void checkValidity() {
         if (isStopped) {
             throw new IllegalStateException("This SessionManager has been stopped");
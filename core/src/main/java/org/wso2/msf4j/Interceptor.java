@@ -16,6 +16,8 @@
 
 package org.wso2.msf4j;
 
+import java.lang.reflect.Method;
+
 /**
  * Interface that needs to be implemented to intercept handler method calls.
  */
@@ -46,4 +48,17 @@ public interface Interceptor {
      * @throws Exception if error occurs while executing the postCall
      */
     void postCall(Request request, int status, ServiceMethodInfo serviceMethodInfo) throws Exception;
+
+    /**
+     * Decide whether this interceptor intercepts the calls of a resource method. It is called once per resource
+     * method when the interceptor chain of the method is built, not per request, so interceptors which only handle
+     * annotated methods should do their annotation lookups here. If it returns false, neither preCall nor postCall
+     * is called for requests to that method.
+     *
+     * @param method resource method
+     * @return true if this interceptor intercepts the calls of the given method
+     */
+    default boolean appliesTo(Method method) {
+        return true;
+    }
 }
@@ -26,11 +26,19 @@ import org.wso2.carbon.transport.http.netty.config.TransportsConfiguration;
 import org.wso2.carbon.transport.http.netty.config.YAMLTransportConfigurationBuilder;
 import org.wso2.carbon.transport.http.netty.internal.HTTPTransportContextHolder;
 import org.wso2.carbon.transport.http.netty.listener.HTTPTransportListener;
+import org.wso2.msf4j.beanconversion.MediaTypeConverter;
+import org.wso2.msf4j.entitywriter.EntityWriter;
+import org.wso2.msf4j.executor.RequestExecutor;
+import org.wso2.msf4j.executor.RequestExecutors;
 import org.wso2.msf4j.internal.DataHolder;
 import org.wso2.msf4j.internal.MSF4JMessageProcessor;
 import org.wso2.msf4j.internal.MicroservicesRegistryImpl;
+import org.wso2.msf4j.internal.beanconversion.BeanConverter;
+import org.wso2.msf4j.internal.compression.ContentCoding;
+import org.wso2.msf4j.internal.entitywriter.EntityWriterRegistry;
 import org.wso2.msf4j.util.RuntimeAnnotations;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -46,6 +54,7 @@ import javax.ws.rs.ext.ExceptionMapper;
 public class MicroservicesRunner {
 
     private static final Logger log = LoggerFactory.getLogger(MicroservicesRunner.class);
+    private static final String EXECUTOR_PROPERTY_PREFIX = "msf4j.executor.";
     private TransportManager transportManager = new TransportManager();
     private long startTime = System.currentTimeMillis();
     private boolean isStarted;
@@ -96,6 +105,9 @@ public class MicroservicesRunner {
         Map<String, Object> valuesMap = new HashMap<>();
         valuesMap.put("value", basePath);
         RuntimeAnnotations.putAnnotation(microservice.getClass(), Path.class, valuesMap);
+        if (isStarted) {
+            msRegistry.checkRequestExecutors(microservice);
+        }
         msRegistry.addService(basePath, microservice);
         return this;
     }
@@ -111,6 +123,33 @@ public class MicroservicesRunner {
         return this;
     }
 
+    /**
+     * Register a custom {@link RequestExecutor} which executes the requests dispatched to the deployed microservices.
+     * Replaces the executor configured through the transport configuration file.
+     *
+     * @param requestExecutor The RequestExecutor instance to be registered.
+     * @return this MicroservicesRunner object
+     */
+    public MicroservicesRunner setRequestExecutor(RequestExecutor requestExecutor) {
+        checkState();
+        msRegistry.setRequestExecutor(requestExecutor);
+        return this;
+    }
+
+    /**
+     * Register a named {@link RequestExecutor} which executes the requests dispatched to the resource methods
+     * annotated with {@link org.wso2.msf4j.executor.ExecuteOn} using the same name.
+     *
+     * @param name            The name resource methods refer to the executor by.
+     * @param requestExecutor The RequestExecutor instance to be registered.
+     * @return this MicroservicesRunner object
+     */
+    public MicroservicesRunner addRequestExecutor(String name, RequestExecutor requestExecutor) {
+        checkState();
+        msRegistry.addRequestExecutor(name, requestExecutor);
+        return this;
+    }
+
     /**
      * Add an interceptor which will get called before &amp; after the deployed microservices are invoked. Multiple
      * interceptors can be added.
@@ -136,6 +175,31 @@ public class MicroservicesRunner {
         return this;
     }
 
+    /**
+     * Add {@link EntityWriter}s which write response entities of their types, replacing the writers previously
+     * registered for the same types. The writers are used by all the microservices running in this JVM.
+     *
+     * @param entityWriter The EntityWriters to be added
+     * @return this MicroservicesRunner object
+     */
+    public MicroservicesRunner addEntityWriter(EntityWriter... entityWriter) {
+        Arrays.stream(entityWriter).forEach(EntityWriterRegistry::registerEntityWriter);
+        return this;
+    }
+
+    /**
+     * Add {@link MediaTypeConverter}s which convert request and response entities of their media types, replacing the
+     * converters previously registered for the same media types. The converters are used by all the microservices
+     * running in this JVM.
+     *
+     * @param mediaTypeConverter The MediaTypeConverters to be added
+     * @return this MicroservicesRunner object
+     */
+    public MicroservicesRunner addMediaTypeConverter(MediaTypeConverter... mediaTypeConverter) {
+        Arrays.stream(mediaTypeConverter).forEach(BeanConverter::addMediaTypeConverter);
+        return this;
+    }
+
     /**
      * Method to configure transports.
      *
@@ -145,17 +209,7 @@ public class MicroservicesRunner {
         HTTPTransportContextHolder httpTransportContextHolder = HTTPTransportContextHolder.getInstance();
         httpTransportContextHolder.setHandlerExecutor(new HandlerExecutor());
 
-        Set<TransportProperty> transportProperties = new HashSet<>();
-        TransportProperty transportProperty = new TransportProperty();
-        int bossGroupSize = Runtime.getRuntime().availableProcessors();
-        transportProperty.setName(Constants.SERVER_BOOTSTRAP_BOSS_GROUP_SIZE);
-        transportProperty.setValue(bossGroupSize);
-        TransportProperty workerGroup = new TransportProperty();
-        int workerGroupSize = Runtime.getRuntime().availableProcessors() * 2;
-        workerGroup.setName(Constants.SERVER_BOOTSTRAP_WORKER_GROUP_SIZE);
-        workerGroup.setValue(workerGroupSize);
-        transportProperties.add(transportProperty);
-        transportProperties.add(workerGroup);
+        Set<TransportProperty> transportProperties = createTransportProperties();
         httpTransportContextHolder.setMessageProcessor(new MSF4JMessageProcessor());
         for (int port : ports) {
             ListenerConfiguration listenerConfiguration = new ListenerConfiguration("netty-" + port, "0.0.0.0", port);
@@ -172,9 +226,26 @@ public class MicroservicesRunner {
     protected void configureTransport() {
         TransportsConfiguration trpConfig = YAMLTransportConfigurationBuilder.build();
         Set<ListenerConfiguration> listenerConfigurations = trpConfig.getListenerConfigurations();
+        configureRequestExecutor(trpConfig.getTransportProperties());
         HTTPTransportContextHolder httpTransportContextHolder = HTTPTransportContextHolder.getInstance();
         httpTransportContextHolder.setHandlerExecutor(new HandlerExecutor());
 
+        Set<TransportProperty> transportProperties = createTransportProperties();
+        httpTransportContextHolder.setMessageProcessor(new MSF4JMessageProcessor());
+        for (ListenerConfiguration listenerConfiguration : listenerConfigurations) {
+            HTTPTransportListener listener =
+                    new HTTPTransportListener(transportProperties, Collections.singleton(listenerConfiguration));
+            transportManager.registerTransport(listener);
+            DataHolder.getInstance().getMicroservicesRegistries().put(listenerConfiguration.getId(), msRegistry);
+        }
+    }
+
+    /**
+     * Create the properties of the transports registered by this runner.
+     *
+     * @return boss and worker group sizes, and the switch turning the compression of the transport off
+     */
+    private Set<TransportProperty> createTransportProperties() {
         Set<TransportProperty> transportProperties = new HashSet<>();
         TransportProperty transportProperty = new TransportProperty();
         int bossGroupSize = Runtime.getRuntime().availableProcessors();
@@ -184,17 +255,37 @@ public class MicroservicesRunner {
         int workerGroupSize = Runtime.getRuntime().availableProcessors() * 2;
         workerGroup.setName(Constants.SERVER_BOOTSTRAP_WORKER_GROUP_SIZE);
         workerGroup.setValue(workerGroupSize);
+        // Responses are compressed by EncodingCallback according to the msf4j.compression.* policy, so the
+        // transport must not compress the ones which the policy leaves as they are
+        TransportProperty compression = new TransportProperty();
+        compression.setName(ContentCoding.TRANSPORT_COMPRESSION_PROPERTY);
+        compression.setValue(false);
         transportProperties.add(transportProperty);
         transportProperties.add(workerGroup);
-        httpTransportContextHolder.setMessageProcessor(new MSF4JMessageProcessor());
-        for (ListenerConfiguration listenerConfiguration : listenerConfigurations) {
-            HTTPTransportListener listener =
-                    new HTTPTransportListener(transportProperties, Collections.singleton(listenerConfiguration));
-            transportManager.registerTransport(listener);
-            DataHolder.getInstance().getMicroservicesRegistries().put(listenerConfiguration.getId(), msRegistry);
-        }
+        transportProperties.add(compression);
+        return transportProperties;
     }
 
+    /**
+     * Configure the request executor from the msf4j.executor.* transport properties, if any of them is present.
+     *
+     * @param transportProperties transport properties of the transport configuration
+     */
+    private void configureRequestExecutor(Set<TransportProperty> transportProperties) {
+        if (transportProperties == null) {
+            return;
+        }
+        Map<String, Object> executorProperties = new HashMap<>();
+        transportProperties.stream()
+                           .filter(property -> property.getName() != null &&
+                                               property.getName().startsWith(EXECUTOR_PROPERTY_PREFIX))
+                           .forEach(property -> executorProperties.put(property.getName(), property.getValue()));
+        if (!executorProperties.isEmpty()) {
+            RequestExecutor requestExecutor = RequestExecutors.fromProperties(executorProperties);
+            msRegistry.setRequestExecutor(requestExecutor);
+            log.info("Using request executor " + requestExecutor);
+        }
+    }
 
     /**
      * Method to register HTTPTransportListeners.
@@ -213,8 +304,11 @@ public class MicroservicesRunner {
 
     /**
      * Start this Microservices runner. This will startup all the HTTP transports.
+     *
+     * @throws IllegalStateException if a deployed microservice refers to a RequestExecutor which is not registered
      */
     public void start() {
+        msRegistry.checkRequestExecutors();
         msRegistry.getSessionManager().init();
         handleServiceLifecycleMethods();
         transportManager.startTransports();
@@ -227,6 +321,8 @@ public class MicroservicesRunner {
      */
     public void stop() {
         transportManager.stopTransports();
+        msRegistry.getRequestExecutor().shutdown();
+        msRegistry.getNamedRequestExecutors().values().forEach(RequestExecutor::shutdown);
         log.info("Microservices server stopped");
     }
 
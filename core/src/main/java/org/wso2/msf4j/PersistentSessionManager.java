@@ -20,7 +20,11 @@ package org.wso2.msf4j;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.msf4j.internal.session.SessionLog;
+import org.wso2.msf4j.util.SystemVariableUtil;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -29,16 +33,55 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This session manager persists sessions in the local file system.
+ * <p>
+ * By default every change of a session is written synchronously to a file of its own. In write-behind mode, enabled
+ * with the {@value #WRITE_BEHIND_PROPERTY} system property or environment variable, changes only mark the session
+ * dirty and a background writer appends the dirty sessions in batches, every {@value #FLUSH_INTERVAL_PROPERTY}
+ * milliseconds, to a single append-only log. The log is compacted on startup and whenever it has grown well beyond
+ * the size of the live sessions. Changes made since the last flush are lost if the process is killed.
  */
 public class PersistentSessionManager extends AbstractSessionManager {
     private static final Logger log = LoggerFactory.getLogger(PersistentSessionManager.class);
     private static final String SESSION_DIR = ".sessions";
 
+    public static final String WRITE_BEHIND_PROPERTY = "msf4j.session.writeBehind";
+    public static final String FLUSH_INTERVAL_PROPERTY = "msf4j.session.flushInterval";
+    private static final String SESSION_LOG = "sessions.log";
+    private static final int DEFAULT_FLUSH_INTERVAL = 1000;  // In milliseconds
+    // The log is compacted once it is this many times the size it had after the last compaction
+    private static final int COMPACTION_FACTOR = 4;
+    private static final long MIN_COMPACTION_SIZE = 1024 * 1024;
+    // Marks a session which has been deleted since the last flush
+    private static final Session DELETED = new Session();
+
+    private final boolean writeBehind;
+    private final long flushInterval;
+    private final Map<String, Session> dirtySessions = new ConcurrentHashMap<>();
+    private SessionLog sessionLog;
+    private Map<String, Session> liveSessions;
+    private long compactedSize;
+    private ScheduledExecutorService sessionWriter;
+
     public PersistentSessionManager() {
+        this(Boolean.parseBoolean(SystemVariableUtil.getValue(WRITE_BEHIND_PROPERTY, "false")));
+    }
+
+    /**
+     * @param writeBehind true to write changed sessions in batches on a background writer
+     */
+    public PersistentSessionManager(boolean writeBehind) {
+        this.writeBehind = writeBehind;
+        this.flushInterval = Long.parseLong(
+                SystemVariableUtil.getValue(FLUSH_INTERVAL_PROPERTY, String.valueOf(DEFAULT_FLUSH_INTERVAL)));
         File dir = new File(SESSION_DIR);
         if (!dir.exists() && !dir.mkdirs()) {
             throw new IllegalStateException("Cannot create .tmp directory");
@@ -47,6 +90,10 @@ public class PersistentSessionManager extends AbstractSessionManager {
 
     @Override
     public void loadSessions(Map<String, Session> sessions) {
+        if (writeBehind) {
+            loadSessionLog(sessions);
+            return;
+        }
         File dir = new File(SESSION_DIR);
         if (!dir.exists()) {
             return;
@@ -57,8 +104,7 @@ public class PersistentSessionManager extends AbstractSessionManager {
             Session session = readSession(file.getName());
 
             // Delete expired session files
-            if (System.currentTimeMillis() - session.getLastAccessedTime() >=
-                    session.getMaxInactiveInterval() * 60 * 1000 && !file.delete()) {
+            if (isExpired(session) && !file.delete()) {
                 log.warn("Couldn't delete expired session file " + file.getAbsolutePath());
             } else {
                 sessions.put(session.getId(), session);
@@ -66,8 +112,53 @@ public class PersistentSessionManager extends AbstractSessionManager {
         });
     }
 
+    /**
+     * Load the live sessions from the session log, compact the log and start the background writer. Sessions
+     * written by the synchronous mode are taken over into the log.
+     */
+    private void loadSessionLog(Map<String, Session> sessions) {
+        liveSessions = sessions;
+        sessionLog = new SessionLog(Paths.get(SESSION_DIR, SESSION_LOG));
+        Map<String, byte[]> compacted = new HashMap<>();
+        File[] sessionFiles = new File(SESSION_DIR).listFiles((dir, name) -> !name.startsWith(SESSION_LOG));
+        try {
+            if (sessionFiles != null) {
+                for (File file : sessionFiles) {
+                    Session session = readSessionFile(file.getName());
+                    if (!isExpired(session)) {
+                        sessions.put(session.getId(), session);
+                        compacted.put(session.getId(), serialize(session));
+                    }
+                }
+            }
+            for (Map.Entry<String, byte[]> record : sessionLog.read().entrySet()) {
+                Session session = deserialize(record.getValue());
+                if (!isExpired(session)) {
+                    sessions.put(session.getId(), session);
+                    compacted.put(record.getKey(), record.getValue());
+                }
+            }
+            sessionLog.compact(compacted);
+            compactedSize = sessionLog.size();
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot load sessions from " + SESSION_DIR, e);
+        }
+        if (sessionFiles != null) {
+            // The sessions in these files are in the log now
+            Arrays.stream(sessionFiles).filter(file -> !file.delete()).forEach(
+                    file -> log.warn("Couldn't delete session file " + file.getAbsolutePath()));
+        }
+        sessionWriter = Executors.newSingleThreadScheduledExecutor();
+        sessionWriter.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
     @Override
     public Session readSession(String sessionId) {
+        // In write-behind mode all the sessions in the log are loaded on startup
+        return writeBehind ? null : readSessionFile(sessionId);
+    }
+
+    private Session readSessionFile(String sessionId) {
         String path = Paths.get(SESSION_DIR, sessionId).toString();
         if (!new File(path).exists()) {
             return null;
@@ -85,6 +176,10 @@ public class PersistentSessionManager extends AbstractSessionManager {
 
     @Override
     public void saveSession(Session session) {
+        if (writeBehind) {
+            dirtySessions.put(session.getId(), session);
+            return;
+        }
         try (FileOutputStream fout = new FileOutputStream(Paths.get(SESSION_DIR, session.getId()).toString());
              ObjectOutputStream oos = new ObjectOutputStream(fout)) {
             oos.writeObject(session);
@@ -95,6 +190,10 @@ public class PersistentSessionManager extends AbstractSessionManager {
 
     @Override
     public void deleteSession(Session session) {
+        if (writeBehind) {
+            dirtySessions.put(session.getId(), DELETED);
+            return;
+        }
         String pathname = Paths.get(SESSION_DIR, session.getId()).toString();
         if (!new File(pathname).delete()) {
             throw new IllegalStateException("File " + pathname + " deletion failed");
@@ -105,4 +204,96 @@ public class PersistentSessionManager extends AbstractSessionManager {
     public void updateSession(Session session) {
         saveSession(session);
     }
+
+    @Override
+    protected void onStop() {
+        if (writeBehind) {
+            sessionWriter.shutdown();
+            try {
+                sessionWriter.awaitTermination(flushInterval, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flush();
+            try {
+                sessionLog.close();
+            } catch (IOException e) {
+                log.warn("Couldn't close the session log", e);
+            }
+        }
+    }
+
+    /**
+     * Append the sessions which have changed since the last flush to the log, as one batch. A session changed
+     * several times in between is written once, in its latest state.
+     */
+    private synchronized void flush() {
+        if (dirtySessions.isEmpty()) {
+            return;
+        }
+        Map<String, byte[]> records = new HashMap<>();
+        Map<String, Session> flushed = new HashMap<>();
+        for (String sessionId : dirtySessions.keySet()) {
+            Session session = dirtySessions.remove(sessionId);
+            if (session == null) {
+                continue;
+            }
+            try {
+                records.put(sessionId, session == DELETED ? null : serialize(session));
+                flushed.put(sessionId, session);
+            } catch (IOException | RuntimeException e) {
+                log.error("Cannot save session " + sessionId, e);
+            }
+        }
+        try {
+            sessionLog.append(records);
+            if (sessionLog.size() > COMPACTION_FACTOR * Math.max(compactedSize, MIN_COMPACTION_SIZE)) {
+                compact();
+            }
+        } catch (IOException e) {
+            log.error("Cannot write sessions to the session log, retrying with the next flush", e);
+            // Changes made in the meantime are newer than the ones which could not be written
+            flushed.forEach(dirtySessions::putIfAbsent);
+        }
+    }
+
+    /**
+     * Rewrite the log with the live sessions. Sessions changed while it is rewritten are dirty, so the next flush
+     * appends them.
+     */
+    private void compact() throws IOException {
+        Map<String, byte[]> compacted = new HashMap<>();
+        for (Session session : liveSessions.values()) {
+            try {
+                compacted.put(session.getId(), serialize(session));
+            } catch (IOException | RuntimeException e) {
+                log.error("Cannot save session " + session.getId(), e);
+            }
+        }
+        sessionLog.compact(compacted);
+        compactedSize = sessionLog.size();
+    }
+
+    private static boolean isExpired(Session session) {
+        return System.currentTimeMillis() - session.getLastAccessedTime() >=
+               session.getMaxInactiveInterval() * 60 * 1000;
+    }
+
+    private static byte[] serialize(Session session) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(session);
+        }
+        return bytes.toByteArray();
+    }
+
+    private Session deserialize(byte[] bytes) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            Session session = (Session) ois.readObject();
+            session.setManager(this);
+            return session;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Cannot read session", e);
+        }
+    }
 }
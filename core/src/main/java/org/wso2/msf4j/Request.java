@@ -1,12 +1,20 @@
 package org.wso2.msf4j;
 
+import org.apache.commons.io.IOUtils;
 import org.wso2.carbon.messaging.CarbonMessage;
 import org.wso2.carbon.messaging.Constants;
 import org.wso2.carbon.messaging.Headers;
 import org.wso2.msf4j.internal.MSF4JConstants;
+import org.wso2.msf4j.internal.compression.ContentCoding;
+import org.wso2.msf4j.internal.compression.ContentDecodingException;
+import org.wso2.msf4j.util.CompositeByteBuffer;
+import org.wso2.msf4j.util.QueryStringDecoderUtil;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -22,6 +30,7 @@ public class Request {
     private String contentType = null;
     private SessionManager sessionManager;
     private Session session;
+    private QueryStringDecoderUtil queryStringDecoder;
 
     public Request(CarbonMessage carbonMessage) {
         this.carbonMessage = carbonMessage;
@@ -65,10 +74,24 @@ public class Request {
     }
 
     /**
-     * @return full message body of the Request
+     * @return full message body of the Request, decompressed if it is encoded with gzip or deflate
+     * @throws ContentDecodingException if the compressed body is malformed or decompresses to more than the
+     *                                  configured limit
      */
     public List<ByteBuffer> getFullMessageBody() {
-        return carbonMessage.getFullMessageBody();
+        List<ByteBuffer> body = carbonMessage.getFullMessageBody();
+        String contentEncoding = carbonMessage.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (!ContentCoding.isDecodable(contentEncoding)) {
+            return body;
+        }
+        try (InputStream inputStream = ContentCoding.decode(contentEncoding,
+                                                            new CompositeByteBuffer(body).newInputStream())) {
+            return Collections.singletonList(ByteBuffer.wrap(IOUtils.toByteArray(inputStream)));
+        } catch (IOException e) {
+            // The body is already in memory, so the only way decoding it can fail is malformed content
+            throw new ContentDecodingException(javax.ws.rs.core.Response.Status.BAD_REQUEST,
+                                               "Malformed compressed request body", e);
+        }
     }
 
     /**
@@ -131,6 +154,31 @@ public class Request {
         return (String) carbonMessage.getProperty(Constants.TO);
     }
 
+    /**
+     * Get the decoded values of a query parameter of the request. The query string is decoded lazily, once per
+     * request, and only the values of the requested parameters are decoded.
+     *
+     * @param name name of the query parameter
+     * @return values of the query parameter or null if the request does not have the parameter
+     */
+    public List<String> getQueryParameter(String name) {
+        return getQueryStringDecoder().parameter(name);
+    }
+
+    /**
+     * @return decoded query parameters of the request
+     */
+    public Map<String, List<String>> getQueryParameters() {
+        return getQueryStringDecoder().parameters();
+    }
+
+    private QueryStringDecoderUtil getQueryStringDecoder() {
+        if (queryStringDecoder == null) {
+            queryStringDecoder = new QueryStringDecoderUtil(getUri());
+        }
+        return queryStringDecoder;
+    }
+
     /**
      * @return HTTP method of the request.
      */
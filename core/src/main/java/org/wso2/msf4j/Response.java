@@ -18,18 +18,21 @@ package org.wso2.msf4j;
 
 import org.wso2.carbon.messaging.CarbonCallback;
 import org.wso2.carbon.messaging.CarbonMessage;
-import org.wso2.carbon.messaging.DefaultCarbonMessage;
 import org.wso2.carbon.messaging.Header;
 import org.wso2.carbon.messaging.Headers;
 import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.msf4j.internal.MSF4JConstants;
-import org.wso2.msf4j.internal.entitywriter.EntityWriter;
+import org.wso2.msf4j.entitywriter.EntityWriter;
+import org.wso2.msf4j.internal.compression.ContentCoding;
+import org.wso2.msf4j.internal.compression.EncodingCallback;
+import org.wso2.msf4j.internal.compression.EncodingCarbonMessage;
 import org.wso2.msf4j.internal.entitywriter.EntityWriterRegistry;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.NewCookie;
 
@@ -53,7 +56,7 @@ public class Response {
     private javax.ws.rs.core.Response jaxrsResponse;
 
     public Response(CarbonCallback carbonCallback) {
-        carbonMessage = new DefaultCarbonMessage();
+        carbonMessage = new EncodingCarbonMessage();
         this.carbonCallback = carbonCallback;
     }
 
@@ -289,7 +292,14 @@ public class Response {
     private void processEntity() {
         if (entity != null) {
             EntityWriter entityWriter = EntityWriterRegistry.getEntityWriter(entity.getClass());
-            entityWriter.writeData(carbonMessage, entity, mediaType, chunkSize, carbonCallback);
+            CarbonCallback callback = carbonCallback;
+            String coding = (request == null) ? null :
+                            ContentCoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+            if (coding != null) {
+                // The response is compressed, if it is worth compressing, once the entity writer hands it over
+                callback = new EncodingCallback(carbonCallback, coding);
+            }
+            entityWriter.writeData(carbonMessage, entity, mediaType, chunkSize, callback, request);
         } else {
             carbonMessage.addMessageBody(ByteBuffer.allocate(0));
             carbonMessage.setEndOfMsgAdded(true);
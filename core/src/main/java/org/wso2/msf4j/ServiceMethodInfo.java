@@ -29,7 +29,8 @@ public class ServiceMethodInfo {
     private final String methodName;
     private final Method method;
 
-    private Map<String, Object> attributes = new ConcurrentHashMap<>();
+    // Created on first use, since most requests are intercepted without attributes
+    private volatile Map<String, Object> attributes;
 
     public ServiceMethodInfo(String methodName, Method method) {
         this.methodName = methodName;
@@ -51,7 +52,8 @@ public class ServiceMethodInfo {
      * @return an {@link Object} containing the value of the attribute, or null if the attribute does not exist
      */
     public Object getAttribute(String name) {
-        return attributes.get(name);
+        Map<String, Object> attributes = this.attributes;
+        return (attributes == null) ? null : attributes.get(name);
     }
 
     /**
@@ -61,6 +63,16 @@ public class ServiceMethodInfo {
      * @param obj  the {@link Object} to be stored
      */
     public void setAttribute(String name, Object obj) {
+        Map<String, Object> attributes = this.attributes;
+        if (attributes == null) {
+            synchronized (this) {
+                attributes = this.attributes;
+                if (attributes == null) {
+                    attributes = new ConcurrentHashMap<>();
+                    this.attributes = attributes;
+                }
+            }
+        }
         attributes.put(name, obj);
     }
 }
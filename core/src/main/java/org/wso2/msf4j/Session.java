@@ -33,7 +33,8 @@ public class Session implements Serializable {
 
     private String id;
     private long creationTime;
-    private long lastAccessedTime;
+    // Read by the expiry checks of the session manager, which run on their own thread
+    private volatile long lastAccessedTime;
     private int maxInactiveInterval;
     private boolean isValid = true;
     private boolean isNew = true;
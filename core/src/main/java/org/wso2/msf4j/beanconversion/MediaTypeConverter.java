@@ -16,8 +16,13 @@
 
 package org.wso2.msf4j.beanconversion;
 
+import org.wso2.msf4j.util.CompositeByteBuffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Type;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 
 /**
  * Interface of media type conversion classes.
@@ -37,6 +42,21 @@ public abstract class MediaTypeConverter {
         return toMedia(object);
     }
 
+    /**
+     * Convert an object to a specific media type and write the media content to the given stream, without holding
+     * the whole content in memory when the converter supports streaming.
+     *
+     * @param object       object that needs to be converted to a media content
+     * @param outputStream stream the media content is written to
+     * @throws BeanConversionException throws if conversion is failed
+     */
+    public void convertToMedia(Object object, OutputStream outputStream) throws BeanConversionException {
+        if (object == null) {
+            throw new BeanConversionException("Object cannot be null");
+        }
+        toMedia(object, outputStream);
+    }
+
     /**
      * Create an object from a specific content.
      *
@@ -52,6 +72,21 @@ public abstract class MediaTypeConverter {
         return toObject(content, targetType);
     }
 
+    /**
+     * Create an object from a content made of several chunks, without merging the chunks into a single buffer.
+     *
+     * @param content    content that needs to be converted to an object
+     * @param targetType media type of the content
+     * @return created object
+     * @throws BeanConversionException throws if object creation is failed
+     */
+    public Object convertToObject(CompositeByteBuffer content, Type targetType) throws BeanConversionException {
+        if (content == null || targetType == null) {
+            throw new BeanConversionException("Content or target type cannot be null");
+        }
+        return toObject(content, targetType);
+    }
+
     /**
      * Return an array of supported media types.
      *
@@ -78,4 +113,38 @@ public abstract class MediaTypeConverter {
      */
     protected abstract Object toObject(ByteBuffer content, Type targetType) throws BeanConversionException;
 
+    /**
+     * Create an object from a content made of several chunks. Converters which can read the content as a stream
+     * should override this, by default the chunks are copied into a single buffer.
+     *
+     * @param content    content that needs to be converted to an object
+     * @param targetType media type of the content
+     * @return created object
+     * @throws BeanConversionException throws if object creation is failed
+     */
+    protected Object toObject(CompositeByteBuffer content, Type targetType) throws BeanConversionException {
+        return toObject(content.toByteBuffer(), targetType);
+    }
+
+    /**
+     * Convert an object to a specific media type and write it to the given stream. Converters which can write the
+     * content as a stream should override this, by default the content is converted with
+     * {@link #toMedia(Object)} and then written.
+     *
+     * @param object       object that needs to be converted to a media content
+     * @param outputStream stream the media content is written to
+     * @throws BeanConversionException throws if conversion is failed
+     */
+    protected void toMedia(Object object, OutputStream outputStream) throws BeanConversionException {
+        ByteBuffer media = toMedia(object);
+        try {
+            if (media.hasArray()) {
+                outputStream.write(media.array(), media.arrayOffset() + media.position(), media.remaining());
+            } else {
+                Channels.newChannel(outputStream).write(media);
+            }
+        } catch (IOException e) {
+            throw new BeanConversionException("Unable to write the converted media", e);
+        }
+    }
 }
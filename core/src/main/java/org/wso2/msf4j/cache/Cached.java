@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the responses of a GET or HEAD resource method from the server side {@link ResponseCache}. The first
+ * successful response for a request is stored with its encoded body and headers, and identical requests are answered
+ * from the cache until the entry expires, without invoking the resource method or writing the entity again. When the
+ * response does not have an ETag one is generated from its body, so clients can revalidate with If-None-Match and
+ * receive a 304 response.
+ * <p>
+ * Entries are keyed by the request path, the query parameters and request headers selected with
+ * {@link #varyByQuery()} and {@link #varyByHeaders()}, the negotiated media type and the negotiated content coding.
+ * Interceptors run for cached responses as well, but responses which depend on the caller, for example on the
+ * Authorization header, have to list that header in {@link #varyByHeaders()}. Only 200 responses which do not set
+ * cookies and are not marked with Cache-Control no-store or private are cached.
+ * <p>
+ * When placed on a resource class it applies to all the resource methods of that class which are not annotated
+ * themselves.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Cached {
+
+    /**
+     * Vary by all the query parameters, that is by the whole query string.
+     */
+    String ALL = "*";
+
+    /**
+     * @return time a response stays in the cache, in {@link #unit()}
+     */
+    long ttl() default 60;
+
+    /**
+     * @return unit of {@link #ttl()}
+     */
+    TimeUnit unit() default TimeUnit.SECONDS;
+
+    /**
+     * @return names of the request headers which select different responses
+     */
+    String[] varyByHeaders() default {};
+
+    /**
+     * @return names of the query parameters which select different responses, {@value #ALL} for the whole query
+     * string or an empty array to ignore the query string
+     */
+    String[] varyByQuery() default {ALL};
+}
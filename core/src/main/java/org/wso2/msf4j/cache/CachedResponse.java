@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.cache;
+
+import org.wso2.carbon.messaging.CarbonMessage;
+import org.wso2.carbon.messaging.DefaultCarbonMessage;
+import org.wso2.carbon.messaging.Header;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import javax.ws.rs.core.HttpHeaders;
+
+/**
+ * Immutable snapshot of a response in the {@link ResponseCache}: the status code, the headers and the body as they
+ * were handed over to the transport, so that serving it again needs neither the resource method nor an entity writer.
+ */
+public final class CachedResponse {
+
+    private static final int STATUS_NOT_MODIFIED = 304;
+    // Headers which describe the representation and are kept in a 304 response
+    private static final String[] NOT_MODIFIED_HEADERS = {
+            HttpHeaders.ETAG, HttpHeaders.VARY, HttpHeaders.CACHE_CONTROL, HttpHeaders.EXPIRES,
+            HttpHeaders.CONTENT_LOCATION
+    };
+    // Rough per header and per entry bookkeeping cost, counted in the weight of an entry
+    private static final int HEADER_OVERHEAD = 32;
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final int statusCode;
+    private final List<Header> headers;
+    private final byte[] body;
+    private final String etag;
+    private final long expiresAt;
+
+    /**
+     * @param statusCode HTTP status code of the response
+     * @param headers    headers of the response, without the headers which belong to the connection
+     * @param body       encoded body of the response
+     * @param expiresAt  {@link System#nanoTime()} at which the response expires
+     */
+    public CachedResponse(int statusCode, List<Header> headers, byte[] body, long expiresAt) {
+        this.statusCode = statusCode;
+        this.body = body;
+        this.expiresAt = expiresAt;
+        List<Header> copy = new ArrayList<>(headers.size() + 1);
+        String etag = null;
+        for (Header header : headers) {
+            if (HttpHeaders.ETAG.equalsIgnoreCase(header.getName())) {
+                etag = header.getValue();
+            }
+            copy.add(new Header(header.getName(), header.getValue()));
+        }
+        if (etag == null) {
+            etag = generateETag(body);
+            copy.add(new Header(HttpHeaders.ETAG, etag));
+        }
+        this.etag = etag;
+        this.headers = Collections.unmodifiableList(copy);
+    }
+
+    /**
+     * @return HTTP status code of the response
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return headers of the response, including the ETag
+     */
+    public List<Header> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return length of the encoded body
+     */
+    public int getContentLength() {
+        return body.length;
+    }
+
+    /**
+     * @return entity tag of the response, either set by the resource method or generated from the body
+     */
+    public String getETag() {
+        return etag;
+    }
+
+    /**
+     * @param now current {@link System#nanoTime()}
+     * @return true if the response should not be served any more
+     */
+    public boolean isExpired(long now) {
+        return now - expiresAt >= 0;
+    }
+
+    /**
+     * @return approximate memory taken by this response, in bytes
+     */
+    long getWeight() {
+        long weight = ENTRY_OVERHEAD + body.length;
+        for (Header header : headers) {
+            weight += HEADER_OVERHEAD + header.getName().length() + header.getValue().length();
+        }
+        return weight;
+    }
+
+    /**
+     * Check whether one of the entity tags of an If-None-Match header matches this response. Entity tags are
+     * compared with the weak comparison, as RFC 7232 requires for If-None-Match.
+     *
+     * @param ifNoneMatch value of the If-None-Match header of the request, may be null
+     * @return true if the client already has this response
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaqueTag = opaqueTag(etag);
+        int start = 0;
+        int length = ifNoneMatch.length();
+        while (start < length) {
+            int end = ifNoneMatch.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            String candidate = ifNoneMatch.substring(start, end).trim();
+            if ("*".equals(candidate) || opaqueTag.equals(opaqueTag(candidate))) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Create the message which answers a request from this response.
+     *
+     * @param ifNoneMatch value of the If-None-Match header of the request, may be null
+     * @param withBody    false for HEAD requests
+     * @return 304 response if the client already has this response, otherwise a copy of this response
+     */
+    public CarbonMessage toCarbonMessage(String ifNoneMatch, boolean withBody) {
+        DefaultCarbonMessage carbonMessage = new DefaultCarbonMessage();
+        if (matches(ifNoneMatch)) {
+            carbonMessage.setProperty(Constants.HTTP_STATUS_CODE, STATUS_NOT_MODIFIED);
+            for (Header header : headers) {
+                for (String name : NOT_MODIFIED_HEADERS) {
+                    if (name.equalsIgnoreCase(header.getName())) {
+                        carbonMessage.setHeader(header.getName(), header.getValue());
+                    }
+                }
+            }
+            carbonMessage.setHeader(Constants.HTTP_CONTENT_LENGTH, "0");
+            withBody = false;
+        } else {
+            carbonMessage.setProperty(Constants.HTTP_STATUS_CODE, statusCode);
+            carbonMessage.getHeaders().set(new ArrayList<>(headers));
+        }
+        // Every message gets its own buffer since the transport consumes it, but the content is shared
+        carbonMessage.addMessageBody(withBody ? ByteBuffer.wrap(body) : ByteBuffer.allocate(0));
+        carbonMessage.setEndOfMsgAdded(true);
+        return carbonMessage;
+    }
+
+    private static String opaqueTag(String entityTag) {
+        return entityTag.startsWith("W/") ? entityTag.substring(2) : entityTag;
+    }
+
+    private static String generateETag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
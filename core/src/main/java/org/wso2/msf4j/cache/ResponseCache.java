@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.cache;
+
+import org.wso2.msf4j.util.SystemVariableUtil;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-memory cache of the responses of resource methods annotated with {@link Cached}. The cache is limited
+ * both by the number of entries and by the memory taken by the entries, and the least recently used entries are
+ * evicted first when either limit is reached. Expired entries are dropped when they are looked up or when they reach
+ * the end of the LRU order.
+ * <p>
+ * The limits are read from the {@value #MAX_ENTRIES_PROPERTY} and {@value #MAX_BYTES_PROPERTY} system properties or
+ * environment variables. Responses larger than {@value #MAX_ENTRY_BYTES_PROPERTY} are never cached.
+ */
+public final class ResponseCache {
+
+    public static final String MAX_ENTRIES_PROPERTY = "msf4j.cache.maxEntries";
+    public static final String MAX_BYTES_PROPERTY = "msf4j.cache.maxBytes";
+    public static final String MAX_ENTRY_BYTES_PROPERTY = "msf4j.cache.maxEntryBytes";
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final long DEFAULT_MAX_ENTRY_BYTES = 1024 * 1024;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    // Access ordered, so iteration starts from the least recently used entry
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Create a cache with the limits configured with system properties or environment variables.
+     */
+    public ResponseCache() {
+        this(Integer.parseInt(SystemVariableUtil.getValue(MAX_ENTRIES_PROPERTY, String.valueOf(DEFAULT_MAX_ENTRIES))),
+             Long.parseLong(SystemVariableUtil.getValue(MAX_BYTES_PROPERTY, String.valueOf(DEFAULT_MAX_BYTES))),
+             Long.parseLong(SystemVariableUtil.getValue(MAX_ENTRY_BYTES_PROPERTY,
+                                                        String.valueOf(DEFAULT_MAX_ENTRY_BYTES))));
+    }
+
+    /**
+     * @param maxEntries    maximum number of responses in the cache
+     * @param maxBytes      maximum memory taken by the responses in the cache
+     * @param maxEntryBytes maximum body length of a cached response
+     */
+    public ResponseCache(int maxEntries, long maxBytes, long maxEntryBytes) {
+        if (maxEntries < 0 || maxBytes < 0 || maxEntryBytes < 0) {
+            throw new IllegalArgumentException("Response cache limits cannot be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+    }
+
+    /**
+     * Look up a response. Every call is counted as either a hit or a miss.
+     *
+     * @param key key of the response
+     * @return response which has not expired yet, or null
+     */
+    public CachedResponse get(String key) {
+        CachedResponse response;
+        synchronized (this) {
+            response = entries.get(key);
+            if (response != null && response.isExpired(System.nanoTime())) {
+                remove(key);
+                response = null;
+            }
+        }
+        if (response == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return response;
+    }
+
+    /**
+     * @param contentLength length of a response body, -1 if it is not known
+     * @return true if a response of the given length may be stored
+     */
+    public boolean accepts(long contentLength) {
+        return contentLength <= maxEntryBytes && maxEntries > 0;
+    }
+
+    /**
+     * Store a response, evicting the least recently used responses if the cache is full.
+     *
+     * @param key      key of the response
+     * @param response response to be cached
+     */
+    public synchronized void put(String key, CachedResponse response) {
+        long entryWeight = response.getWeight() + key.length();
+        if (!accepts(response.getContentLength()) || entryWeight > maxBytes) {
+            return;
+        }
+        remove(key);
+        entries.put(key, response);
+        weight += entryWeight;
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, CachedResponse>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext() && (entries.size() > maxEntries || weight > maxBytes)) {
+            Map.Entry<String, CachedResponse> eldest = iterator.next();
+            iterator.remove();
+            weight -= eldest.getValue().getWeight() + eldest.getKey().length();
+            if (!eldest.getValue().isExpired(now)) {
+                evictionCount.increment();
+            }
+        }
+    }
+
+    /**
+     * Remove all the responses from the cache.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * @return number of lookups which were served from the cache
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return number of lookups which did not find a fresh response
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return number of responses which were removed before expiring to make room for others
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * @return number of responses in the cache
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * @return approximate memory taken by the responses in the cache, in bytes
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    private void remove(String key) {
+        CachedResponse removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.getWeight() + key.length();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCache{maxEntries=" + maxEntries + ", maxBytes=" + maxBytes + ", hits=" + getHitCount() +
+               ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "}";
+    }
+}
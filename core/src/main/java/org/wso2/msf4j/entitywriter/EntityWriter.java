@@ -14,10 +14,11 @@
  * limitations under the License.
  */
 
-package org.wso2.msf4j.internal.entitywriter;
+package org.wso2.msf4j.entitywriter;
 
 import org.wso2.carbon.messaging.CarbonCallback;
 import org.wso2.carbon.messaging.CarbonMessage;
+import org.wso2.msf4j.Request;
 
 /**
  * Interface that provides the capability of writing an entity type to
@@ -51,4 +52,22 @@ public interface EntityWriter<T> {
     void writeData(CarbonMessage carbonMessage, T entity, String mediaType,
                    int chunkSize, CarbonCallback cb);
 
+    /**
+     * Write the entity object to the carbon message in response to the given request. Writers which honour
+     * request headers, such as Range, override this method. The default implementation ignores the request.
+     *
+     * @param carbonMessage response message
+     * @param entity    object
+     * @param mediaType user defined media type
+     * @param chunkSize user defined chunk size
+     *                  0 to signify none chunked response
+     *                  -1 to signify default chunk size of the EntityWriter
+     * @param cb        callback method that should be called to start sending the response payload
+     * @param request   request which is being responded to
+     */
+    default void writeData(CarbonMessage carbonMessage, T entity, String mediaType,
+                           int chunkSize, CarbonCallback cb, Request request) {
+        writeData(carbonMessage, entity, mediaType, chunkSize, cb);
+    }
+
 }
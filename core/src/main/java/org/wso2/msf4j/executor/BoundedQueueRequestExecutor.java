@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.executor;
+
+import org.wso2.msf4j.Request;
+import org.wso2.msf4j.internal.MSF4JThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RequestExecutor which executes requests on a fixed size thread pool. Requests wait in a bounded queue while all the
+ * threads are busy and are rejected once the queue is full.
+ */
+public class BoundedQueueRequestExecutor implements RequestExecutor {
+
+    private final String name;
+    private final ThreadPoolExecutor threadPoolExecutor;
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * Create a BoundedQueueRequestExecutor.
+     *
+     * @param name          name of the executor, also used as the prefix of the thread names.
+     * @param poolSize      number of threads executing requests.
+     * @param queueCapacity maximum number of requests waiting for a thread, {@link Integer#MAX_VALUE} for no limit.
+     */
+    public BoundedQueueRequestExecutor(String name, int poolSize, int queueCapacity) {
+        if (poolSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Pool size and queue capacity of " + name + " should be positive");
+        }
+        this.name = name;
+        BlockingQueue<Runnable> queue = (queueCapacity == Integer.MAX_VALUE) ?
+                                        new LinkedBlockingQueue<>() : new ArrayBlockingQueue<>(queueCapacity);
+        this.threadPoolExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, queue,
+                                                         new MSF4JThreadFactory(new ThreadGroup(name)),
+                                                         (task, executor) -> {
+                                                             rejectedCount.increment();
+                                                             throw new RejectedExecutionException(
+                                                                     "Request queue of " + name + " is full");
+                                                         });
+    }
+
+    @Override
+    public void execute(Request request, Runnable task) throws RejectedExecutionException {
+        threadPoolExecutor.execute(task);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return threadPoolExecutor.getQueue().size();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return threadPoolExecutor.getActiveCount();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    @Override
+    public void shutdown() {
+        threadPoolExecutor.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return name + "[poolSize=" + threadPoolExecutor.getCorePoolSize() + "]";
+    }
+}
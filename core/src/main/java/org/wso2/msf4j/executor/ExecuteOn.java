@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.executor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Selects the executor which runs a resource method. When placed on a resource class it applies to all the resource
+ * methods of that class which are not annotated themselves. For sub-resources the annotation of the sub-resource
+ * locator applies.
+ * <p>
+ * Resource methods without this annotation are executed by the default {@link RequestExecutor}.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ExecuteOn {
+
+    /**
+     * Execute on the transport I/O thread. For cheap, non-blocking resource methods. Requests with a body are still
+     * executed by the default executor.
+     */
+    String IO = "io";
+
+    /**
+     * Execute on the default executor.
+     */
+    String BLOCKING = "blocking";
+
+    /**
+     * @return {@value #IO}, {@value #BLOCKING} or the name of an executor registered with
+     * {@link org.wso2.msf4j.MicroservicesRunner#addRequestExecutor(String, RequestExecutor)}
+     */
+    String value();
+}
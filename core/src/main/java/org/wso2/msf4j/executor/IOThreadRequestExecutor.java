@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.executor;
+
+import org.wso2.msf4j.Request;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.ws.rs.core.HttpHeaders;
+
+/**
+ * RequestExecutor which executes requests directly on the transport I/O thread, avoiding the hand off to a worker
+ * thread. Only suitable for resource methods which never block.
+ * <p>
+ * The body of a request arrives on the same I/O thread after the request has been dispatched, so requests which carry
+ * a body are handed over to the fallback executor instead of waiting for the body on the I/O thread.
+ */
+public class IOThreadRequestExecutor implements RequestExecutor {
+
+    private static final String TRANSFER_ENCODING = "Transfer-Encoding";
+
+    private final String name;
+    private final RequestExecutor fallbackExecutor;
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    /**
+     * Create an IOThreadRequestExecutor.
+     *
+     * @param name             name of the executor.
+     * @param fallbackExecutor executor for requests which have a body.
+     */
+    public IOThreadRequestExecutor(String name, RequestExecutor fallbackExecutor) {
+        this.name = name;
+        this.fallbackExecutor = fallbackExecutor;
+    }
+
+    @Override
+    public void execute(Request request, Runnable task) throws RejectedExecutionException {
+        if (hasBody(request)) {
+            fallbackExecutor.execute(request, task);
+            return;
+        }
+        activeCount.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            activeCount.decrementAndGet();
+        }
+    }
+
+    private static boolean hasBody(Request request) {
+        if (request.getHeader(TRANSFER_ENCODING) != null) {
+            return true;
+        }
+        String contentLength = request.getHeader(HttpHeaders.CONTENT_LENGTH);
+        return contentLength != null && !"0".equals(contentLength.trim());
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return fallbackExecutor.getQueueDepth();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return activeCount.get() + fallbackExecutor.getActiveCount();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return fallbackExecutor.getRejectedCount();
+    }
+
+    /**
+     * @return executor which executes the requests having a body.
+     */
+    public RequestExecutor getFallbackExecutor() {
+        return fallbackExecutor;
+    }
+
+    @Override
+    public void shutdown() {
+        fallbackExecutor.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return name + "[fallback=" + fallbackExecutor + "]";
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.executor;
+
+import org.wso2.msf4j.Request;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Interface that needs to be implemented to control on which threads the resource methods are executed.
+ * The transport hands every request over to a RequestExecutor from its I/O thread.
+ */
+public interface RequestExecutor {
+
+    /**
+     * Execute the processing of a request.
+     *
+     * @param request request which is being processed.
+     * @param task    task which dispatches the request to the resource method and sends the response.
+     * @throws RejectedExecutionException if the request cannot be accepted, the client receives a 503 response.
+     */
+    void execute(Request request, Runnable task) throws RejectedExecutionException;
+
+    /**
+     * @return name of this executor.
+     */
+    String getName();
+
+    /**
+     * @return number of requests which are waiting to be executed.
+     */
+    int getQueueDepth();
+
+    /**
+     * @return number of requests which are currently being executed.
+     */
+    int getActiveCount();
+
+    /**
+     * @return number of requests which were rejected since this executor was created.
+     */
+    long getRejectedCount();
+
+    /**
+     * Stop accepting requests and release the threads of this executor.
+     */
+    void shutdown();
+}
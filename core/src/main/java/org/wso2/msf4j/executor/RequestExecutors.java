@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.executor;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Factory methods for the RequestExecutors shipped with MSF4J. The executor can be selected in the
+ * transportProperties section of the Netty transport configuration file, for example:
+ *
+ * <pre>
+ * transportProperties:
+ *  -
+ *   name: "msf4j.executor.mode"
+ *   value: "bounded"
+ *  -
+ *   name: "msf4j.executor.pool.size"
+ *   value: 100
+ *  -
+ *   name: "msf4j.executor.queue.capacity"
+ *   value: 1000
+ * </pre>
+ */
+public final class RequestExecutors {
+
+    /**
+     * Execution mode, one of {@value #MODE_BOUNDED}, {@value #MODE_IO} or {@value #MODE_VIRTUAL}.
+     */
+    public static final String EXECUTOR_MODE = "msf4j.executor.mode";
+    /**
+     * Number of worker threads of the bounded mode, also used for the fallback pool of the io mode.
+     */
+    public static final String EXECUTOR_POOL_SIZE = "msf4j.executor.pool.size";
+    /**
+     * Number of requests which can wait for a worker thread in the bounded mode.
+     */
+    public static final String EXECUTOR_QUEUE_CAPACITY = "msf4j.executor.queue.capacity";
+    /**
+     * Number of requests which can be executed at once in the virtual mode.
+     */
+    public static final String EXECUTOR_MAX_CONCURRENCY = "msf4j.executor.max.concurrency";
+
+    public static final String MODE_BOUNDED = "bounded";
+    public static final String MODE_IO = "io";
+    public static final String MODE_VIRTUAL = "virtual";
+
+    public static final int DEFAULT_POOL_SIZE = 60;
+    public static final int DEFAULT_QUEUE_CAPACITY = Integer.MAX_VALUE;
+
+    private static final String WORKER_POOL_NAME = "msf4j.executor.workerpool";
+    private static final String IO_EXECUTOR_NAME = "msf4j.executor.io";
+    private static final String VIRTUAL_EXECUTOR_NAME = "msf4j.executor.virtual";
+
+    private RequestExecutors() {
+    }
+
+    /**
+     * @return the default executor, a pool of {@value #DEFAULT_POOL_SIZE} worker threads.
+     */
+    public static RequestExecutor newDefaultExecutor() {
+        return newBoundedQueueExecutor(DEFAULT_POOL_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Create an executor with a fixed size thread pool and a bounded request queue.
+     *
+     * @param poolSize      number of worker threads.
+     * @param queueCapacity maximum number of requests waiting for a worker thread.
+     * @return new executor
+     */
+    public static RequestExecutor newBoundedQueueExecutor(int poolSize, int queueCapacity) {
+        return new BoundedQueueRequestExecutor(WORKER_POOL_NAME, poolSize, queueCapacity);
+    }
+
+    /**
+     * Create an executor which runs requests without a body on the transport I/O thread.
+     *
+     * @param fallbackExecutor executor for requests which have a body.
+     * @return new executor
+     */
+    public static RequestExecutor newIOThreadExecutor(RequestExecutor fallbackExecutor) {
+        return new IOThreadRequestExecutor(IO_EXECUTOR_NAME, fallbackExecutor);
+    }
+
+    /**
+     * Create an executor which runs every request on a new virtual thread.
+     *
+     * @param maxConcurrentRequests maximum number of requests executed at once.
+     * @return new executor
+     */
+    public static RequestExecutor newVirtualThreadExecutor(int maxConcurrentRequests) {
+        return new VirtualThreadRequestExecutor(VIRTUAL_EXECUTOR_NAME, maxConcurrentRequests);
+    }
+
+    /**
+     * Create an executor from configuration properties.
+     *
+     * @param properties configuration properties, keyed by the constants of this class.
+     * @return new executor
+     * @throws IllegalArgumentException if the configuration is invalid.
+     */
+    public static RequestExecutor fromProperties(Map<String, Object> properties) {
+        Object mode = properties.get(EXECUTOR_MODE);
+        int poolSize = getInt(properties, EXECUTOR_POOL_SIZE, DEFAULT_POOL_SIZE);
+        int queueCapacity = getInt(properties, EXECUTOR_QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY);
+        String modeName = (mode == null) ? MODE_BOUNDED : mode.toString().trim().toLowerCase(Locale.US);
+        switch (modeName) {
+            case MODE_BOUNDED:
+                return newBoundedQueueExecutor(poolSize, queueCapacity);
+            case MODE_IO:
+                return newIOThreadExecutor(newBoundedQueueExecutor(poolSize, queueCapacity));
+            case MODE_VIRTUAL:
+                return newVirtualThreadExecutor(getInt(properties, EXECUTOR_MAX_CONCURRENCY, Integer.MAX_VALUE));
+            default:
+                throw new IllegalArgumentException("Unknown " + EXECUTOR_MODE + ": " + mode);
+        }
+    }
+
+    private static int getInt(Map<String, Object> properties, String key, int defaultValue) {
+        Object value = properties.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+        }
+    }
+}
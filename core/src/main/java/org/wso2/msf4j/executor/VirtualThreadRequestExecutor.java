@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.executor;
+
+import org.wso2.msf4j.Request;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RequestExecutor which executes every request on a new virtual thread. Requires a Java runtime with virtual
+ * threads (Java 21 or later). Concurrency can be capped, requests above the cap are rejected.
+ */
+public class VirtualThreadRequestExecutor implements RequestExecutor {
+
+    private final String name;
+    private final ExecutorService executorService;
+    private final int maxConcurrentRequests;
+    private final Semaphore permits;
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * Create a VirtualThreadRequestExecutor.
+     *
+     * @param name                  name of the executor.
+     * @param maxConcurrentRequests maximum number of requests executed at once, {@link Integer#MAX_VALUE} for no
+     *                              limit.
+     * @throws IllegalStateException if the Java runtime does not support virtual threads.
+     */
+    public VirtualThreadRequestExecutor(String name, int maxConcurrentRequests) {
+        if (maxConcurrentRequests <= 0) {
+            throw new IllegalArgumentException("Max concurrent requests of " + name + " should be positive");
+        }
+        this.name = name;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.permits = new Semaphore(maxConcurrentRequests);
+        try {
+            // Looked up reflectively since MSF4J is built for Java 8
+            this.executorService =
+                    (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Virtual threads are not supported by Java " +
+                                            System.getProperty("java.version"), e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e.getTargetException());
+        }
+    }
+
+    @Override
+    public void execute(Request request, Runnable task) throws RejectedExecutionException {
+        if (!permits.tryAcquire()) {
+            rejectedCount.increment();
+            throw new RejectedExecutionException(name + " is executing " + maxConcurrentRequests + " requests");
+        }
+        try {
+            executorService.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            rejectedCount.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        // Every request gets its own thread right away
+        return 0;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return maxConcurrentRequests - permits.availablePermits();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    @Override
+    public void shutdown() {
+        executorService.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return name + "[maxConcurrentRequests=" + maxConcurrentRequests + "]";
+    }
+}
@@ -33,9 +33,11 @@ import java.util.NoSuchElementException;
 import static java.lang.String.format;
 
 /**
- *
+ * Iterates over the parts of a multipart/form-data request as they are read from the request, so that a resource
+ * method can stream uploads to their destination without buffering them. A resource method receives it by declaring
+ * a {@code @Context FormParamIterator} or {@code @Context Iterator<FormItem>} parameter.
  */
-public class FormParamIterator implements Iterator {
+public class FormParamIterator implements Iterator<FormItem> {
 
     /**
      * HTTP content type header name.
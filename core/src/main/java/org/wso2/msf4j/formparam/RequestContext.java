@@ -16,9 +16,12 @@ package org.wso2.msf4j.formparam;
 */
 
 import org.wso2.msf4j.Request;
+import org.wso2.msf4j.internal.compression.ContentCoding;
 import org.wso2.msf4j.io.MSF4JRequestInputStream;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 
 /**
@@ -51,12 +54,18 @@ public class RequestContext {
     }
 
     /**
-     * Get the request's inputstream.
+     * Get the request's inputstream. A body encoded with gzip or deflate is decompressed as it is read, and reading it
+     * throws a {@link org.wso2.msf4j.internal.compression.ContentDecodingException} if it is malformed or
+     * decompresses to more than the configured limit.
      *
      * @return InputStream request's inputstream
      */
     public InputStream getInputStream() {
-        return new MSF4JRequestInputStream(request);
+        try {
+            return ContentCoding.decode(request.getHeader("Content-Encoding"), new MSF4JRequestInputStream(request));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error occurred while decompressing the request body", e);
+        }
     }
 
 }
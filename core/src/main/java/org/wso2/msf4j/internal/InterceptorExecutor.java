@@ -24,7 +24,7 @@ import org.wso2.msf4j.Response;
 import org.wso2.msf4j.ServiceMethodInfo;
 import org.wso2.msf4j.internal.router.HttpResourceModel;
 
-import java.util.List;
+import java.lang.reflect.Method;
 
 /**
  * Execute Interceptors. preCall and postCall
@@ -32,21 +32,41 @@ import java.util.List;
 public class InterceptorExecutor {
 
     private static final Logger log = LoggerFactory.getLogger(InterceptorExecutor.class);
+    // Shared by the requests to resource methods which are not intercepted
+    private static final InterceptorExecutor NO_INTERCEPTORS = new InterceptorExecutor(null, null, new Interceptor[0],
+                                                                                       null);
 
-    private Request request;
-    private Response response;
-    private List<Interceptor> interceptors;
-    private ServiceMethodInfo serviceMethodInfo;
+    private final Request request;
+    private final Response response;
+    private final Interceptor[] interceptors;
+    private final ServiceMethodInfo serviceMethodInfo;
 
-    public InterceptorExecutor(HttpResourceModel httpResourceModel,
-                               Request request,
-                               Response response,
-                               List<Interceptor> interceptors) {
+    private InterceptorExecutor(Request request, Response response, Interceptor[] interceptors,
+                                ServiceMethodInfo serviceMethodInfo) {
         this.request = request;
         this.response = response;
         this.interceptors = interceptors;
-        serviceMethodInfo = new ServiceMethodInfo(httpResourceModel.getMethod().getDeclaringClass().getName(),
-                httpResourceModel.getMethod());
+        this.serviceMethodInfo = serviceMethodInfo;
+    }
+
+    /**
+     * Create the executor of the interceptors of a request.
+     *
+     * @param httpResourceModel resource model the request is dispatched to
+     * @param request           request being dispatched
+     * @param response          response of the request
+     * @param interceptors      interceptors which apply to the resource method, see
+     *                          {@link HttpResourceModel#getInterceptors(Interceptor[])}
+     * @return executor of the given interceptors
+     */
+    public static InterceptorExecutor create(HttpResourceModel httpResourceModel, Request request, Response response,
+                                             Interceptor[] interceptors) {
+        if (interceptors.length == 0) {
+            return NO_INTERCEPTORS;
+        }
+        Method method = httpResourceModel.getMethod();
+        return new InterceptorExecutor(request, response, interceptors,
+                                       new ServiceMethodInfo(method.getDeclaringClass().getName(), method));
     }
 
     /**
@@ -75,9 +95,8 @@ public class InterceptorExecutor {
      * Execute postCalls of all interceptors.
      *
      * @param status status that was returned to the client
-     * @throws InterceptorException if error while executing a postCall
      */
-    public void execPostCalls(int status) throws InterceptorException {
+    public void execPostCalls(int status) {
         for (Interceptor interceptor : interceptors) {
             try {
                 interceptor.postCall(request, status, serviceMethodInfo);
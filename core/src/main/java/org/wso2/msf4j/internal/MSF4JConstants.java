@@ -22,4 +22,5 @@ public class MSF4JConstants {
 
     public static final String SESSION_ID = "JSESSIONID=";
     public static final String CHANNEL_ID = "CHANNEL_ID";
+    public static final String REQUEST_EXECUTOR = "REQUEST_EXECUTOR";
 }
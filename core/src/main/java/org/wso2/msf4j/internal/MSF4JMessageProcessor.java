@@ -22,21 +22,32 @@ import org.slf4j.LoggerFactory;
 import org.wso2.carbon.messaging.CarbonCallback;
 import org.wso2.carbon.messaging.CarbonMessage;
 import org.wso2.carbon.messaging.CarbonMessageProcessor;
+import org.wso2.carbon.messaging.Header;
 import org.wso2.carbon.messaging.TransportSender;
 import org.wso2.msf4j.Request;
 import org.wso2.msf4j.Response;
+import org.wso2.msf4j.cache.CachedResponse;
+import org.wso2.msf4j.executor.RequestExecutor;
+import org.wso2.msf4j.internal.cache.CachePolicy;
+import org.wso2.msf4j.internal.cache.CachingCallback;
+import org.wso2.msf4j.internal.compression.ContentDecodingException;
 import org.wso2.msf4j.internal.router.HandlerException;
 import org.wso2.msf4j.internal.router.HttpMethodInfo;
 import org.wso2.msf4j.internal.router.HttpMethodInfoBuilder;
 import org.wso2.msf4j.internal.router.HttpResourceModel;
 import org.wso2.msf4j.internal.router.PatternPathRouter;
+import org.wso2.msf4j.internal.router.RequestTempStorage;
 import org.wso2.msf4j.internal.router.Util;
 import org.wso2.msf4j.util.HttpUtil;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.Optional;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.ext.ExceptionMapper;
 
 /**
@@ -51,10 +62,7 @@ public class MSF4JMessageProcessor implements CarbonMessageProcessor {
 
     private static final Logger log = LoggerFactory.getLogger(MSF4JMessageProcessor.class);
     private static final String MSF4J_MSG_PROC_ID = "MSF4J-CM-PROCESSOR";
-
-    //TODO need to way to configure the pool size
-    private ExecutorService executorService =
-            Executors.newFixedThreadPool(60, new MSF4JThreadFactory(new ThreadGroup("msf4j.executor.workerpool")));
+    private static final CompletionStage<Void> DISPATCHED = CompletableFuture.completedFuture(null);
 
     public MSF4JMessageProcessor() {
     }
@@ -69,57 +77,125 @@ public class MSF4JMessageProcessor implements CarbonMessageProcessor {
     @Override
     public boolean receive(CarbonMessage carbonMessage, CarbonCallback carbonCallback) {
         // If we are running on OSGi mode need to get the registry based on the channel_id.
-        executorService.execute(() -> {
-            MicroservicesRegistryImpl currentMicroservicesRegistry =
-                    DataHolder.getInstance().getMicroservicesRegistries()
-                              .get(carbonMessage.getProperty(MSF4JConstants.CHANNEL_ID));
-            Request request = new Request(carbonMessage);
-            request.setSessionManager(currentMicroservicesRegistry.getSessionManager());
-            Response response = new Response(carbonCallback, request);
-            try {
-                dispatchMethod(currentMicroservicesRegistry, request, response);
-            } catch (HandlerException e) {
-                handleHandlerException(e, carbonCallback);
-            } catch (InvocationTargetException e) {
-                Throwable targetException = e.getTargetException();
-                if (targetException instanceof HandlerException) {
-                    handleHandlerException((HandlerException) targetException, carbonCallback);
-                } else {
-                    handleThrowable(currentMicroservicesRegistry, targetException, carbonCallback, request);
+        MicroservicesRegistryImpl currentMicroservicesRegistry =
+                DataHolder.getInstance().getMicroservicesRegistries()
+                          .get(carbonMessage.getProperty(MSF4JConstants.CHANNEL_ID));
+        if (currentMicroservicesRegistry == null) {
+            log.error("Couldn't find the registry for channel ID " +
+                      carbonMessage.getProperty(MSF4JConstants.CHANNEL_ID));
+            carbonCallback.done(HttpUtil.createTextResponse(
+                    javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(), HttpUtil.EMPTY_BODY));
+            carbonMessage.release();
+            return true;
+        }
+        Request request = new Request(carbonMessage);
+        PatternPathRouter.RoutableDestination<HttpResourceModel> destination;
+        RequestExecutor requestExecutor;
+        try {
+            // Routing is done on the I/O thread, so that the resource method can choose where it is executed
+            destination = currentMicroservicesRegistry.getMetadata()
+                                                      .getDestinationMethod(request.getUri(), request.getHttpMethod(),
+                                                                            request.getContentType(),
+                                                                            request.getAcceptTypes());
+            requestExecutor = currentMicroservicesRegistry.getRequestExecutor(destination.getDestination()
+                                                                                         .getExecuteOn());
+            // Suspended responses time out on the executor which executes the request
+            request.setProperty(MSF4JConstants.REQUEST_EXECUTOR, requestExecutor);
+        } catch (HandlerException e) {
+            handleHandlerException(e, carbonCallback);
+            carbonMessage.release();
+            return true;
+        } catch (Throwable t) {
+            handleThrowable(currentMicroservicesRegistry, t, carbonCallback, request);
+            carbonMessage.release();
+            return true;
+        }
+        try {
+            requestExecutor.execute(request, () -> {
+                request.setSessionManager(currentMicroservicesRegistry.getSessionManager());
+                CompletionStage<Void> completion;
+                try {
+                    completion = dispatchMethod(currentMicroservicesRegistry, request, carbonCallback, destination);
+                } catch (Throwable t) {
+                    try {
+                        handleDispatchFailure(currentMicroservicesRegistry, t, carbonCallback, request);
+                    } finally {
+                        // Calling the release method to make sure that there won't be any memory leaks from netty
+                        releaseRequest(request, carbonMessage);
+                    }
+                    return;
                 }
-            } catch (InterceptorException e) {
-                log.warn("Interceptors threw an exception", e);
-                // TODO: improve the response
-                carbonCallback.done(HttpUtil.createTextResponse(
-                        javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(), HttpUtil.EMPTY_BODY));
-            } catch (Throwable t) {
-                handleThrowable(currentMicroservicesRegistry, t, carbonCallback, request);
-            } finally {
-                // Calling the release method to make sure that there won't be any memory leaks from netty
-                carbonMessage.release();
-            }
-        });
+                // Asynchronous resource methods complete on the thread which completes their result
+                completion.whenComplete((result, failure) -> {
+                    try {
+                        if (failure != null) {
+                            handleDispatchFailure(currentMicroservicesRegistry, failure, carbonCallback, request);
+                        }
+                    } finally {
+                        releaseRequest(request, carbonMessage);
+                    }
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Request rejected by {}", requestExecutor.getName(), e);
+            carbonCallback.done(HttpUtil.createTextResponse(
+                    javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), HttpUtil.EMPTY_BODY));
+            carbonMessage.release();
+        }
         return true;
     }
 
+    /**
+     * Release the resources held by a request once its response has been sent, including the temporary files of
+     * multipart uploads.
+     */
+    private static void releaseRequest(Request request, CarbonMessage carbonMessage) {
+        try {
+            RequestTempStorage.release(request);
+        } finally {
+            carbonMessage.release();
+        }
+    }
+
     /**
      * Dispatch appropriate resource method.
+     *
+     * @return stage which completes once the response has been sent and the post calls of the interceptors have run
      */
-    private void dispatchMethod(MicroservicesRegistryImpl currentMicroservicesRegistry, Request request,
-                                Response response) throws Exception {
-        HttpUtil.setConnectionHeader(request, response);
-        PatternPathRouter.RoutableDestination<HttpResourceModel> destination =
-                currentMicroservicesRegistry.
-                        getMetadata().
-                        getDestinationMethod(request.getUri(), request.getHttpMethod(), request.getContentType(),
-                                request.getAcceptTypes());
+    private CompletionStage<Void> dispatchMethod(MicroservicesRegistryImpl currentMicroservicesRegistry,
+                                                 Request request, CarbonCallback carbonCallback,
+                                                 PatternPathRouter.RoutableDestination<HttpResourceModel> destination)
+            throws Exception {
         HttpResourceModel resourceModel = destination.getDestination();
-        response.setMediaType(Util.getResponseType(request.getAcceptTypes(),
-                resourceModel.getProducesMediaTypes()));
-        InterceptorExecutor interceptorExecutor = new InterceptorExecutor(resourceModel, request, response,
-                                                                          currentMicroservicesRegistry
-                                                                                  .getInterceptors());
+        String mediaType = Util.getResponseType(request.getAcceptTypes(), resourceModel.getProducesMediaTypes());
+        CachePolicy cachePolicy = resourceModel.getCachePolicy();
+        String cacheKey = null;
+        CarbonCallback responseCallback = carbonCallback;
+        if (cachePolicy != null && cachePolicy.appliesTo(request)) {
+            cacheKey = cachePolicy.keyFor(request, mediaType);
+            if (HttpMethod.GET.equals(request.getHttpMethod())) {
+                responseCallback = new CachingCallback(carbonCallback, currentMicroservicesRegistry.getResponseCache(),
+                                                       cacheKey, cachePolicy.getTtlNanos(),
+                                                       request.getHeader(HttpHeaders.IF_NONE_MATCH));
+            }
+        }
+        Response response = new Response(responseCallback, request);
+        HttpUtil.setConnectionHeader(request, response);
+        response.setMediaType(mediaType);
+        // Resource methods which are not intercepted share a no-op executor
+        InterceptorExecutor interceptorExecutor =
+                InterceptorExecutor.create(resourceModel, request, response, resourceModel.getInterceptors(
+                        currentMicroservicesRegistry.getRegisteredInterceptors()));
         if (interceptorExecutor.execPreCalls()) { // preCalls can throw exceptions
+            if (cacheKey != null) {
+                // Interceptors have accepted the request, so it can be answered from the cache
+                CachedResponse cachedResponse = currentMicroservicesRegistry.getResponseCache().get(cacheKey);
+                if (cachedResponse != null) {
+                    interceptorExecutor.execPostCalls(
+                            sendCachedResponse(cachedResponse, request, response, carbonCallback));
+                    return DISPATCHED;
+                }
+            }
 
             HttpMethodInfoBuilder httpMethodInfoBuilder =
                     new HttpMethodInfoBuilder().
@@ -135,10 +211,77 @@ public class MSF4JMessageProcessor implements CarbonMessageProcessor {
                 }
                 httpMethodInfo.end();
             } else {
-                httpMethodInfo.invoke(request, destination);
+                return httpMethodInfo.invoke(request, destination)
+                                     .thenRun(() -> interceptorExecutor.execPostCalls(response.getStatusCode()));
+            }
+            interceptorExecutor.execPostCalls(response.getStatusCode());
+        }
+        return DISPATCHED;
+    }
+
+    /**
+     * Answer a request from the response cache. The headers the interceptors and the dispatcher have set for this
+     * request take precedence over the cached ones.
+     *
+     * @return status code of the response which was sent
+     */
+    private int sendCachedResponse(CachedResponse cachedResponse, Request request, Response response,
+                                   CarbonCallback carbonCallback) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        CarbonMessage carbonMessage =
+                cachedResponse.toCarbonMessage(ifNoneMatch, !HttpMethod.HEAD.equals(request.getHttpMethod()));
+        for (Header header : response.getHeaders().getAll()) {
+            carbonMessage.setHeader(header.getName(), header.getValue());
+        }
+        carbonCallback.done(carbonMessage);
+        return cachedResponse.matches(ifNoneMatch) ?
+               javax.ws.rs.core.Response.Status.NOT_MODIFIED.getStatusCode() : cachedResponse.getStatusCode();
+    }
+
+    /**
+     * Send the error response for a failure of dispatching the request or of completing an asynchronous resource
+     * method.
+     */
+    private void handleDispatchFailure(MicroservicesRegistryImpl currentMicroservicesRegistry, Throwable throwable,
+                                       CarbonCallback carbonCallback, Request request) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        if (throwable instanceof InvocationTargetException) {
+            throwable = ((InvocationTargetException) throwable).getTargetException();
+        }
+        ContentDecodingException decodingException = findContentDecodingException(throwable);
+        if (throwable instanceof ResponseAbortedException) {
+            // The response has already been started and is left incomplete, there is nothing left to send
+            log.error("Response of " + request.getHttpMethod() + " " + request.getUri() + " was aborted",
+                      throwable.getCause());
+        } else if (decodingException != null) {
+            log.debug("Compressed request body rejected", decodingException);
+            carbonCallback.done(HttpUtil.createTextResponse(decodingException.getStatus().getStatusCode(),
+                                                            decodingException.getMessage()));
+        } else if (throwable instanceof HandlerException) {
+            handleHandlerException((HandlerException) throwable, carbonCallback);
+        } else if (throwable instanceof InterceptorException) {
+            log.warn("Interceptors threw an exception", throwable);
+            // TODO: improve the response
+            carbonCallback.done(HttpUtil.createTextResponse(
+                    javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(), HttpUtil.EMPTY_BODY));
+        } else {
+            handleThrowable(currentMicroservicesRegistry, throwable, carbonCallback, request);
+        }
+    }
+
+    /**
+     * Find the failure to decode a compressed request body among the causes of a failure, since the parameter
+     * binding and the multipart parser wrap it.
+     */
+    private static ContentDecodingException findContentDecodingException(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ContentDecodingException) {
+                return (ContentDecodingException) cause;
             }
-            interceptorExecutor.execPostCalls(response.getStatusCode()); // postCalls can throw exceptions
         }
+        return null;
     }
 
     private void handleThrowable(MicroservicesRegistryImpl currentMicroservicesRegistry, Throwable throwable,
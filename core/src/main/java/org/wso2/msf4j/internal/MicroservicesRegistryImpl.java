@@ -22,6 +22,11 @@ import org.wso2.msf4j.Interceptor;
 import org.wso2.msf4j.MicroservicesRegistry;
 import org.wso2.msf4j.SessionManager;
 import org.wso2.msf4j.SwaggerService;
+import org.wso2.msf4j.cache.ResponseCache;
+import org.wso2.msf4j.executor.ExecuteOn;
+import org.wso2.msf4j.executor.IOThreadRequestExecutor;
+import org.wso2.msf4j.executor.RequestExecutor;
+import org.wso2.msf4j.executor.RequestExecutors;
 import org.wso2.msf4j.internal.router.MicroserviceMetadata;
 
 import java.lang.reflect.InvocationTargetException;
@@ -38,6 +43,7 @@ import java.util.Optional;
 import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -53,9 +59,15 @@ public class MicroservicesRegistryImpl implements MicroservicesRegistry {
     private final Map<String, Object> services = new HashMap<>();
 
     private final List<Interceptor> interceptors = new ArrayList<>();
+    // Frozen copy of the interceptors, replaced whenever they change so that resource models rebuild their chains
+    private volatile Interceptor[] registeredInterceptors = new Interceptor[0];
     private volatile MicroserviceMetadata metadata = new MicroserviceMetadata(Collections.emptyList());
     private Map<Class, ExceptionMapper> exceptionMappers = new TreeMap<>(new ClassComparator());
     private SessionManager sessionManager = new DefaultSessionManager();
+    private volatile RequestExecutor requestExecutor;
+    private volatile RequestExecutor ioRequestExecutor;
+    private final Map<String, RequestExecutor> namedRequestExecutors = new ConcurrentHashMap<>();
+    private final ResponseCache responseCache = new ResponseCache();
 
     public MicroservicesRegistryImpl() {
         /* In non OSGi mode, if we can find the SwaggerDefinitionService, Deploy the Swagger definition service which
@@ -101,6 +113,121 @@ public class MicroservicesRegistryImpl implements MicroservicesRegistry {
         this.sessionManager = sessionManager;
     }
 
+    public void setRequestExecutor(RequestExecutor requestExecutor) {
+        if (requestExecutor == null) {
+            throw new IllegalArgumentException("RequestExecutor cannot be null");
+        }
+        this.requestExecutor = requestExecutor;
+        this.ioRequestExecutor = null;
+    }
+
+    public void addRequestExecutor(String name, RequestExecutor requestExecutor) {
+        if (name == null || requestExecutor == null) {
+            throw new IllegalArgumentException("RequestExecutor and its name cannot be null");
+        }
+        if (ExecuteOn.IO.equals(name) || ExecuteOn.BLOCKING.equals(name)) {
+            throw new IllegalArgumentException("RequestExecutor name " + name + " is reserved");
+        }
+        namedRequestExecutors.put(name, requestExecutor);
+    }
+
+    public Map<String, RequestExecutor> getNamedRequestExecutors() {
+        return Collections.unmodifiableMap(namedRequestExecutors);
+    }
+
+    /**
+     * Check that every executor the services of this registry refer to with {@link ExecuteOn} is available.
+     *
+     * @throws IllegalStateException if a service refers to an executor which is not registered
+     */
+    public void checkRequestExecutors() {
+        services.values().forEach(this::checkRequestExecutors);
+    }
+
+    /**
+     * Check that every executor the given service refers to with {@link ExecuteOn} is available, so that a missing
+     * executor is reported when the service is deployed rather than on each request.
+     *
+     * @param service service to be checked
+     * @throws IllegalStateException if the service refers to an executor which is not registered
+     */
+    public void checkRequestExecutors(Object service) {
+        Class<?> serviceClass = service.getClass();
+        checkRequestExecutor(serviceClass.getAnnotation(ExecuteOn.class), serviceClass.getName());
+        for (Method method : serviceClass.getMethods()) {
+            checkRequestExecutor(method.getAnnotation(ExecuteOn.class),
+                                 serviceClass.getName() + "#" + method.getName());
+        }
+    }
+
+    private void checkRequestExecutor(ExecuteOn executeOn, String annotatedElement) {
+        if (executeOn != null && !ExecuteOn.IO.equals(executeOn.value()) &&
+            !ExecuteOn.BLOCKING.equals(executeOn.value()) && !namedRequestExecutors.containsKey(executeOn.value())) {
+            throw new IllegalStateException("No RequestExecutor registered with the name " + executeOn.value() +
+                                            ", which is referred to by " + annotatedElement);
+        }
+    }
+
+    /**
+     * Get the executor which runs the requests dispatched to the services of this registry. The default executor is
+     * created on first use.
+     *
+     * @return RequestExecutor of this registry
+     */
+    public RequestExecutor getRequestExecutor() {
+        RequestExecutor executor = requestExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = requestExecutor;
+                if (executor == null) {
+                    executor = RequestExecutors.newDefaultExecutor();
+                    requestExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Get the executor for resource methods annotated with {@link ExecuteOn}.
+     *
+     * @param executeOn value of the ExecuteOn annotation, null if the resource method is not annotated
+     * @return RequestExecutor for the given ExecuteOn value
+     * @throws IllegalStateException if there is no executor registered with the given name
+     */
+    public RequestExecutor getRequestExecutor(String executeOn) {
+        RequestExecutor defaultExecutor = getRequestExecutor();
+        if (executeOn == null) {
+            return defaultExecutor;
+        } else if (ExecuteOn.BLOCKING.equals(executeOn)) {
+            // Blocking methods should never end up on the I/O thread, even if that is the default execution mode
+            return (defaultExecutor instanceof IOThreadRequestExecutor) ?
+                   ((IOThreadRequestExecutor) defaultExecutor).getFallbackExecutor() : defaultExecutor;
+        } else if (ExecuteOn.IO.equals(executeOn)) {
+            if (defaultExecutor instanceof IOThreadRequestExecutor) {
+                return defaultExecutor;
+            }
+            RequestExecutor executor = ioRequestExecutor;
+            if (executor == null) {
+                executor = RequestExecutors.newIOThreadExecutor(defaultExecutor);
+                ioRequestExecutor = executor;
+            }
+            return executor;
+        }
+        RequestExecutor executor = namedRequestExecutors.get(executeOn);
+        if (executor == null) {
+            throw new IllegalStateException("No RequestExecutor registered with the name " + executeOn);
+        }
+        return executor;
+    }
+
+    /**
+     * @return cache of the responses of the resource methods annotated with {@link org.wso2.msf4j.cache.Cached}
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
     public MicroserviceMetadata getMetadata() {
         return metadata;
     }
@@ -111,6 +238,7 @@ public class MicroservicesRegistryImpl implements MicroservicesRegistry {
 
     public void addInterceptor(Interceptor... interceptor) {
         Collections.addAll(interceptors, interceptor);
+        registeredInterceptors = interceptors.toArray(new Interceptor[interceptors.size()]);
         updateMetadata();
     }
 
@@ -158,8 +286,16 @@ public class MicroservicesRegistryImpl implements MicroservicesRegistry {
         return interceptors;
     }
 
+    /**
+     * @return the registered interceptors as an array which is replaced, never modified, when they change
+     */
+    Interceptor[] getRegisteredInterceptors() {
+        return registeredInterceptors;
+    }
+
     public void removeInterceptor(Interceptor interceptor) {
         interceptors.remove(interceptor);
+        registeredInterceptors = interceptors.toArray(new Interceptor[interceptors.size()]);
         updateMetadata();
     }
 
@@ -169,6 +305,7 @@ public class MicroservicesRegistryImpl implements MicroservicesRegistry {
 
     private void updateMetadata() {
         metadata = new MicroserviceMetadata(Collections.unmodifiableCollection(services.values()));
+        responseCache.invalidateAll();
     }
 
     public void initServices() {
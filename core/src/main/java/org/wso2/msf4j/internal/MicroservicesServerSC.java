@@ -81,12 +81,14 @@ public class MicroservicesServerSC implements RequiredCapabilityListener {
             if (microservicesRegistry == null) {
                 throw new RuntimeException("Couldn't found the registry for channel ID " + channelId);
             }
+            microservicesRegistry.checkRequestExecutors(service);
             if (contextPath == null) {
                 microservicesRegistry.addService(service);
             } else {
                 microservicesRegistry.addService(contextPath.toString(), service);
             }
         } else {
+            microservicesRegistries.values().forEach(registry -> registry.checkRequestExecutors(service));
             if (contextPath == null) {
                 microservicesRegistries.values().forEach(registry -> registry.addService(service));
             } else {
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.msf4j.internal;
+
+/**
+ * Exception that will be thrown when a response fails after its headers have been handed to the transport. The
+ * response has already been ended, so the dispatcher must not send an error response for the request.
+ */
+public class ResponseAbortedException extends RuntimeException {
+
+    public ResponseAbortedException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+
+}
@@ -18,18 +18,25 @@ package org.wso2.msf4j.internal.beanconversion;
 
 import org.wso2.msf4j.beanconversion.MediaTypeConverter;
 
-import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Factory class for getting correct media type conversion
- * instance for a given mime type.
+ * instance for a given mime type. Converters registered as {@link MediaTypeConverter} services, e.g. one backed by a
+ * faster Json engine, replace the built-in converters of the media types they support.
  */
 public class BeanConverter {
 
     private static final MediaTypeConverter DEFAULT_CONVERTER = new TextPlainConverter();
-    private static final Map<String, MediaTypeConverter> converterMap = new HashMap<>();
+    // Upper bound of cached media type strings, since they come from the client
+    private static final int MAX_RESOLVED_MEDIA_TYPES = 256;
+    private static final Map<String, MediaTypeConverter> converterMap = new ConcurrentHashMap<>();
+    // Converters resolved for media type strings as they were received, so known ones are matched without allocating.
+    // Once full, further strings are resolved without being cached. Replaced when a converter is registered.
+    private static volatile Map<String, MediaTypeConverter> resolvedConverters = new ConcurrentHashMap<>();
 
     private BeanConverter() {
     }
@@ -37,6 +44,9 @@ public class BeanConverter {
     static {
         addMediaTypeConverter(new JsonConverter());
         addMediaTypeConverter(new XmlConverter());
+        for (MediaTypeConverter mediaTypeConverter : ServiceLoader.load(MediaTypeConverter.class)) {
+            addMediaTypeConverter(mediaTypeConverter);
+        }
     }
 
     /**
@@ -46,19 +56,33 @@ public class BeanConverter {
      * @return MediaTypeConverter
      */
     public static MediaTypeConverter getConverter(String mediaType) {
-        MediaTypeConverter mediaTypeConverter = converterMap.get(mediaType.toLowerCase(Locale.US));
+        Map<String, MediaTypeConverter> resolved = resolvedConverters;
+        MediaTypeConverter mediaTypeConverter = resolved.get(mediaType);
         if (mediaTypeConverter == null) {
-            mediaTypeConverter = DEFAULT_CONVERTER;
+            mediaTypeConverter = converterMap.get(mediaType.toLowerCase(Locale.US));
+            if (mediaTypeConverter == null) {
+                mediaTypeConverter = DEFAULT_CONVERTER;
+            }
+            if (resolved.size() < MAX_RESOLVED_MEDIA_TYPES) {
+                resolved.put(mediaType, mediaTypeConverter);
+            }
         }
         return mediaTypeConverter;
     }
 
     /**
-     * Register a media type converter.
+     * Register a media type converter. It replaces the converters previously registered for the media types it
+     * supports.
+     *
+     * @param mediaTypeConverter media type converter to be registered
      */
-    private static void addMediaTypeConverter(MediaTypeConverter mediaTypeConverter) {
+    public static synchronized void addMediaTypeConverter(MediaTypeConverter mediaTypeConverter) {
+        if (mediaTypeConverter == null) {
+            throw new IllegalArgumentException("Media type converter cannot be null");
+        }
         for (String mediaType : mediaTypeConverter.getSupportedMediaTypes()) {
             converterMap.put(mediaType.toLowerCase(Locale.US), mediaTypeConverter);
         }
+        resolvedConverters = new ConcurrentHashMap<>();
     }
 }
@@ -18,19 +18,28 @@ package org.wso2.msf4j.internal.beanconversion;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonSyntaxException;
+import com.google.gson.JsonParseException;
 import org.wso2.msf4j.beanconversion.BeanConversionException;
 import org.wso2.msf4j.beanconversion.MediaTypeConverter;
+import org.wso2.msf4j.util.CompositeByteBuffer;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.lang.reflect.Type;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.Collections;
 import javax.ws.rs.core.MediaType;
 
 /**
  * Media type converter for text/json,
- * application/json mime types.
+ * application/json mime types. The content is parsed from and serialized to the byte stream directly, without
+ * building the whole Json document as a String.
  */
 public class JsonConverter extends MediaTypeConverter {
 
@@ -53,9 +62,31 @@ public class JsonConverter extends MediaTypeConverter {
      */
     @Override
     public ByteBuffer toMedia(Object object) {
-        String value = (object instanceof String || object instanceof JsonArray || object instanceof JsonObject) ?
-                       object.toString() : gson.toJson(object);
-        return ByteBuffer.wrap(value.getBytes(Charset.defaultCharset()));
+        MediaOutputStream outputStream = new MediaOutputStream();
+        toMedia(object, outputStream);
+        return outputStream.toByteBuffer();
+    }
+
+    /**
+     * Write an Object as Json to the given stream.
+     *
+     * @param object       object that needs to be converted to a media content
+     * @param outputStream stream the Json content is written to
+     * @throws BeanConversionException if error occurs while writing the content
+     */
+    @Override
+    protected void toMedia(Object object, OutputStream outputStream) throws BeanConversionException {
+        try {
+            Writer writer = new OutputStreamWriter(outputStream, Charset.defaultCharset());
+            if (object instanceof String || object instanceof JsonArray || object instanceof JsonObject) {
+                writer.write(object.toString());
+            } else {
+                gson.toJson(object, object.getClass(), writer);
+            }
+            writer.flush();
+        } catch (IOException | JsonIOException e) {
+            throw new BeanConversionException("Unable to perform object to json conversion", e);
+        }
     }
 
     /**
@@ -68,14 +99,27 @@ public class JsonConverter extends MediaTypeConverter {
      */
     @Override
     public Object toObject(ByteBuffer content, Type targetType) throws BeanConversionException {
-        try {
-            String str = Charset.defaultCharset().decode(content).toString();
-            Object object = gson.fromJson(str, targetType);
+        return toObject(new CompositeByteBuffer(Collections.singletonList(content)), targetType);
+    }
+
+    /**
+     * Convert a Json content made of several chunks to an object. The chunks are parsed as a stream without being
+     * merged.
+     *
+     * @param content    content that needs to be converted to an object
+     * @param targetType media type of the content
+     * @return Object that maps the Json data
+     * @throws BeanConversionException if error occure while converting the content
+     */
+    @Override
+    protected Object toObject(CompositeByteBuffer content, Type targetType) throws BeanConversionException {
+        try (Reader reader = content.newReader(Charset.defaultCharset())) {
+            Object object = gson.fromJson(reader, targetType);
             if (object == null) {
                 throw new BeanConversionException("Unable to perform json to object conversion");
             }
             return object;
-        } catch (JsonSyntaxException ex) {
+        } catch (JsonParseException | IOException ex) {
             throw new BeanConversionException("Unable to perform json to object conversion", ex);
         }
     }
@@ -18,23 +18,47 @@ package org.wso2.msf4j.internal.beanconversion;
 
 import org.wso2.msf4j.beanconversion.BeanConversionException;
 import org.wso2.msf4j.beanconversion.MediaTypeConverter;
+import org.wso2.msf4j.util.CompositeByteBuffer;
+import org.wso2.msf4j.util.SystemVariableUtil;
 
-import java.io.StringReader;
-import java.io.StringWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.lang.reflect.Type;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.ws.rs.core.MediaType;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
 
 /**
- * Media type converter for text/xml mime type.
+ * Media type converter for text/xml mime type. A JAXBContext is created once for each bean type, and the marshallers
+ * and unmarshallers created from it are pooled since they are not thread safe.
  */
 public class XmlConverter extends MediaTypeConverter {
 
+    /**
+     * System property or environment variable to enable or disable formatted xml output, enabled by default.
+     */
+    public static final String FORMATTED_OUTPUT_PROPERTY = "msf4j.xml.formattedOutput";
+
     private static final String TEXT_XML = "text/xml";
+    // Upper bound of idle marshallers and unmarshallers kept for each bean type
+    private static final int MAX_POOL_SIZE = 16;
+
+    // Read when the converter is created
+    private final boolean formattedOutput =
+            Boolean.parseBoolean(SystemVariableUtil.getValue(FORMATTED_OUTPUT_PROPERTY, "true"));
+    private final ConcurrentMap<Class<?>, JaxbPool> pools = new ConcurrentHashMap<>();
 
     /**
      * Provides the supported media types for bean conversions.
@@ -53,14 +77,31 @@ public class XmlConverter extends MediaTypeConverter {
      */
     @Override
     public ByteBuffer toMedia(Object object) throws BeanConversionException {
+        MediaOutputStream outputStream = new MediaOutputStream();
+        toMedia(object, outputStream);
+        return outputStream.toByteBuffer();
+    }
+
+    /**
+     * Marshal an Object as xml directly to the given stream.
+     *
+     * @param object       object that needs to be converted to a media content
+     * @param outputStream stream the xml content is written to
+     * @throws BeanConversionException if error occurs while writing the content
+     */
+    @Override
+    protected void toMedia(Object object, OutputStream outputStream) throws BeanConversionException {
         try {
-            JAXBContext jaxbContext = JAXBContext.newInstance(object.getClass());
-            Marshaller marshaller = jaxbContext.createMarshaller();
-            StringWriter stringWriter = new StringWriter();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-            marshaller.marshal(object, stringWriter);
-            return ByteBuffer.wrap(stringWriter.toString().getBytes(Charset.defaultCharset()));
-        } catch (JAXBException e) {
+            JaxbPool pool = getPool(object.getClass());
+            Marshaller marshaller = pool.borrowMarshaller();
+            try {
+                Writer writer = new OutputStreamWriter(outputStream, Charset.defaultCharset());
+                marshaller.marshal(object, writer);
+                writer.flush();
+            } finally {
+                pool.releaseMarshaller(marshaller);
+            }
+        } catch (JAXBException | IOException e) {
             throw new BeanConversionException("Unable to perform object to xml conversion", e);
         }
     }
@@ -74,16 +115,83 @@ public class XmlConverter extends MediaTypeConverter {
      */
     @Override
     public Object toObject(ByteBuffer content, Type targetType) throws BeanConversionException {
-        try {
-            String str = Charset.defaultCharset().decode(content).toString();
-            JAXBContext jaxbContext = null;
-            if (targetType instanceof Class) {
-                jaxbContext = JAXBContext.newInstance((Class) targetType);
-                return jaxbContext.createUnmarshaller().unmarshal(new StringReader(str));
+        return toObject(new CompositeByteBuffer(Collections.singletonList(content)), targetType);
+    }
+
+    /**
+     * Convert a xml content made of several chunks to an object. The chunks are unmarshalled as a stream without
+     * being merged.
+     *
+     * @param content    content that needs to be converted to an object
+     * @param targetType media type of the content
+     * @return Object that maps the xml data
+     */
+    @Override
+    protected Object toObject(CompositeByteBuffer content, Type targetType) throws BeanConversionException {
+        if (!(targetType instanceof Class)) {
+            return null;
+        }
+        try (Reader reader = content.newReader(Charset.defaultCharset())) {
+            JaxbPool pool = getPool((Class<?>) targetType);
+            Unmarshaller unmarshaller = pool.borrowUnmarshaller();
+            try {
+                return unmarshaller.unmarshal(reader);
+            } finally {
+                pool.releaseUnmarshaller(unmarshaller);
             }
-        } catch (JAXBException e) {
+        } catch (JAXBException | IOException e) {
             throw new BeanConversionException("Unable to perform xml to object conversion", e);
         }
-        return null;
+    }
+
+    private JaxbPool getPool(Class<?> type) throws JAXBException {
+        JaxbPool pool = pools.get(type);
+        if (pool == null) {
+            // JAXBContext creation is expensive, but a concurrent duplicate is harmless and simply discarded
+            JaxbPool newPool = new JaxbPool(JAXBContext.newInstance(type), formattedOutput);
+            pool = pools.putIfAbsent(type, newPool);
+            if (pool == null) {
+                pool = newPool;
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * JAXBContext of a bean type with its idle marshallers and unmarshallers.
+     */
+    private static class JaxbPool {
+
+        private final JAXBContext jaxbContext;
+        private final boolean formattedOutput;
+        private final BlockingQueue<Marshaller> marshallers = new ArrayBlockingQueue<>(MAX_POOL_SIZE);
+        private final BlockingQueue<Unmarshaller> unmarshallers = new ArrayBlockingQueue<>(MAX_POOL_SIZE);
+
+        JaxbPool(JAXBContext jaxbContext, boolean formattedOutput) {
+            this.jaxbContext = jaxbContext;
+            this.formattedOutput = formattedOutput;
+        }
+
+        Marshaller borrowMarshaller() throws JAXBException {
+            Marshaller marshaller = marshallers.poll();
+            if (marshaller == null) {
+                marshaller = jaxbContext.createMarshaller();
+                marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formattedOutput);
+            }
+            return marshaller;
+        }
+
+        void releaseMarshaller(Marshaller marshaller) {
+            marshallers.offer(marshaller);
+        }
+
+        Unmarshaller borrowUnmarshaller() throws JAXBException {
+            Unmarshaller unmarshaller = unmarshallers.poll();
+            return unmarshaller == null ? jaxbContext.createUnmarshaller() : unmarshaller;
+        }
+
+        void releaseUnmarshaller(Unmarshaller unmarshaller) {
+            unmarshallers.offer(unmarshaller);
+        }
     }
 }
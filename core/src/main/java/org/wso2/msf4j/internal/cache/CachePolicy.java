@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.internal.cache;
+
+import org.wso2.msf4j.Request;
+import org.wso2.msf4j.cache.Cached;
+import org.wso2.msf4j.internal.compression.ContentCoding;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.HttpHeaders;
+
+/**
+ * Caching rules of a resource method annotated with {@link Cached}, resolved once when the resource model is built.
+ */
+public final class CachePolicy {
+
+    private static final char SEPARATOR = '\n';
+
+    private final long ttlNanos;
+    private final String[] varyByHeaders;
+    private final String[] varyByQuery;
+    private final boolean varyByWholeQuery;
+
+    private CachePolicy(Cached cached) {
+        this.ttlNanos = cached.unit().toNanos(cached.ttl());
+        this.varyByHeaders = cached.varyByHeaders().clone();
+        this.varyByWholeQuery = Arrays.asList(cached.varyByQuery()).contains(Cached.ALL);
+        this.varyByQuery = varyByWholeQuery ? new String[0] : cached.varyByQuery().clone();
+    }
+
+    /**
+     * @param method  resource method
+     * @param handler resource instance
+     * @return caching rules of the resource method, or null if its responses are not cached
+     */
+    public static CachePolicy of(Method method, Object handler) {
+        Cached cached = method.isAnnotationPresent(Cached.class) ? method.getAnnotation(Cached.class) :
+                        handler.getClass().getAnnotation(Cached.class);
+        return (cached == null || cached.ttl() <= 0) ? null : new CachePolicy(cached);
+    }
+
+    /**
+     * @param request request being dispatched
+     * @return true if the response of the request can be served from the cache
+     */
+    public boolean appliesTo(Request request) {
+        String httpMethod = request.getHttpMethod();
+        return HttpMethod.GET.equals(httpMethod) || HttpMethod.HEAD.equals(httpMethod);
+    }
+
+    /**
+     * @return time a response stays in the cache, in nanoseconds
+     */
+    public long getTtlNanos() {
+        return ttlNanos;
+    }
+
+    /**
+     * Build the cache key of a request. GET and HEAD requests share keys, so HEAD requests are served from the
+     * responses cached for GET requests.
+     *
+     * @param request   request being dispatched
+     * @param mediaType media type negotiated for the response
+     * @return key of the cached response for the request
+     */
+    public String keyFor(Request request, String mediaType) {
+        String uri = request.getUri();
+        StringBuilder key = new StringBuilder(uri.length() + 64);
+        if (varyByWholeQuery) {
+            key.append(uri);
+        } else {
+            int queryStart = uri.indexOf('?');
+            key.append(uri, 0, queryStart < 0 ? uri.length() : queryStart);
+            for (String name : varyByQuery) {
+                List<String> values = request.getQueryParameter(name);
+                key.append(SEPARATOR).append(name).append('=');
+                if (values != null) {
+                    key.append(values);
+                }
+            }
+        }
+        String coding = ContentCoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        key.append(SEPARATOR).append(mediaType).append(SEPARATOR).append(coding == null ? "" : coding);
+        for (String name : varyByHeaders) {
+            String value = request.getHeader(name);
+            key.append(SEPARATOR).append(name).append(':');
+            if (value != null) {
+                key.append(value);
+            }
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.internal.cache;
+
+import org.wso2.carbon.messaging.CarbonCallback;
+import org.wso2.carbon.messaging.CarbonMessage;
+import org.wso2.carbon.messaging.Header;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.msf4j.cache.CachedResponse;
+import org.wso2.msf4j.cache.ResponseCache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javax.ws.rs.core.HttpHeaders;
+
+/**
+ * Callback which stores the response of a cached resource method in the {@link ResponseCache} on its way to the
+ * transport. It sits between the content coding and the transport, so the cache holds the encoded body.
+ */
+public class CachingCallback implements CarbonCallback {
+
+    private static final int STATUS_OK = 200;
+    private static final String SET_COOKIE = "Set-Cookie";
+
+    private final CarbonCallback callback;
+    private final ResponseCache responseCache;
+    private final String key;
+    private final long ttlNanos;
+    private final String ifNoneMatch;
+
+    /**
+     * @param callback      callback of the transport
+     * @param responseCache cache the response is stored in
+     * @param key           key of the response
+     * @param ttlNanos      time the response stays in the cache
+     * @param ifNoneMatch   If-None-Match header of the request, may be null
+     */
+    public CachingCallback(CarbonCallback callback, ResponseCache responseCache, String key, long ttlNanos,
+                           String ifNoneMatch) {
+        this.callback = callback;
+        this.responseCache = responseCache;
+        this.key = key;
+        this.ttlNanos = ttlNanos;
+        this.ifNoneMatch = ifNoneMatch;
+    }
+
+    @Override
+    public void done(CarbonMessage carbonMessage) {
+        if (!isCacheable(carbonMessage)) {
+            callback.done(carbonMessage);
+            return;
+        }
+        // The whole body has been added, since the end of the message is, so this does not wait for the body
+        List<ByteBuffer> chunks = new ArrayList<>();
+        int length = 0;
+        while (!carbonMessage.isEmpty()) {
+            ByteBuffer chunk = carbonMessage.getMessageBody();
+            length += chunk.remaining();
+            chunks.add(chunk);
+        }
+        byte[] body = new byte[length];
+        int offset = 0;
+        for (ByteBuffer chunk : chunks) {
+            int remaining = chunk.remaining();
+            chunk.duplicate().get(body, offset, remaining);
+            offset += remaining;
+        }
+        List<Header> headers = new ArrayList<>();
+        String connection = null;
+        for (Header header : carbonMessage.getHeaders().getAll()) {
+            if (Constants.HTTP_CONNECTION.equalsIgnoreCase(header.getName())) {
+                connection = header.getValue();
+            } else {
+                headers.add(header);
+            }
+        }
+        CachedResponse response = new CachedResponse(STATUS_OK, headers, body, System.nanoTime() + ttlNanos);
+        responseCache.put(key, response);
+
+        if (response.matches(ifNoneMatch)) {
+            CarbonMessage notModified = response.toCarbonMessage(ifNoneMatch, false);
+            if (connection != null) {
+                notModified.setHeader(Constants.HTTP_CONNECTION, connection);
+            }
+            callback.done(notModified);
+        } else {
+            carbonMessage.setHeader(HttpHeaders.ETAG, response.getETag());
+            carbonMessage.addMessageBody(ByteBuffer.wrap(body));
+            callback.done(carbonMessage);
+        }
+    }
+
+    /**
+     * Only complete, successful responses which are meant to be shared are cached.
+     */
+    private boolean isCacheable(CarbonMessage carbonMessage) {
+        Object status = carbonMessage.getProperty(Constants.HTTP_STATUS_CODE);
+        if (!carbonMessage.isEndOfMsgAdded() || !(status instanceof Integer) || (Integer) status != STATUS_OK ||
+            carbonMessage.getHeader(SET_COOKIE) != null) {
+            return false;
+        }
+        String cacheControl = carbonMessage.getHeader(HttpHeaders.CACHE_CONTROL);
+        if (cacheControl != null) {
+            String directives = cacheControl.toLowerCase(Locale.ENGLISH);
+            if (directives.contains("no-store") || directives.contains("private")) {
+                return false;
+            }
+        }
+        String contentLength = carbonMessage.getHeader(Constants.HTTP_CONTENT_LENGTH);
+        try {
+            return contentLength == null || responseCache.accepts(Long.parseLong(contentLength.trim()));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
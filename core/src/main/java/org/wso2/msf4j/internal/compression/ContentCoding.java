@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.internal.compression;
+
+import org.wso2.msf4j.util.SystemVariableUtil;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+import javax.ws.rs.core.Response;
+
+/**
+ * Content codings supported for request and response bodies, and the policy deciding which responses are compressed.
+ * The policy is read from system properties or environment variables.
+ */
+public final class ContentCoding {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    /**
+     * System property or environment variable which turns response compression off when set to false.
+     */
+    public static final String COMPRESSION_ENABLED_PROPERTY = "msf4j.compression.enabled";
+    /**
+     * System property or environment variable holding the content size, in bytes, below which responses are not
+     * compressed.
+     */
+    public static final String COMPRESSION_MIN_SIZE_PROPERTY = "msf4j.compression.minSize";
+    /**
+     * System property or environment variable holding the comma separated media types which are compressed. A type
+     * or subtype can be a wildcard, such as text/*.
+     */
+    public static final String COMPRESSION_MEDIA_TYPES_PROPERTY = "msf4j.compression.mediaTypes";
+    /**
+     * System property or environment variable holding the deflate compression level, from 1 to 9.
+     */
+    public static final String COMPRESSION_LEVEL_PROPERTY = "msf4j.compression.level";
+    /**
+     * System property or environment variable holding the size, in bytes, which a compressed request body may
+     * decompress to. Larger request bodies are rejected with a 413.
+     */
+    public static final String MAX_DECOMPRESSED_SIZE_PROPERTY = "msf4j.request.maxDecompressedSize";
+    /**
+     * Transport property which turns the compression of the Netty transport off. Responses are compressed only by
+     * MSF4J, so the transport has to leave alone the ones which the policy does not compress.
+     */
+    public static final String TRANSPORT_COMPRESSION_PROPERTY = "server.compression.enabled";
+
+    public static final int DEFAULT_COMPRESSION_MIN_SIZE = 1024;
+    public static final String DEFAULT_COMPRESSION_MEDIA_TYPES =
+            "text/*,application/json,application/xml,application/javascript,application/x-www-form-urlencoded," +
+            "image/svg+xml";
+    public static final long DEFAULT_MAX_DECOMPRESSED_SIZE = 64L * 1024 * 1024;
+
+    private static final int ENCODER_BUFFER_SIZE = 8192;
+    private static final boolean COMPRESSION_ENABLED =
+            Boolean.parseBoolean(SystemVariableUtil.getValue(COMPRESSION_ENABLED_PROPERTY, "true"));
+    private static final int COMPRESSION_MIN_SIZE = Integer.parseInt(
+            SystemVariableUtil.getValue(COMPRESSION_MIN_SIZE_PROPERTY, String.valueOf(DEFAULT_COMPRESSION_MIN_SIZE)));
+    private static final int COMPRESSION_LEVEL = Integer.parseInt(
+            SystemVariableUtil.getValue(COMPRESSION_LEVEL_PROPERTY, String.valueOf(Deflater.DEFAULT_COMPRESSION)));
+    private static final long MAX_DECOMPRESSED_SIZE = Long.parseLong(SystemVariableUtil.getValue(
+            MAX_DECOMPRESSED_SIZE_PROPERTY, String.valueOf(DEFAULT_MAX_DECOMPRESSED_SIZE)));
+    private static final String[] COMPRESSIBLE_MEDIA_TYPES =
+            SystemVariableUtil.getValue(COMPRESSION_MEDIA_TYPES_PROPERTY, DEFAULT_COMPRESSION_MEDIA_TYPES)
+                              .toLowerCase(Locale.US).split("\\s*,\\s*");
+    // Media types, among the ones MimeMapper resolves, whose content is already compressed
+    private static final Set<String> COMPRESSED_MEDIA_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "image/jpeg", "image/png", "image/gif", "image/webp", "application/zip", "application/gzip",
+            "application/x-gzip", "application/x-bzip2", "application/x-7z-compressed", "application/x-rar-compressed",
+            "application/java-archive", "application/pdf", "font/woff", "font/woff2", "application/font-woff")));
+
+    private ContentCoding() {
+    }
+
+    /**
+     * Select the content coding of the response from the Accept-Encoding header of the request. gzip is preferred
+     * over deflate when the client accepts both with the same quality.
+     *
+     * @param acceptEncoding Accept-Encoding header of the request
+     * @return {@link #GZIP}, {@link #DEFLATE} or null if the response should not be compressed
+     */
+    public static String negotiate(String acceptEncoding) {
+        if (!COMPRESSION_ENABLED || acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        float gzipQuality = -1;
+        float deflateQuality = -1;
+        float wildcardQuality = -1;
+        for (String element : acceptEncoding.split(",")) {
+            int separator = element.indexOf(';');
+            String coding = (separator < 0 ? element : element.substring(0, separator)).trim();
+            float quality = separator < 0 ? 1 : parseQuality(element.substring(separator + 1));
+            if (GZIP.equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+                gzipQuality = Math.max(gzipQuality, quality);
+            } else if (DEFLATE.equalsIgnoreCase(coding)) {
+                deflateQuality = Math.max(deflateQuality, quality);
+            } else if ("*".equals(coding)) {
+                wildcardQuality = quality;
+            }
+        }
+        gzipQuality = gzipQuality < 0 ? wildcardQuality : gzipQuality;
+        deflateQuality = deflateQuality < 0 ? wildcardQuality : deflateQuality;
+        if (gzipQuality > 0 && gzipQuality >= deflateQuality) {
+            return GZIP;
+        }
+        return deflateQuality > 0 ? DEFLATE : null;
+    }
+
+    /**
+     * Check whether a response of the given media type and length is worth compressing.
+     *
+     * @param mediaType     media type of the response, parameters are ignored
+     * @param contentLength length of the response or -1 if it is not known
+     * @return true if the response should be compressed
+     */
+    public static boolean isCompressible(String mediaType, long contentLength) {
+        if (mediaType == null || (contentLength >= 0 && contentLength < COMPRESSION_MIN_SIZE)) {
+            return false;
+        }
+        int parameters = mediaType.indexOf(';');
+        String type = (parameters < 0 ? mediaType : mediaType.substring(0, parameters)).trim().toLowerCase(Locale.US);
+        if (COMPRESSED_MEDIA_TYPES.contains(type) || type.startsWith("video/") || type.startsWith("audio/")) {
+            return false;
+        }
+        for (String compressible : COMPRESSIBLE_MEDIA_TYPES) {
+            if (matches(compressible, type)) {
+                return true;
+            }
+        }
+        // Structured syntax suffixes, such as application/hal+json, are as compressible as their base type
+        return type.endsWith("+json") || type.endsWith("+xml");
+    }
+
+    /**
+     * Create a stream which compresses the content written to it with the given coding.
+     *
+     * @param coding       {@link #GZIP} or {@link #DEFLATE}
+     * @param outputStream stream the compressed content is written to
+     * @return compressing stream
+     * @throws IOException if the stream cannot be created
+     */
+    public static DeflaterOutputStream newEncoder(String coding, OutputStream outputStream) throws IOException {
+        if (GZIP.equals(coding)) {
+            return new GZIPOutputStream(outputStream, ENCODER_BUFFER_SIZE) {
+                {
+                    def.setLevel(COMPRESSION_LEVEL);
+                }
+            };
+        }
+        // Closing the stream does not end a deflater passed to it, so the stream ends it on close
+        Deflater deflater = new Deflater(COMPRESSION_LEVEL);
+        return new DeflaterOutputStream(outputStream, deflater, ENCODER_BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Wrap the given stream with a stream which decompresses content of the given Content-Encoding. Reading the
+     * decompressing stream throws a {@link ContentDecodingException} if the content is malformed or decompresses to
+     * more than the size configured by {@value #MAX_DECOMPRESSED_SIZE_PROPERTY}.
+     *
+     * @param contentEncoding Content-Encoding header of the content
+     * @param inputStream     stream of the encoded content
+     * @return decompressing stream, or the given stream if the content is not encoded with a known coding
+     * @throws IOException if the encoded content cannot be read
+     */
+    public static InputStream decode(String contentEncoding, InputStream inputStream) throws IOException {
+        if (contentEncoding == null) {
+            return inputStream;
+        }
+        String coding = contentEncoding.trim();
+        try {
+            if (GZIP.equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+                return new DecodingInputStream(new GZIPInputStream(inputStream));
+            } else if (DEFLATE.equalsIgnoreCase(coding)) {
+                return new DecodingInputStream(new InflaterInputStream(inputStream));
+            }
+        } catch (ZipException | EOFException e) {
+            throw malformed(e);
+        }
+        return inputStream;
+    }
+
+    /**
+     * @param contentEncoding Content-Encoding header of the content
+     * @return true if the content is encoded with a coding which {@link #decode(String, InputStream)} supports
+     */
+    public static boolean isDecodable(String contentEncoding) {
+        if (contentEncoding == null) {
+            return false;
+        }
+        String coding = contentEncoding.trim();
+        return GZIP.equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding) || DEFLATE.equalsIgnoreCase(coding);
+    }
+
+    private static ContentDecodingException malformed(IOException cause) {
+        return new ContentDecodingException(Response.Status.BAD_REQUEST, "Malformed compressed request body", cause);
+    }
+
+    private static boolean matches(String pattern, String type) {
+        if ("*/*".equals(pattern) || pattern.equals(type)) {
+            return true;
+        }
+        return pattern.endsWith("/*") && type.startsWith(pattern.substring(0, pattern.length() - 1));
+    }
+
+    private static float parseQuality(String parameters) {
+        for (String parameter : parameters.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.startsWith("q=") || trimmed.startsWith("Q=")) {
+                try {
+                    return Float.parseFloat(trimmed.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Stream over the decompressed content which limits its size and reports malformed content as a
+     * {@link ContentDecodingException}.
+     */
+    private static final class DecodingInputStream extends FilterInputStream {
+
+        private long decodedSize;
+
+        DecodingInputStream(InputStream decoder) {
+            super(decoder);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read;
+            try {
+                read = super.read();
+            } catch (ZipException | EOFException e) {
+                throw malformed(e);
+            }
+            if (read >= 0) {
+                count(1);
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read;
+            try {
+                read = super.read(b, off, len);
+            } catch (ZipException | EOFException e) {
+                throw malformed(e);
+            }
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped;
+            try {
+                skipped = super.skip(n);
+            } catch (ZipException | EOFException e) {
+                throw malformed(e);
+            }
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long bytes) {
+            decodedSize += bytes;
+            if (decodedSize > MAX_DECOMPRESSED_SIZE) {
+                throw new ContentDecodingException(Response.Status.REQUEST_ENTITY_TOO_LARGE,
+                                                   "Decompressed request body exceeds " + MAX_DECOMPRESSED_SIZE +
+                                                   " bytes");
+            }
+        }
+    }
+}
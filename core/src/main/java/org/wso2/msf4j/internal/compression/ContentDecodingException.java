@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.internal.compression;
+
+import javax.ws.rs.core.Response;
+
+/**
+ * Exception that will be thrown when a compressed request body cannot be decoded, either because it is malformed or
+ * because it decompresses to more than the configured limit. It is unchecked, so that it is not swallowed by the
+ * parsers reading the decoded stream, and the dispatcher answers the request with its status.
+ */
+public class ContentDecodingException extends RuntimeException {
+
+    private final Response.Status status;
+
+    public ContentDecodingException(Response.Status status, String msg) {
+        super(msg);
+        this.status = status;
+    }
+
+    public ContentDecodingException(Response.Status status, String msg, Throwable cause) {
+        super(msg, cause);
+        this.status = status;
+    }
+
+    /**
+     * @return status of the response the request is answered with
+     */
+    public Response.Status getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.internal.compression;
+
+import org.wso2.carbon.messaging.CarbonCallback;
+import org.wso2.carbon.messaging.CarbonMessage;
+import org.wso2.carbon.transport.http.netty.common.Constants;
+
+import javax.ws.rs.core.HttpHeaders;
+
+/**
+ * Callback which compresses a response with the coding negotiated for it, if the response is worth compressing,
+ * before passing the response on to the transport. It is the last stage of writing a response: entity writers call
+ * it once they have set the headers and, unless they stream the content, added the whole body.
+ */
+public class EncodingCallback implements CarbonCallback {
+
+    private static final String CHUNKED = "chunked";
+    private static final String ACCEPT_RANGES = "Accept-Ranges";
+    private static final String WEAK_ETAG_PREFIX = "W/";
+    private static final int STATUS_NO_CONTENT = 204;
+    private static final int STATUS_PARTIAL_CONTENT = 206;
+    private static final int STATUS_NOT_MODIFIED = 304;
+    private static final int STATUS_RANGE_NOT_SATISFIABLE = 416;
+
+    private final CarbonCallback callback;
+    private final String coding;
+
+    /**
+     * @param callback callback of the transport
+     * @param coding   coding negotiated with {@link ContentCoding#negotiate(String)}
+     */
+    public EncodingCallback(CarbonCallback callback, String coding) {
+        this.callback = callback;
+        this.coding = coding;
+    }
+
+    @Override
+    public void done(CarbonMessage carbonMessage) {
+        if (carbonMessage instanceof EncodingCarbonMessage) {
+            encode((EncodingCarbonMessage) carbonMessage);
+        }
+        callback.done(carbonMessage);
+    }
+
+    private void encode(EncodingCarbonMessage carbonMessage) {
+        String contentType = carbonMessage.getHeader(Constants.HTTP_CONTENT_TYPE);
+        if (!ContentCoding.isCompressible(contentType, -1)) {
+            return;
+        }
+        String vary = carbonMessage.getHeader(HttpHeaders.VARY);
+        carbonMessage.setHeader(HttpHeaders.VARY,
+                                vary == null ? HttpHeaders.ACCEPT_ENCODING : vary + ", " + HttpHeaders.ACCEPT_ENCODING);
+        if (!isEncodable(carbonMessage) ||
+            !ContentCoding.isCompressible(contentType, getContentLength(carbonMessage))) {
+            return;
+        }
+        carbonMessage.setHeader(HttpHeaders.CONTENT_ENCODING, coding);
+        // The compressed body is another representation: its entity tag must not validate the identity content in
+        // an If-Range, and byte ranges, which are served from the identity content, are not offered for it
+        String eTag = carbonMessage.getHeader(HttpHeaders.ETAG);
+        if (eTag != null && eTag.startsWith("\"")) {
+            carbonMessage.setHeader(HttpHeaders.ETAG, WEAK_ETAG_PREFIX + eTag);
+        }
+        carbonMessage.removeHeader(ACCEPT_RANGES);
+        long encodedLength = carbonMessage.encodeBody(coding);
+        if (encodedLength >= 0) {
+            carbonMessage.setHeader(Constants.HTTP_CONTENT_LENGTH, String.valueOf(encodedLength));
+        } else {
+            // The body is still being written, so its compressed length is not known
+            carbonMessage.removeHeader(Constants.HTTP_CONTENT_LENGTH);
+            carbonMessage.setHeader(Constants.HTTP_TRANSFER_ENCODING, CHUNKED);
+        }
+    }
+
+    /**
+     * Responses which already have a coding, partial responses and responses without a body are sent as they are.
+     */
+    private boolean isEncodable(CarbonMessage carbonMessage) {
+        if (carbonMessage.getHeader(HttpHeaders.CONTENT_ENCODING) != null ||
+            carbonMessage.getHeader("Content-Range") != null) {
+            return false;
+        }
+        Object status = carbonMessage.getProperty(Constants.HTTP_STATUS_CODE);
+        return !(status instanceof Integer) ||
+               ((Integer) status != STATUS_NO_CONTENT && (Integer) status != STATUS_PARTIAL_CONTENT &&
+                (Integer) status != STATUS_NOT_MODIFIED && (Integer) status != STATUS_RANGE_NOT_SATISFIABLE);
+    }
+
+    private long getContentLength(CarbonMessage carbonMessage) {
+        String contentLength = carbonMessage.getHeader(Constants.HTTP_CONTENT_LENGTH);
+        try {
+            return contentLength == null ? -1 : Long.parseLong(contentLength.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
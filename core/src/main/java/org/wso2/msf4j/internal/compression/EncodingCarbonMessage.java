@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.internal.compression;
+
+import org.wso2.carbon.messaging.DefaultCarbonMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Response message which can compress its body as entity writers add it. Until encoding is started the message
+ * behaves exactly like a {@link DefaultCarbonMessage}.
+ */
+public class EncodingCarbonMessage extends DefaultCarbonMessage {
+
+    private final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    private DeflaterOutputStream encoder;
+
+    /**
+     * Compress the body chunks added from now on with the given coding.
+     *
+     * @param coding {@link ContentCoding#GZIP} or {@link ContentCoding#DEFLATE}
+     */
+    void startEncoding(String coding) {
+        try {
+            encoder = ContentCoding.newEncoder(coding, encoded);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error occurred while starting to compress the response", e);
+        }
+    }
+
+    /**
+     * Compress the body chunks which have already been added to the message, and the ones added from now on, with
+     * the given coding.
+     *
+     * @param coding {@link ContentCoding#GZIP} or {@link ContentCoding#DEFLATE}
+     * @return the length of the compressed body if the end of the message has been added, otherwise -1
+     */
+    long encodeBody(String coding) {
+        List<ByteBuffer> body = new ArrayList<>();
+        while (!isEmpty()) {
+            body.add(getMessageBody());
+        }
+        startEncoding(coding);
+        long length = 0;
+        for (ByteBuffer chunk : body) {
+            length += encode(chunk, false);
+        }
+        if (isEndOfMsgAdded()) {
+            return length + encode(null, true);
+        }
+        return -1;
+    }
+
+    @Override
+    public void addMessageBody(ByteBuffer msgBody) {
+        if (encoder == null) {
+            super.addMessageBody(msgBody);
+        } else {
+            encode(msgBody, false);
+        }
+    }
+
+    @Override
+    public void setEndOfMsgAdded(boolean endOfMsgAdded) {
+        if (endOfMsgAdded && encoder != null) {
+            encode(null, true);
+        }
+        super.setEndOfMsgAdded(endOfMsgAdded);
+    }
+
+    /**
+     * Feed the chunk to the encoder and add whatever compressed content it produces to the message.
+     *
+     * @return the number of compressed bytes added
+     */
+    private int encode(ByteBuffer chunk, boolean finish) {
+        try {
+            if (chunk != null && chunk.hasRemaining()) {
+                if (chunk.hasArray()) {
+                    encoder.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+                } else {
+                    byte[] bytes = new byte[chunk.remaining()];
+                    chunk.duplicate().get(bytes);
+                    encoder.write(bytes);
+                }
+            }
+            if (finish) {
+                encoder.close();
+                encoder = null;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error occurred while compressing the response", e);
+        }
+        int length = encoded.size();
+        if (length > 0) {
+            super.addMessageBody(ByteBuffer.wrap(encoded.toByteArray()));
+            encoded.reset();
+        }
+        return length;
+    }
+}
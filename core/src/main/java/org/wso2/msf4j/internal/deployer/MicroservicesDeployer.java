@@ -224,6 +224,12 @@ public class MicroservicesDeployer implements Deployer, RequiredCapabilityListen
             log.error("Microservice deployment failed. Microservices Registry doesn't exist to register microservice.");
             return false;
         }
+        try {
+            microservicesRegistries.values().forEach(registry -> registry.checkRequestExecutors(service));
+        } catch (IllegalStateException e) {
+            log.error("Microservice deployment failed. " + e.getMessage());
+            return false;
+        }
         microservicesRegistries.values().forEach(registry -> registry.addService(service));
         log.info("Microservice {} deployed successfully", service.getClass().getName());
         return true;
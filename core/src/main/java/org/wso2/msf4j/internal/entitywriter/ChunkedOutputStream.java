@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.msf4j.internal.entitywriter;
+
+import org.wso2.carbon.messaging.CarbonMessage;
+import org.wso2.msf4j.util.SystemVariableUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Output stream which coalesces the content written to it into chunks of up to the high-water mark and adds each
+ * full chunk to the carbon message. The transport keeps a chunk until it is written out, so a new chunk is allocated
+ * for the content that follows instead of reusing the one handed over.
+ */
+class ChunkedOutputStream extends OutputStream {
+
+    /**
+     * System property or environment variable holding the size, in bytes, up to which response content is coalesced
+     * before it is handed to the transport.
+     */
+    static final String HIGH_WATER_MARK_PROPERTY = "msf4j.response.highWaterMark";
+    static final int DEFAULT_HIGH_WATER_MARK = 32 * 1024;
+    static final int HIGH_WATER_MARK = Integer.parseInt(
+            SystemVariableUtil.getValue(HIGH_WATER_MARK_PROPERTY, String.valueOf(DEFAULT_HIGH_WATER_MARK)));
+
+    private static final int INITIAL_CHUNK_SIZE = 1024;
+
+    private final CarbonMessage carbonMessage;
+    private final int highWaterMark;
+    private byte[] chunk;
+    private int count;
+    private boolean closed;
+
+    ChunkedOutputStream(CarbonMessage carbonMessage, int highWaterMark) {
+        this.carbonMessage = carbonMessage;
+        this.highWaterMark = Math.max(highWaterMark, 1);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureCapacity();
+        chunk[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensureCapacity();
+            int copied = Math.min(length, chunk.length - count);
+            System.arraycopy(bytes, offset, chunk, count, copied);
+            count += copied;
+            offset += copied;
+            length -= copied;
+        }
+    }
+
+    /**
+     * Read the next bytes of the given input stream straight into the current chunk.
+     *
+     * @param inputStream stream to read from
+     * @return the number of bytes read or -1 at the end of the stream
+     * @throws IOException if reading from the stream fails
+     */
+    int readFrom(InputStream inputStream) throws IOException {
+        ensureCapacity();
+        int read = inputStream.read(chunk, count, chunk.length - count);
+        if (read > 0) {
+            count += read;
+        }
+        return read;
+    }
+
+    /**
+     * Hand the content written so far to the transport, even if it is below the high-water mark.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (count > 0) {
+            addChunk();
+        }
+    }
+
+    /**
+     * Hand the remaining content to the transport and mark the end of the message.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            flush();
+            carbonMessage.setEndOfMsgAdded(true);
+        }
+    }
+
+    /**
+     * Make room for at least one more byte in the current chunk. The first chunk starts small and grows up to the
+     * high-water mark, so short responses do not allocate a full chunk.
+     */
+    private void ensureCapacity() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+        if (chunk == null) {
+            chunk = new byte[Math.min(INITIAL_CHUNK_SIZE, highWaterMark)];
+        } else if (count == chunk.length) {
+            if (chunk.length < highWaterMark) {
+                chunk = Arrays.copyOf(chunk, (int) Math.min(highWaterMark, chunk.length * 2L));
+            } else {
+                addChunk();
+                chunk = new byte[highWaterMark];
+            }
+        }
+    }
+
+    private void addChunk() {
+        carbonMessage.addMessageBody(ByteBuffer.wrap(chunk, 0, count));
+        chunk = null;
+        count = 0;
+    }
+}
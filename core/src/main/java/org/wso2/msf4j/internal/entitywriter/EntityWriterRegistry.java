@@ -16,19 +16,22 @@
 
 package org.wso2.msf4j.internal.entitywriter;
 
+import org.wso2.msf4j.entitywriter.EntityWriter;
 import org.wso2.msf4j.internal.ClassComparator;
 
 import java.util.Map;
-import java.util.Optional;
 import java.util.TreeMap;
 
 /**
- * Registry that stores entity writers for different entity types.
+ * Registry that stores entity writers for different entity types. The writer resolved for a concrete entity class is
+ * cached, so looking it up again does not go through the registered writers.
  */
 public class EntityWriterRegistry {
 
     private static final EntityWriter DEFAULT_ENTITY_WRITER = new ObjectEntityWriter();
-    private static final Map<Class, EntityWriter> writers = new TreeMap<>(new ClassComparator());
+    // Replaced, never modified, when a writer is registered
+    private static volatile Map<Class, EntityWriter> writers = new TreeMap<>(new ClassComparator());
+    private static volatile ClassValue<EntityWriter> resolvedWriters = newResolvedWriters();
 
     static {
         registerEntityWriter(new FileEntityWriter());
@@ -40,12 +43,20 @@ public class EntityWriterRegistry {
     }
 
     /**
-     * Register an entity writer.
+     * Register an entity writer. A writer registered for a type replaces the writer previously registered for the
+     * same type.
      *
      * @param entityWriter entity writer for a specific entity type
      */
-    private static void registerEntityWriter(EntityWriter entityWriter) {
-        writers.put(entityWriter.getType(), entityWriter);
+    public static synchronized void registerEntityWriter(EntityWriter entityWriter) {
+        if (entityWriter == null || entityWriter.getType() == null) {
+            throw new IllegalArgumentException("Entity writer and its type cannot be null");
+        }
+        Map<Class, EntityWriter> newWriters = new TreeMap<>(new ClassComparator());
+        newWriters.putAll(writers);
+        newWriters.put(entityWriter.getType(), entityWriter);
+        writers = newWriters;
+        resolvedWriters = newResolvedWriters();
     }
 
     /**
@@ -55,10 +66,20 @@ public class EntityWriterRegistry {
      * @return entity writer
      */
     public static EntityWriter getEntityWriter(Class type) {
-        return writers.entrySet().
-                stream().
-                filter(entry -> entry.getKey().isAssignableFrom(type)).
-                findFirst().
-                flatMap(entry -> Optional.ofNullable(entry.getValue())).orElse(DEFAULT_ENTITY_WRITER);
+        return resolvedWriters.get(type);
+    }
+
+    private static ClassValue<EntityWriter> newResolvedWriters() {
+        return new ClassValue<EntityWriter>() {
+            @Override
+            protected EntityWriter computeValue(Class<?> type) {
+                for (Map.Entry<Class, EntityWriter> entry : writers.entrySet()) {
+                    if (entry.getKey().isAssignableFrom(type)) {
+                        return entry.getValue();
+                    }
+                }
+                return DEFAULT_ENTITY_WRITER;
+            }
+        };
     }
 }
@@ -17,26 +17,72 @@
 package org.wso2.msf4j.internal.entitywriter;
 
 import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.wso2.carbon.messaging.CarbonCallback;
 import org.wso2.carbon.messaging.CarbonMessage;
 import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.msf4j.Request;
 import org.wso2.msf4j.Response;
+import org.wso2.msf4j.entitywriter.EntityWriter;
+import org.wso2.msf4j.executor.IOThreadRequestExecutor;
+import org.wso2.msf4j.executor.RequestExecutor;
+import org.wso2.msf4j.internal.MSF4JConstants;
+import org.wso2.msf4j.internal.ResponseAbortedException;
 import org.wso2.msf4j.internal.mime.MimeMapper;
 import org.wso2.msf4j.internal.mime.MimeMappingException;
 
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 
 /**
- * EntityWriter for entity of type File.
+ * EntityWriter for entity of type File. Files larger than {@link #MAPPING_THRESHOLD} are sent as memory mapped
+ * regions, so the transport writes them to the socket straight from the page cache instead of copying them through
+ * the heap. Only a few regions are mapped ahead of the transport, so a large download does not hold a mapping for
+ * every chunk of the file at once, and the rest are added later without blocking the thread which writes the
+ * response. A single byte range requested by a GET is answered with a 206 partial response.
  */
 public class FileEntityWriter implements EntityWriter<File> {
 
-    public static final int DEFAULT_CHUNK_SIZE = 1024;
+    private static final Logger log = LoggerFactory.getLogger(FileEntityWriter.class);
+
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+    // Files up to this size are read into the heap, since mapping a small file costs more than copying it
+    public static final int MAPPING_THRESHOLD = 64 * 1024;
+    // Mapped regions added to the message before the transport has to take them for more to be added
+    private static final int MAX_QUEUED_REGIONS = 4;
+    private static final long TRANSPORT_TIMEOUT = TimeUnit.SECONDS.toNanos(60);
+    // Delay before checking again whether the transport has taken the regions added so far
+    private static final long TRANSPORT_POLL_INTERVAL = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final String ACCEPT_RANGES = "Accept-Ranges";
+    private static final String CONTENT_RANGE = "Content-Range";
+    private static final String RANGE = "Range";
+    private static final String IF_RANGE = "If-Range";
+    private static final String BYTES_UNIT = "bytes";
+    private static final String BYTES_UNIT_PREFIX = BYTES_UNIT + "=";
+    private static final DateTimeFormatter HTTP_DATE_FORMAT =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+    private static final int STATUS_OK = 200;
+    private static final int STATUS_PARTIAL_CONTENT = 206;
+    private static final int STATUS_RANGE_NOT_SATISFIABLE = 416;
+    private static final long[] UNSATISFIABLE_RANGE = new long[0];
 
     /**
      * Supported entity type.
@@ -51,6 +97,15 @@ public class FileEntityWriter implements EntityWriter<File> {
      */
     @Override
     public void writeData(CarbonMessage carbonMessage, File file, String mediaType, int chunkSize, CarbonCallback cb) {
+        writeData(carbonMessage, file, mediaType, chunkSize, cb, null);
+    }
+
+    /**
+     * Write the entity, or the byte range of it requested by the Range header, to the carbon message.
+     */
+    @Override
+    public void writeData(CarbonMessage carbonMessage, File file, String mediaType, int chunkSize, CarbonCallback cb,
+                          Request request) {
         if (mediaType == null || mediaType.equals(MediaType.WILDCARD)) {
             try {
                 mediaType = MimeMapper.getMimeType(FilenameUtils.getExtension(file.getName()));
@@ -58,25 +113,284 @@ public class FileEntityWriter implements EntityWriter<File> {
                 mediaType = MediaType.WILDCARD;
             }
         }
+        if (chunkSize == Response.NO_CHUNK || chunkSize == Response.DEFAULT_CHUNK_SIZE) {
+            chunkSize = DEFAULT_CHUNK_SIZE;
+        }
+        FileChannel fileChannel = null;
         try {
-            FileChannel fileChannel = new FileInputStream(file).getChannel();
-            if (chunkSize == Response.NO_CHUNK || chunkSize == Response.DEFAULT_CHUNK_SIZE) {
-                chunkSize = DEFAULT_CHUNK_SIZE;
-            }
-            carbonMessage.setHeader(Constants.HTTP_TRANSFER_ENCODING, CHUNKED);
+            fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            long length = fileChannel.size();
+            long lastModified = file.lastModified();
             carbonMessage.setHeader(Constants.HTTP_CONTENT_TYPE, mediaType);
+            carbonMessage.setHeader(ACCEPT_RANGES, BYTES_UNIT);
+            if (lastModified > 0 && carbonMessage.getHeader(HttpHeaders.LAST_MODIFIED) == null) {
+                carbonMessage.setHeader(HttpHeaders.LAST_MODIFIED,
+                                        HTTP_DATE_FORMAT.format(Instant.ofEpochMilli(lastModified)));
+            }
+
+            long[] range = getRequestedRange(carbonMessage, request, length, lastModified);
+            if (range == UNSATISFIABLE_RANGE) {
+                carbonMessage.setProperty(Constants.HTTP_STATUS_CODE, STATUS_RANGE_NOT_SATISFIABLE);
+                carbonMessage.setHeader(CONTENT_RANGE, BYTES_UNIT + " */" + length);
+                carbonMessage.setHeader(Constants.HTTP_CONTENT_LENGTH, "0");
+                carbonMessage.addMessageBody(ByteBuffer.allocate(0));
+                carbonMessage.setEndOfMsgAdded(true);
+                cb.done(carbonMessage);
+                return;
+            }
+            long position = 0;
+            long count = length;
+            if (range != null) {
+                position = range[0];
+                count = range[1] - range[0] + 1;
+                carbonMessage.setProperty(Constants.HTTP_STATUS_CODE, STATUS_PARTIAL_CONTENT);
+                carbonMessage.setHeader(CONTENT_RANGE, BYTES_UNIT + " " + range[0] + "-" + range[1] + "/" + length);
+            }
+            carbonMessage.setHeader(Constants.HTTP_CONTENT_LENGTH, String.valueOf(count));
             carbonMessage.setBufferContent(false);
             cb.done(carbonMessage);
 
-            ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
-            while (fileChannel.read(buffer) != -1) {
-                buffer.flip();
-                carbonMessage.addMessageBody(buffer);
+            if (count > MAPPING_THRESHOLD) {
+                RegionWriter regionWriter =
+                        new RegionWriter(file, carbonMessage, fileChannel, position, count, chunkSize, request);
+                // The region writer closes the channel once it has added the last region
+                fileChannel = null;
+                regionWriter.start();
+                return;
+            }
+            try {
+                writeContent(carbonMessage, fileChannel, position, (int) count);
+            } catch (IOException | RuntimeException e) {
+                // The headers are out, end the message so that the transport does not wait for the rest of it
+                carbonMessage.setEndOfMsgAdded(true);
+                throw new ResponseAbortedException("Error occurred while sending file " + file, e);
             }
-            fileChannel.close();
             carbonMessage.setEndOfMsgAdded(true);
         } catch (IOException e) {
             throw new RuntimeException("Error occurred while reading from file", e);
+        } finally {
+            closeChannel(fileChannel);
+        }
+    }
+
+    /**
+     * Add the given region of the file, which is small enough not to be worth mapping, to the carbon message. A file
+     * which has become shorter than the Content-Length already sent is an error, since the response cannot be
+     * completed.
+     */
+    private void writeContent(CarbonMessage carbonMessage, FileChannel fileChannel, long position, int count)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(count);
+        while (buffer.hasRemaining()) {
+            if (fileChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("File ended " + buffer.remaining() + " bytes before the sent length");
+            }
+        }
+        buffer.flip();
+        carbonMessage.addMessageBody(buffer);
+    }
+
+    private static void closeChannel(FileChannel fileChannel) {
+        if (fileChannel == null) {
+            return;
+        }
+        try {
+            fileChannel.close();
+        } catch (IOException e) {
+            log.debug("Error occurred while closing file channel", e);
+        }
+    }
+
+    /**
+     * Resolve the byte range requested by a GET request, following RFC 7233. Requests for several ranges and
+     * malformed Range headers are answered with the whole file, as the RFC allows.
+     *
+     * @return first and last byte positions of the range, {@link #UNSATISFIABLE_RANGE} if no byte of the range is
+     * in the file or null if the whole file should be sent
+     */
+    private long[] getRequestedRange(CarbonMessage carbonMessage, Request request, long length, long lastModified) {
+        if (request == null || !HttpMethod.GET.equals(request.getHttpMethod()) ||
+            !Integer.valueOf(STATUS_OK).equals(carbonMessage.getProperty(Constants.HTTP_STATUS_CODE))) {
+            return null;
+        }
+        String range = request.getHeader(RANGE);
+        if (range == null || !range.regionMatches(true, 0, BYTES_UNIT_PREFIX, 0, BYTES_UNIT_PREFIX.length()) ||
+            range.indexOf(',') >= 0) {
+            return null;
+        }
+        String ifRange = request.getHeader(IF_RANGE);
+        if (ifRange != null && !isRepresentationUnchanged(carbonMessage, ifRange.trim(), lastModified)) {
+            return null;
+        }
+        int dash = range.indexOf('-', BYTES_UNIT_PREFIX.length());
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = range.substring(BYTES_UNIT_PREFIX.length(), dash).trim();
+            String last = range.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // suffix range with the number of bytes at the end of the file
+                long suffixLength = Long.parseLong(last);
+                if (suffixLength == 0 || length == 0) {
+                    return UNSATISFIABLE_RANGE;
+                }
+                start = Math.max(0, length - suffixLength);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+                if (start < 0 || end < start) {
+                    return null;
+                }
+                end = Math.min(end, length - 1);
+                if (start >= length) {
+                    return UNSATISFIABLE_RANGE;
+                }
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Check the If-Range validator of a request against the entity tag set on the response or the modification
+     * time of the file. Weak entity tags never match.
+     */
+    private boolean isRepresentationUnchanged(CarbonMessage carbonMessage, String ifRange, long lastModified) {
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(carbonMessage.getHeader(HttpHeaders.ETAG));
+        }
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
+        try {
+            ZonedDateTime since = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return lastModified > 0 && since.toEpochSecond() == lastModified / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Adds a large region of a file to the carbon message as read only memory mapped buffers of chunk size, which
+     * stay valid after the channel is closed. No more than {@link #MAX_QUEUED_REGIONS} regions are added ahead of the
+     * transport. Instead of waiting for the transport to take them, the writer checks again after a short delay, so
+     * neither a worker thread nor the transport I/O thread blocks while a large file is being sent. The regions are
+     * added by the executor of the request, or by its fallback executor if the request is executed on the I/O thread.
+     */
+    private static final class RegionWriter implements Runnable {
+
+        private final File file;
+        private final CarbonMessage carbonMessage;
+        private final FileChannel fileChannel;
+        private final long end;
+        private final int chunkSize;
+        private final Request request;
+        private final RequestExecutor executor;
+        private final boolean onIOThread;
+        private long position;
+        private long deadline;
+
+        RegionWriter(File file, CarbonMessage carbonMessage, FileChannel fileChannel, long position, long count,
+                     int chunkSize, Request request) {
+            this.file = file;
+            this.carbonMessage = carbonMessage;
+            this.fileChannel = fileChannel;
+            this.position = position;
+            this.end = position + count;
+            this.chunkSize = chunkSize;
+            this.request = request;
+            RequestExecutor requestExecutor =
+                    request == null ? null : (RequestExecutor) request.getProperty(MSF4JConstants.REQUEST_EXECUTOR);
+            this.executor = requestExecutor instanceof IOThreadRequestExecutor ?
+                    ((IOThreadRequestExecutor) requestExecutor).getFallbackExecutor() : requestExecutor;
+            this.onIOThread = requestExecutor instanceof IOThreadRequestExecutor;
         }
+
+        void start() {
+            deadline = System.nanoTime() + TRANSPORT_TIMEOUT;
+            if (onIOThread) {
+                // The transport takes the regions on this thread, so they are added by the fallback executor
+                dispatch();
+            } else {
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!carbonMessage.isEmpty()) {
+                    if (System.nanoTime() - deadline > 0) {
+                        throw new IOException("Timed out waiting for the transport to send the file");
+                    }
+                    schedule();
+                    return;
+                }
+                deadline = System.nanoTime() + TRANSPORT_TIMEOUT;
+                for (int i = 0; i < MAX_QUEUED_REGIONS && position < end; i++) {
+                    long size = Math.min(chunkSize, end - position);
+                    if (position + size > fileChannel.size()) {
+                        throw new EOFException("File was truncated to " + fileChannel.size() +
+                                               " bytes while being sent");
+                    }
+                    carbonMessage.addMessageBody(fileChannel.map(FileChannel.MapMode.READ_ONLY, position, size));
+                    position += size;
+                }
+                if (position < end) {
+                    schedule();
+                    return;
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+                return;
+            }
+            closeChannel(fileChannel);
+            carbonMessage.setEndOfMsgAdded(true);
+        }
+
+        private void fail(Exception e) {
+            closeChannel(fileChannel);
+            // The headers are out, end the message so that the transport does not wait for the rest of it
+            carbonMessage.setEndOfMsgAdded(true);
+            log.error("Error occurred while sending file " + file, e);
+        }
+
+        private void schedule() {
+            RegionScheduler.INSTANCE.schedule(this::dispatch, TRANSPORT_POLL_INTERVAL, TimeUnit.NANOSECONDS);
+        }
+
+        private void dispatch() {
+            if (executor == null) {
+                run();
+                return;
+            }
+            try {
+                executor.execute(request, this);
+            } catch (RejectedExecutionException e) {
+                if (System.nanoTime() - deadline > 0) {
+                    fail(e);
+                    return;
+                }
+                // The executor is saturated, try again later rather than failing a response which is under way
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * Single shared thread which hands region writers back to their executor once their delay has passed.
+     */
+    private static final class RegionScheduler {
+
+        private static final ScheduledThreadPoolExecutor INSTANCE = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "msf4j-file-region-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 }
@@ -20,17 +20,18 @@ import org.wso2.carbon.messaging.CarbonCallback;
 import org.wso2.carbon.messaging.CarbonMessage;
 import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.msf4j.Response;
+import org.wso2.msf4j.entitywriter.EntityWriter;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
 
 /**
- * EntityWriter for entity of type InputStream.
+ * EntityWriter for entity of type InputStream. The stream is read straight into chunks of the response, which are
+ * handed to the transport once they reach the chunk size.
  */
 public class InputStreamEntityWriter implements EntityWriter<InputStream> {
 
-    public static final int DEFAULT_CHUNK_SIZE = 1024;
+    public static final int DEFAULT_CHUNK_SIZE = ChunkedOutputStream.HIGH_WATER_MARK;
 
     /**
      * Supported entity type.
@@ -46,7 +47,7 @@ public class InputStreamEntityWriter implements EntityWriter<InputStream> {
     @Override
     public void writeData(CarbonMessage carbonMessage, InputStream ipStream,
                           String mediaType, int chunkSize, CarbonCallback cb) {
-        try {
+        try (InputStream inputStream = ipStream) {
             if (chunkSize == Response.NO_CHUNK || chunkSize == Response.DEFAULT_CHUNK_SIZE) {
                 chunkSize = DEFAULT_CHUNK_SIZE;
             }
@@ -55,14 +56,12 @@ public class InputStreamEntityWriter implements EntityWriter<InputStream> {
             carbonMessage.setBufferContent(false);
             cb.done(carbonMessage);
 
-            byte[] data = new byte[chunkSize];
-            int len;
-            while ((len = ipStream.read(data)) != -1) {
-                carbonMessage.addMessageBody(ByteBuffer.wrap(data, 0, len));
-            }
-
-            ipStream.close();
-            carbonMessage.setEndOfMsgAdded(true);
+            ChunkedOutputStream outputStream = new ChunkedOutputStream(carbonMessage, chunkSize);
+            int read;
+            do {
+                read = outputStream.readFrom(inputStream);
+            } while (read != -1);
+            outputStream.close();
         } catch (IOException e) {
             throw new RuntimeException("Error occurred while reading from InputStream", e);
         }
@@ -20,16 +20,34 @@ import org.wso2.carbon.messaging.CarbonCallback;
 import org.wso2.carbon.messaging.CarbonMessage;
 import org.wso2.carbon.transport.http.netty.common.Constants;
 import org.wso2.msf4j.Response;
+import org.wso2.msf4j.entitywriter.EntityWriter;
+import org.wso2.msf4j.internal.ResponseAbortedException;
 import org.wso2.msf4j.internal.beanconversion.BeanConverter;
+import org.wso2.msf4j.util.SystemVariableUtil;
 
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import javax.ws.rs.core.MediaType;
 
 /**
- * EntityWriter for  entity of type Object.
+ * EntityWriter for  entity of type Object. The entity is converted straight into the response. A response which
+ * does not ask for chunking is sent with a Content-Length unless its content grows above the chunking threshold, in
+ * which case it is sent chunked as the content is produced.
  */
 public class ObjectEntityWriter implements EntityWriter<Object> {
 
+    /**
+     * System property or environment variable holding the content size, in bytes, above which responses are chunked.
+     */
+    public static final String CHUNKING_THRESHOLD_PROPERTY = "msf4j.response.chunkingThreshold";
+    public static final int DEFAULT_CHUNKING_THRESHOLD = 64 * 1024;
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+    private static final int CHUNKING_THRESHOLD = Integer.parseInt(
+            SystemVariableUtil.getValue(CHUNKING_THRESHOLD_PROPERTY, String.valueOf(DEFAULT_CHUNKING_THRESHOLD)));
+
     /**
      * Supported entity type.
      */
@@ -45,15 +63,131 @@ public class ObjectEntityWriter implements EntityWriter<Object> {
     public void writeData(CarbonMessage carbonMessage, Object entity, String mediaType, int chunkSize,
                           CarbonCallback cb) {
         mediaType = (mediaType != null) ? mediaType : MediaType.WILDCARD;
-        ByteBuffer byteBuffer = BeanConverter.getConverter(mediaType).convertToMedia(entity);
-        carbonMessage.addMessageBody(byteBuffer);
-        carbonMessage.setEndOfMsgAdded(true);
+        carbonMessage.setHeader(Constants.HTTP_CONTENT_TYPE, mediaType);
+        EntityOutputStream outputStream;
         if (chunkSize == Response.NO_CHUNK) {
-            carbonMessage.setHeader(Constants.HTTP_CONTENT_LENGTH, String.valueOf(byteBuffer.remaining()));
+            outputStream = new EntityOutputStream(carbonMessage, cb, false, CHUNKING_THRESHOLD, DEFAULT_CHUNK_SIZE);
         } else {
+            chunkSize = (chunkSize == Response.DEFAULT_CHUNK_SIZE) ? DEFAULT_CHUNK_SIZE : chunkSize;
+            outputStream = new EntityOutputStream(carbonMessage, cb, true, chunkSize, chunkSize);
+        }
+        try {
+            BeanConverter.getConverter(mediaType).convertToMedia(entity, outputStream);
+        } catch (RuntimeException | Error e) {
+            if (outputStream.abort()) {
+                throw new ResponseAbortedException("Error occurred while converting the response entity", e);
+            }
+            // Nothing has been sent yet, so the failure can still be answered with an error response
+            throw e;
+        }
+        outputStream.close();
+    }
+
+    /**
+     * Buffers the content until it grows above the threshold and then streams it to the carbon message in chunks.
+     */
+    private static class EntityOutputStream extends OutputStream {
+
+        private final CarbonMessage carbonMessage;
+        private final CarbonCallback cb;
+        private final boolean chunked;
+        private final int threshold;
+        private final int chunkSize;
+        private byte[] buffer;
+        private int count;
+        private boolean streaming;
+
+        EntityOutputStream(CarbonMessage carbonMessage, CarbonCallback cb, boolean chunked, int threshold,
+                           int chunkSize) {
+            this.carbonMessage = carbonMessage;
+            this.cb = cb;
+            this.chunked = chunked;
+            this.threshold = threshold;
+            this.chunkSize = chunkSize;
+            this.buffer = new byte[Math.min(INITIAL_BUFFER_SIZE, Math.max(threshold, 1))];
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            if (!streaming) {
+                if (count + length <= threshold) {
+                    if (count + length > buffer.length) {
+                        buffer = Arrays.copyOf(buffer, Math.min(threshold, Math.max(buffer.length * 2,
+                                                                                    count + length)));
+                    }
+                    System.arraycopy(bytes, offset, buffer, count, length);
+                    count += length;
+                    return;
+                }
+                startStreaming();
+            }
+            while (length > 0) {
+                int copied = Math.min(length, buffer.length - count);
+                System.arraycopy(bytes, offset, buffer, count, copied);
+                count += copied;
+                offset += copied;
+                length -= copied;
+                if (count == buffer.length) {
+                    // The transport keeps the chunk until it is written out, so it is not reused
+                    carbonMessage.addMessageBody(ByteBuffer.wrap(buffer));
+                    buffer = new byte[chunkSize];
+                    count = 0;
+                }
+            }
+        }
+
+        private void startStreaming() {
+            streaming = true;
             carbonMessage.setHeader(Constants.HTTP_TRANSFER_ENCODING, CHUNKED);
+            carbonMessage.setBufferContent(false);
+            cb.done(carbonMessage);
+            if (count > 0) {
+                carbonMessage.addMessageBody(ByteBuffer.wrap(buffer, 0, count));
+            }
+            buffer = new byte[chunkSize];
+            count = 0;
+        }
+
+        /**
+         * Give up a response whose conversion failed.
+         *
+         * @return true if the response had already been handed to the transport, in which case it is left without
+         * its terminating chunk so that the client sees an incomplete response instead of a truncated entity
+         */
+        boolean abort() {
+            if (!streaming) {
+                return false;
+            }
+            // Ending the message would make the transport send the last chunk and the truncated entity would look
+            // complete, so the remaining buffered content is dropped and the message is never ended
+            buffer = null;
+            count = 0;
+            return true;
+        }
+
+        @Override
+        public void close() {
+            if (streaming) {
+                if (count > 0) {
+                    carbonMessage.addMessageBody(ByteBuffer.wrap(buffer, 0, count));
+                }
+                carbonMessage.setEndOfMsgAdded(true);
+                return;
+            }
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, count);
+            carbonMessage.addMessageBody(byteBuffer);
+            carbonMessage.setEndOfMsgAdded(true);
+            if (chunked) {
+                carbonMessage.setHeader(Constants.HTTP_TRANSFER_ENCODING, CHUNKED);
+            } else {
+                carbonMessage.setHeader(Constants.HTTP_CONTENT_LENGTH, String.valueOf(byteBuffer.remaining()));
+            }
+            cb.done(carbonMessage);
         }
-        carbonMessage.setHeader(Constants.HTTP_CONTENT_TYPE, mediaType);
-        cb.done(carbonMessage);
     }
 }
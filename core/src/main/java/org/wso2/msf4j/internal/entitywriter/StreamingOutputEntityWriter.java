@@ -19,12 +19,15 @@ package org.wso2.msf4j.internal.entitywriter;
 import org.wso2.carbon.messaging.CarbonCallback;
 import org.wso2.carbon.messaging.CarbonMessage;
 import org.wso2.carbon.transport.http.netty.common.Constants;
+import org.wso2.msf4j.Response;
+import org.wso2.msf4j.entitywriter.EntityWriter;
 
 import java.io.IOException;
 import javax.ws.rs.core.StreamingOutput;
 
 /**
- * EntityWriter for entity of type {@link javax.ws.rs.core.StreamingOutput}.
+ * EntityWriter for entity of type {@link javax.ws.rs.core.StreamingOutput}. The output is coalesced into chunks of
+ * the chunk size before it is handed to the transport, unless the application flushes it earlier.
  */
 public class StreamingOutputEntityWriter implements EntityWriter<StreamingOutput> {
 
@@ -47,8 +50,12 @@ public class StreamingOutputEntityWriter implements EntityWriter<StreamingOutput
             carbonMessage.setHeader(Constants.HTTP_TRANSFER_ENCODING, CHUNKED);
             carbonMessage.setBufferContent(false);
             cb.done(carbonMessage);
-            output.write(carbonMessage.getOutputStream());
-            carbonMessage.setEndOfMsgAdded(true);
+            if (chunkSize == Response.NO_CHUNK || chunkSize == Response.DEFAULT_CHUNK_SIZE) {
+                chunkSize = ChunkedOutputStream.HIGH_WATER_MARK;
+            }
+            ChunkedOutputStream outputStream = new ChunkedOutputStream(carbonMessage, chunkSize);
+            output.write(outputStream);
+            outputStream.close();
         } catch (IOException e) {
             throw new RuntimeException("Error occurred while streaming output", e);
         }
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.msf4j.internal.router;
+
+import org.wso2.msf4j.formparam.FileInfo;
+import org.wso2.msf4j.formparam.FormItem;
+import org.wso2.msf4j.util.SystemVariableUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * A part of a multipart/form-data request which has been read from the request. Parts up to the memory threshold
+ * are kept in memory and larger parts are spilled to the temporary storage of the request. A part in memory is only
+ * written to disk if the resource method asks for it as a {@link File}.
+ */
+final class FormPart {
+
+    /**
+     * System property or environment variable holding the size, in bytes, up to which a part is kept in memory.
+     */
+    static final String MEMORY_THRESHOLD_PROPERTY = "msf4j.multipart.memoryThreshold";
+    static final int DEFAULT_MEMORY_THRESHOLD = 10 * 1024;
+
+    private static final int MEMORY_THRESHOLD = Integer.parseInt(
+            SystemVariableUtil.getValue(MEMORY_THRESHOLD_PROPERTY, String.valueOf(DEFAULT_MEMORY_THRESHOLD)));
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String fieldName;
+    private final String fileName;
+    private final String contentType;
+    private final String mediaType;
+    private final boolean file;
+    private final RequestTempStorage storage;
+    private byte[] content;
+    private Path path;
+
+    private FormPart(FormItem item, RequestTempStorage storage) {
+        this.fieldName = item.getFieldName();
+        this.fileName = item.getName();
+        this.contentType = item.getContentType();
+        String cType = contentType;
+        if (cType != null && cType.contains(";")) {
+            cType = cType.split(";")[0];
+        }
+        this.mediaType = cType == null ? MediaType.TEXT_PLAIN : cType;
+        this.file = item.getHeaders().getHeader("content-disposition").contains("filename") ||
+                    MediaType.APPLICATION_OCTET_STREAM.equals(item.getHeaders().getHeader("content-type"));
+        this.storage = storage;
+    }
+
+    /**
+     * Read the content of the given form item, which is only valid until the iterator moves to the next item.
+     *
+     * @param item    form item to be read
+     * @param storage temporary storage of the request, used if the part is larger than the memory threshold
+     * @return part holding the content of the item
+     * @throws IOException if the item could not be read or spilled to disk
+     */
+    static FormPart read(FormItem item, RequestTempStorage storage) throws IOException {
+        FormPart part = new FormPart(item, storage);
+        try (InputStream inputStream = item.openStream()) {
+            part.buffer(inputStream, MEMORY_THRESHOLD);
+        }
+        return part;
+    }
+
+    private void buffer(InputStream inputStream, int threshold) throws IOException {
+        ByteArrayOutputStream memory = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            if (memory.size() + read > threshold) {
+                path = storage.createFile(fileName);
+                try (OutputStream outputStream = Files.newOutputStream(path)) {
+                    memory.writeTo(outputStream);
+                    do {
+                        outputStream.write(buffer, 0, read);
+                    } while ((read = inputStream.read(buffer)) != -1);
+                }
+                return;
+            }
+            memory.write(buffer, 0, read);
+        }
+        content = memory.toByteArray();
+    }
+
+    String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * @return content type of the part without its parameters, text/plain if the part does not have one
+     */
+    String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @return true if the part is a file upload
+     */
+    boolean isFile() {
+        return file;
+    }
+
+    /**
+     * @return true if the content of the part is held in memory
+     */
+    boolean isInMemory() {
+        return content != null;
+    }
+
+    FileInfo getFileInfo() {
+        FileInfo fileInfo = new FileInfo();
+        fileInfo.setFileName(fileName);
+        fileInfo.setContentType(contentType);
+        return fileInfo;
+    }
+
+    InputStream openStream() throws IOException {
+        return content != null ? new ByteArrayInputStream(content) : Files.newInputStream(path);
+    }
+
+    String asString() throws IOException {
+        return new String(content != null ? content : Files.readAllBytes(path), Charset.defaultCharset());
+    }
+
+    /**
+     * Get the part as a file in the temporary storage of the request. A part held in memory is written to disk at
+     * this point, and it is still read from memory afterwards.
+     *
+     * @return file holding the content of the part, which is deleted when the request completes
+     * @throws IOException if the part could not be written to disk
+     */
+    synchronized File toFile() throws IOException {
+        if (path == null) {
+            Path filePath = storage.createFile(fileName);
+            Files.write(filePath, content);
+            path = filePath;
+        }
+        return path.toFile();
+    }
+}
@@ -34,6 +34,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -51,29 +53,31 @@ import static org.wso2.msf4j.internal.router.Util.WILD_CARD_PATTERN;
  */
 public class HttpMethodInfo {
 
-    private final Method method;
+    private final ResourceMethodInvoker invoker;
     private final Object handler;
     private final Object[] args;
     private MultivaluedMap<String, Object> formParameters = null;
     private Response responder;
     private HttpStreamHandler httpStreamHandler;
+    private SuspendedAsyncResponse asyncResponse;
+    private static final CompletionStage<Void> RESPONSE_SENT = CompletableFuture.completedFuture(null);
     private static final Logger log = LoggerFactory.getLogger(HttpMethodInfo.class);
 
     /**
      * Construct HttpMethodInfo object for a handler
      * method that does not support streaming.
      *
-     * @param method    handler method
+     * @param invoker   invoker of the handler method
      * @param handler   object of the handler method
      * @param args      method arguments array
      * @param responder responder object
      */
-    public HttpMethodInfo(Method method,
+    public HttpMethodInfo(ResourceMethodInvoker invoker,
                           Object handler,
                           Object[] args,
                           MultivaluedMap<String, Object> formParameters,
                           Response responder) {
-        this.method = method;
+        this.invoker = invoker;
         this.handler = handler;
         this.args = Arrays.copyOf(args, args.length);
         this.formParameters = formParameters;
@@ -84,27 +88,27 @@ public class HttpMethodInfo {
      * Construct HttpMethodInfo object for a streaming
      * supported handler method.
      *
-     * @param method       handler method
+     * @param invoker      invoker of the handler method
      * @param handler      object of the handler method
      * @param args         method arguments array
      * @param responder    responder object
      * @param httpStreamer streaming handler
      * @throws HandlerException throws when HttpMethodInfo construction is unsuccessful
      */
-    public HttpMethodInfo(Method method,
+    public HttpMethodInfo(ResourceMethodInvoker invoker,
                           Object handler,
                           Object[] args,
                           MultivaluedMap<String, Object> formParameters,
                           Response responder,
                           HttpStreamer httpStreamer) throws HandlerException {
-        this(method, handler, args, formParameters, responder);
+        this(invoker, handler, args, formParameters, responder);
 
-        if (!method.getReturnType().equals(Void.TYPE)) {
+        if (!invoker.getMethod().getReturnType().equals(Void.TYPE)) {
             throw new HandlerException(javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR,
                     "Resource method should be void if it accepts chunked requests");
         }
         try {
-            method.invoke(handler, args);
+            invoker.invoke(handler, this.args);
         } catch (InvocationTargetException e) {
             throw new HandlerException(javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR,
                     "Resource method invocation failed", e.getTargetException());
@@ -121,17 +125,43 @@ public class HttpMethodInfo {
     }
 
     /**
-     * Calls the http resource method.
+     * Calls the http resource method. If the method returns a {@link CompletionStage} or suspends an
+     * {@link javax.ws.rs.container.AsyncResponse}, the response is sent when that completes, from the thread which
+     * completes it, and the calling thread is released right away.
      *
      * @param request original request
      * @param destination matching Destinations for the route
+     * @return stage which completes once the response has been sent
      * @throws Exception if error occurs while invoking the resource method
      */
-    public void invoke(Request request, PatternPathRouter.RoutableDestination<HttpResourceModel> destination)
+    public CompletionStage<Void> invoke(Request request,
+                                        PatternPathRouter.RoutableDestination<HttpResourceModel> destination)
             throws Exception {
-        Object returnVal = method.invoke(handler, args);
+        Object returnVal = invoker.invoke(handler, args);
+        if (asyncResponse != null) {
+            return asyncResponse.getResult()
+                                .thenAccept(this::send)
+                                .whenComplete((result, failure) -> asyncResponse.responseSent(failure));
+        }
         returnVal = invokeSubResource(request, destination, returnVal);
-        responder.setEntity(returnVal);
+        if (returnVal instanceof CompletionStage) {
+            return ((CompletionStage<?>) returnVal).thenAccept(this::send);
+        }
+        send(returnVal);
+        return RESPONSE_SENT;
+    }
+
+    /**
+     * Set the AsyncResponse injected to the resource method, if it takes one.
+     *
+     * @param asyncResponse suspended response of the request
+     */
+    void setAsyncResponse(SuspendedAsyncResponse asyncResponse) {
+        this.asyncResponse = asyncResponse;
+    }
+
+    private void send(Object entity) {
+        responder.setEntity(entity);
         responder.send();
     }
 
@@ -278,7 +308,7 @@ public class HttpMethodInfo {
 
             PatternPathRouter.RoutableDestination<HttpResourceModel> newDestination =
                     new PatternPathRouter.RoutableDestination<>(resourceModel, groupNameValues);
-            Object returnedValue = httpMethodInfo.method.invoke(httpMethodInfo.handler, httpMethodInfo.args);
+            Object returnedValue = httpMethodInfo.invoker.invoke(httpMethodInfo.handler, httpMethodInfo.args);
             return httpMethodInfo.invokeSubResource(request, newDestination, returnedValue);
         }
         return returnVal;
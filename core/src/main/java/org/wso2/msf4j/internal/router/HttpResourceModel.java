@@ -17,6 +17,9 @@
 package org.wso2.msf4j.internal.router;
 
 import org.wso2.msf4j.HttpStreamer;
+import org.wso2.msf4j.Interceptor;
+import org.wso2.msf4j.executor.ExecuteOn;
+import org.wso2.msf4j.internal.cache.CachePolicy;
 import org.wso2.msf4j.formparam.FormDataParam;
 import org.wso2.msf4j.util.Utils;
 
@@ -48,6 +51,7 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 
 /**
@@ -68,6 +72,7 @@ public final class HttpResourceModel {
         supportedAnnotation.add(FormParam.class);
         supportedAnnotation.add(FormDataParam.class);
         supportedAnnotation.add(CookieParam.class);
+        supportedAnnotation.add(Suspended.class);
 
         SUPPORTED_PARAM_ANNOTATIONS = Collections.unmodifiableSet(supportedAnnotation);
     }
@@ -78,8 +83,13 @@ public final class HttpResourceModel {
     private final Set<String> httpMethods;
     private final String path;
     private final Method method;
+    private final ResourceMethodInvoker invoker;
     private final Object handler;
     private final List<ParameterInfo<?>> paramInfoList;
+    private final ParameterBinder[] bindingPlan;
+    private final String executeOn;
+    private final CachePolicy cachePolicy;
+    private volatile InterceptorChain interceptorChain;
     private List<String> consumesMediaTypes;
     private List<String> producesMediaTypes;
     private int isStreamingReqSupported = STREAMING_REQ_UNKNOWN;
@@ -154,9 +164,13 @@ public final class HttpResourceModel {
         this.httpMethods = getHttpMethods(method);
         this.path = path;
         this.method = method;
+        this.invoker = ResourceMethodInvoker.create(method);
         this.handler = handler;
         this.isSubResourceLocator = isSubResourceLocator;
         this.paramInfoList = makeParamInfoList(method);
+        this.bindingPlan = HttpResourceModelProcessor.compileBindingPlan(paramInfoList);
+        this.executeOn = parseExecuteOn();
+        this.cachePolicy = CachePolicy.of(method, handler);
         consumesMediaTypes = parseConsumesMediaTypes();
         producesMediaTypes = parseProducesMediaTypes();
     }
@@ -199,6 +213,13 @@ public final class HttpResourceModel {
         return Arrays.asList(producesMediaTypeArr);
     }
 
+    private String parseExecuteOn() {
+        ExecuteOn executeOnAnnotation = method.isAnnotationPresent(ExecuteOn.class) ?
+                                        method.getAnnotation(ExecuteOn.class) :
+                                        handler.getClass().getAnnotation(ExecuteOn.class);
+        return executeOnAnnotation == null ? null : executeOnAnnotation.value();
+    }
+
     public boolean matchConsumeMediaType(String consumesMediaType) {
         return consumesMediaType == null
                 || consumesMediaType.isEmpty()
@@ -211,9 +232,16 @@ public final class HttpResourceModel {
         return producesMediaTypes == null
                 || producesMediaTypes.contains("*/*")
                 || this.producesMediaTypes.contains("*/*")
-                || this.producesMediaTypes
-                .stream().filter
-                        (producesMediaTypes::contains).findAny().isPresent();
+                || containsAny(this.producesMediaTypes, producesMediaTypes);
+    }
+
+    private static boolean containsAny(List<String> mediaTypes, List<String> candidates) {
+        for (String mediaType : mediaTypes) {
+            if (candidates.contains(mediaType)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -237,6 +265,13 @@ public final class HttpResourceModel {
         return method;
     }
 
+    /**
+     * @return invoker of the handler method, created when this model is constructed.
+     */
+    public ResourceMethodInvoker getInvoker() {
+        return invoker;
+    }
+
     /**
      * @return instance of {@code HttpHandler}.
      */
@@ -382,6 +417,48 @@ public final class HttpResourceModel {
         return paramInfoList;
     }
 
+    /**
+     * @return binders of the handler method parameters, in the order of the parameters.
+     */
+    ParameterBinder[] getBindingPlan() {
+        return bindingPlan;
+    }
+
+    /**
+     * @return name of the executor this resource method should be executed on, or null for the default executor.
+     */
+    public String getExecuteOn() {
+        return executeOn;
+    }
+
+    /**
+     * Get the interceptors which apply to this resource method, in registration order. The chain is built with
+     * {@link Interceptor#appliesTo(Method)} the first time the method is dispatched to, and again only when the
+     * registered interceptors change.
+     *
+     * @param registeredInterceptors interceptors registered with the registry, an array which is replaced rather
+     *                               than modified when interceptors are added or removed
+     * @return interceptors which apply to this resource method, not to be modified
+     */
+    public Interceptor[] getInterceptors(Interceptor[] registeredInterceptors) {
+        InterceptorChain chain = interceptorChain;
+        if (chain == null || chain.registeredInterceptors != registeredInterceptors) {
+            Interceptor[] interceptors = Arrays.stream(registeredInterceptors)
+                                               .filter(interceptor -> interceptor.appliesTo(method))
+                                               .toArray(Interceptor[]::new);
+            chain = new InterceptorChain(registeredInterceptors, interceptors);
+            interceptorChain = chain;
+        }
+        return chain.interceptors;
+    }
+
+    /**
+     * @return caching rules of this resource method, or null if its responses are not cached.
+     */
+    public CachePolicy getCachePolicy() {
+        return cachePolicy;
+    }
+
     public List<String> getConsumesMediaTypes() {
         return consumesMediaTypes;
     }
@@ -390,6 +467,21 @@ public final class HttpResourceModel {
         return producesMediaTypes;
     }
 
+    /**
+     * Interceptors which apply to a resource method, together with the registered interceptors they were selected
+     * from.
+     */
+    private static final class InterceptorChain {
+
+        private final Interceptor[] registeredInterceptors;
+        private final Interceptor[] interceptors;
+
+        private InterceptorChain(Interceptor[] registeredInterceptors, Interceptor[] interceptors) {
+            this.registeredInterceptors = registeredInterceptors;
+            this.interceptors = interceptors;
+        }
+    }
+
     /**
      * A container class to hold information about a handler method parameters.
      * @param <T> type of parameter
@@ -16,25 +16,22 @@
 
 package org.wso2.msf4j.internal.router;
 
-import org.apache.commons.io.FileCleaningTracker;
-import org.apache.commons.io.FileDeleteStrategy;
 import org.wso2.msf4j.HttpStreamer;
 import org.wso2.msf4j.Request;
 import org.wso2.msf4j.Response;
 import org.wso2.msf4j.beanconversion.MediaTypeConverter;
+import org.wso2.msf4j.executor.RequestExecutor;
 import org.wso2.msf4j.formparam.FileInfo;
 import org.wso2.msf4j.formparam.FormDataParam;
 import org.wso2.msf4j.formparam.FormItem;
 import org.wso2.msf4j.formparam.FormParamIterator;
 import org.wso2.msf4j.formparam.exception.FormUploadException;
-import org.wso2.msf4j.formparam.util.StreamUtil;
+import org.wso2.msf4j.internal.MSF4JConstants;
 import org.wso2.msf4j.internal.beanconversion.BeanConverter;
-import org.wso2.msf4j.util.BufferUtil;
+import org.wso2.msf4j.util.CompositeByteBuffer;
 import org.wso2.msf4j.util.QueryStringDecoderUtil;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.annotation.Annotation;
@@ -42,13 +39,10 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -57,6 +51,7 @@ import javax.ws.rs.FormParam;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedHashMap;
@@ -70,13 +65,9 @@ public class HttpResourceModelProcessor {
 
     private final HttpResourceModel httpResourceModel;
     private HttpStreamer httpStreamer;
+    private SuspendedAsyncResponse asyncResponse;
     private MultivaluedMap<String, Object> formParameters = null;
-    private Map<String, String> formParamContentType = new HashMap<>();
-    private static Path tempRepoPath = Paths.get(System.getProperty("java.io.tmpdir"), "msf4jtemp");
-    private Path tmpPathForRequest;
-    // Temp File cleaning thread
-    private static FileCleaningTracker fileCleaningTracker = new FileCleaningTracker();
-    private static final String FILEINFO_POSTFIX = "file.info";
+    private Map<String, List<String>> urlEncodedFormParameters;
 
     public HttpResourceModelProcessor(HttpResourceModel httpResourceModel) {
         this.httpResourceModel = httpResourceModel;
@@ -97,52 +88,21 @@ public class HttpResourceModelProcessor {
                                               Map<String, String> groupValues)
             throws HandlerException {
         try {
-            //Setup args for reflection call
-            List<HttpResourceModel.ParameterInfo<?>> paramInfoList = httpResourceModel.getParamInfoList();
-            Object[] args = new Object[paramInfoList.size()];
-            int idx = 0;
-            for (HttpResourceModel.ParameterInfo<?> paramInfo : paramInfoList) {
-                if (paramInfo.getAnnotation() != null) {
-                    Class<? extends Annotation> annotationType = paramInfo.getAnnotation().annotationType();
-                    if (PathParam.class.isAssignableFrom(annotationType)) {
-                        args[idx] = getPathParamValue((HttpResourceModel.ParameterInfo<String>) paramInfo,
-                                groupValues);
-                    } else if (QueryParam.class.isAssignableFrom(annotationType)) {
-                        args[idx] = getQueryParamValue((HttpResourceModel.ParameterInfo<List<String>>) paramInfo,
-                                request.getUri());
-                    } else if (HeaderParam.class.isAssignableFrom(annotationType)) {
-                        args[idx] = getHeaderParamValue((HttpResourceModel.ParameterInfo<List<String>>) paramInfo,
-                                request);
-                    } else if (CookieParam.class.isAssignableFrom(annotationType)) {
-                        args[idx] = getCookieParamValue((HttpResourceModel.ParameterInfo<String>) paramInfo,
-                                request);
-                    } else if (Context.class.isAssignableFrom(annotationType)) {
-                        args[idx] = getContextParamValue((HttpResourceModel.ParameterInfo<Object>) paramInfo,
-                                request, responder);
-                    } else if (FormParam.class.isAssignableFrom(annotationType)) {
-                        args[idx] = getFormParamValue((HttpResourceModel.ParameterInfo<List<Object>>) paramInfo,
-                                request);
-                    } else if (FormDataParam.class.isAssignableFrom(annotationType)) {
-                        args[idx] = getFormDataParamValue((HttpResourceModel.ParameterInfo<List<Object>>) paramInfo,
-                                request);
-                    } else {
-                        createObject(request, args, idx, paramInfo);
-                    }
-                } else {
-                    // If an annotation is not present the parameter is considered a
-                    // request body data parameter
-                    createObject(request, args, idx, paramInfo);
-                }
-                idx++;
+            ParameterBinder[] bindingPlan = httpResourceModel.getBindingPlan();
+            Object[] args = new Object[bindingPlan.length];
+            for (int idx = 0; idx < bindingPlan.length; idx++) {
+                args[idx] = bindingPlan[idx].bind(this, request, responder, groupValues);
             }
 
             if (httpStreamer == null) {
-                return new HttpMethodInfo(httpResourceModel.getMethod(),
+                HttpMethodInfo httpMethodInfo = new HttpMethodInfo(httpResourceModel.getInvoker(),
                         httpResourceModel.getHttpHandler(),
                         args, formParameters,
                         responder);
+                httpMethodInfo.setAsyncResponse(asyncResponse);
+                return httpMethodInfo;
             } else {
-                return new HttpMethodInfo(httpResourceModel.getMethod(),
+                return new HttpMethodInfo(httpResourceModel.getInvoker(),
                         httpResourceModel.getHttpHandler(),
                         args, formParameters,
                         responder,
@@ -155,163 +115,218 @@ public class HttpResourceModelProcessor {
         }
     }
 
-    private void createObject(Request request, Object[] args, int idx, HttpResourceModel.ParameterInfo<?> paramInfo) {
-        ByteBuffer fullContent = BufferUtil.merge(request.getFullMessageBody());
+    /**
+     * Compile the binders of the given resource method parameters. The type of the parameter annotation, and for
+     * {@link Context} parameters the injected type, is resolved here once instead of for every request.
+     *
+     * @param paramInfoList parameters of the resource method
+     * @return one binder for each parameter, in the order of the parameters
+     */
+    @SuppressWarnings("unchecked")
+    static ParameterBinder[] compileBindingPlan(List<HttpResourceModel.ParameterInfo<?>> paramInfoList) {
+        ParameterBinder[] bindingPlan = new ParameterBinder[paramInfoList.size()];
+        int idx = 0;
+        for (HttpResourceModel.ParameterInfo<?> paramInfo : paramInfoList) {
+            ParameterBinder binder;
+            Class<? extends Annotation> annotationType =
+                    paramInfo.getAnnotation() == null ? null : paramInfo.getAnnotation().annotationType();
+            if (annotationType == null) {
+                // If an annotation is not present the parameter is considered a request body data parameter
+                binder = (processor, request, responder, groupValues) -> processor.createObject(request, paramInfo);
+            } else if (PathParam.class.isAssignableFrom(annotationType)) {
+                HttpResourceModel.ParameterInfo<String> info = (HttpResourceModel.ParameterInfo<String>) paramInfo;
+                binder = (processor, request, responder, groupValues) -> processor.getPathParamValue(info,
+                                                                                                    groupValues);
+            } else if (QueryParam.class.isAssignableFrom(annotationType)) {
+                HttpResourceModel.ParameterInfo<List<String>> info =
+                        (HttpResourceModel.ParameterInfo<List<String>>) paramInfo;
+                binder = (processor, request, responder, groupValues) -> processor.getQueryParamValue(info, request);
+            } else if (HeaderParam.class.isAssignableFrom(annotationType)) {
+                HttpResourceModel.ParameterInfo<List<String>> info =
+                        (HttpResourceModel.ParameterInfo<List<String>>) paramInfo;
+                binder = (processor, request, responder, groupValues) -> processor.getHeaderParamValue(info, request);
+            } else if (CookieParam.class.isAssignableFrom(annotationType)) {
+                HttpResourceModel.ParameterInfo<String> info = (HttpResourceModel.ParameterInfo<String>) paramInfo;
+                binder = (processor, request, responder, groupValues) -> processor.getCookieParamValue(info, request);
+            } else if (Context.class.isAssignableFrom(annotationType)) {
+                binder = compileContextParamBinder((HttpResourceModel.ParameterInfo<Object>) paramInfo);
+            } else if (FormParam.class.isAssignableFrom(annotationType)) {
+                HttpResourceModel.ParameterInfo<List<Object>> info =
+                        (HttpResourceModel.ParameterInfo<List<Object>>) paramInfo;
+                binder = (processor, request, responder, groupValues) -> processor.getFormParamValue(info, request);
+            } else if (FormDataParam.class.isAssignableFrom(annotationType)) {
+                HttpResourceModel.ParameterInfo<List<Object>> info =
+                        (HttpResourceModel.ParameterInfo<List<Object>>) paramInfo;
+                binder = (processor, request, responder, groupValues) -> processor.getFormDataParamValue(info,
+                                                                                                        request);
+            } else if (Suspended.class.isAssignableFrom(annotationType)) {
+                binder = (processor, request, responder, groupValues) -> processor.getAsyncResponse(request);
+            } else {
+                binder = (processor, request, responder, groupValues) -> processor.createObject(request, paramInfo);
+            }
+            bindingPlan[idx++] = binder;
+        }
+        return bindingPlan;
+    }
+
+    private static ParameterBinder compileContextParamBinder(HttpResourceModel.ParameterInfo<Object> paramInfo) {
+        Type paramType = paramInfo.getParameterType();
+        if (paramType instanceof Class) {
+            Class<?> paramClass = (Class<?>) paramType;
+            if (paramClass.isAssignableFrom(Request.class)) {
+                return (processor, request, responder, groupValues) -> request;
+            } else if (paramClass.isAssignableFrom(Response.class)) {
+                return (processor, request, responder, groupValues) -> responder;
+            } else if (paramClass.isAssignableFrom(HttpStreamer.class)) {
+                return (processor, request, responder, groupValues) -> processor.getHttpStreamer();
+            } else if (paramClass.isAssignableFrom(FormParamIterator.class)) {
+                return (processor, request, responder, groupValues) -> new FormParamIterator(request);
+            }
+        } else if (isFormItemIterator(paramType)) {
+            // Iterator<FormItem> streams the parts straight from the request, without buffering them
+            return (processor, request, responder, groupValues) -> new FormParamIterator(request);
+        }
+        return (processor, request, responder, groupValues) -> processor.getContextParamValue(paramInfo, request,
+                                                                                              responder);
+    }
+
+    private static boolean isFormItemIterator(Type paramType) {
+        if (!(paramType instanceof ParameterizedType)) {
+            return false;
+        }
+        ParameterizedType parameterizedType = (ParameterizedType) paramType;
+        return parameterizedType.getRawType() == Iterator.class &&
+               parameterizedType.getActualTypeArguments()[0] == FormItem.class;
+    }
+
+    private Object createObject(Request request, HttpResourceModel.ParameterInfo<?> paramInfo) {
+        CompositeByteBuffer fullContent = new CompositeByteBuffer(request.getFullMessageBody());
         Type paramType = paramInfo.getParameterType();
-        args[idx] =
-                BeanConverter.getConverter((request.getContentType() != null) ? request.getContentType() :
-                        MediaType.WILDCARD).convertToObject(fullContent, paramType);
+        return BeanConverter.getConverter((request.getContentType() != null) ? request.getContentType() :
+                MediaType.WILDCARD).convertToObject(fullContent, paramType);
+    }
+
+    private SuspendedAsyncResponse getAsyncResponse(Request request) {
+        if (asyncResponse == null) {
+            asyncResponse = new SuspendedAsyncResponse(request, (RequestExecutor) request.getProperty(
+                    MSF4JConstants.REQUEST_EXECUTOR));
+        }
+        return asyncResponse;
+    }
+
+    private HttpStreamer getHttpStreamer() {
+        if (httpStreamer == null) {
+            httpStreamer = new HttpStreamer();
+        }
+        return httpStreamer;
     }
 
     private Object getFormDataParamValue(HttpResourceModel.ParameterInfo<List<Object>> paramInfo, Request request)
             throws FormUploadException, IOException {
         Type paramType = paramInfo.getParameterType();
         FormDataParam formDataParam = paramInfo.getAnnotation();
-        if (getFormParameters() == null) {
-            setFormParameters(extractRequestFormParams(request, paramInfo, true));
-        }
-
-        List<Object> parameter = getParameter(formDataParam.value());
+        List<Object> parameter = getFormParameters(request, paramInfo).get(formDataParam.value());
         boolean isNotNull = (parameter != null);
-        if (paramInfo.getConverter() != null) {
-            // We need to skip the conversion for java.io.File types and handle special cases
-            if (paramType instanceof ParameterizedType && isNotNull &&
-                    parameter.get(0).getClass().isAssignableFrom(File.class)) {
-                return parameter;
-            } else if (isNotNull && parameter.get(0).getClass().isAssignableFrom(File.class)) {
-                return parameter.get(0);
-            } else if (MediaType.TEXT_PLAIN.equalsIgnoreCase(formParamContentType.get(formDataParam.value()))) {
-                return paramInfo.convert(parameter);
-            } else if (MediaType.APPLICATION_FORM_URLENCODED.equals(request.getContentType())) {
-                return paramInfo.convert(parameter);
+        FormPart part = (isNotNull && parameter.get(0) instanceof FormPart) ? (FormPart) parameter.get(0) : null;
+        if (part != null) {
+            // Files are only written to disk when the resource method asks for a java.io.File
+            if (paramType == InputStream.class) {
+                // We only support InputStream for a single part. Therefore only get first element from the list
+                return part.openStream();
+            } else if (paramType == FileInfo.class) {
+                return part.isFile() ? part.getFileInfo() : null;
+            } else if (paramType == File.class && part.isFile()) {
+                return part.toFile();
+            } else if (paramType instanceof ParameterizedType && part.isFile()) {
+                List<Object> files = new ArrayList<>(parameter.size());
+                for (Object value : parameter) {
+                    files.add(((FormPart) value).toFile());
+                }
+                return files;
             }
-            // Beans with string constructor
-            return createBean(parameter, formDataParam, paramType, isNotNull);
         }
-        // We only support InputStream for a single file. Therefore only get first element from the list
-        if (paramType == InputStream.class && isNotNull && parameter.get(0).getClass().isAssignableFrom(File.class)) {
-            return new FileInputStream((File) parameter.get(0));
-        } else if (paramType == FileInfo.class) {
-            List<Object> fileInfo = getParameter(formDataParam.value() + FILEINFO_POSTFIX);
-            return fileInfo == null ? null : fileInfo.get(0);
+        List<Object> values = isNotNull ? asStrings(parameter) : null;
+        String mediaType = part == null ? null : part.getMediaType();
+        if (paramInfo.getConverter() != null &&
+            (MediaType.TEXT_PLAIN.equalsIgnoreCase(mediaType) ||
+             MediaType.APPLICATION_FORM_URLENCODED.equals(request.getContentType()))) {
+            return paramInfo.convert(values);
         }
-        // These are beans without having string constructor. Convert using existing BeanConverter
-        return createBean(parameter, formDataParam, paramType, isNotNull);
+        // Beans with or without a string constructor are converted using the existing BeanConverter
+        return createBean(values, mediaType, paramType);
     }
 
     /**
-     * Extract the form items in the request.
+     * Get the form items in the request, which are read only once per request even when several parameters are
+     * bound from them. The values of multipart/form-data items are {@link FormPart}s and the values of
+     * application/x-www-form-urlencoded items are strings.
      *
-     * @param request     Request which need to be processed
-     * @param paramInfo   of the method
-     * @param addFileInfo if FileInfo object needed to be added to params. In a case of InputStream this should be true
+     * @param request   Request which need to be processed
+     * @param paramInfo of the method
      * @return MultivaluedMap of form items
      * @throws IOException if error occurs while processing the multipart/form-data request
      */
-    private MultivaluedMap<String, Object> extractRequestFormParams(Request request,
-                                                                    HttpResourceModel.ParameterInfo paramInfo,
-                                                                    boolean addFileInfo) throws IOException {
-        MultivaluedMap<String, Object> parameters = new MultivaluedHashMap<>();
-        if (MediaType.MULTIPART_FORM_DATA.equals(request.getContentType())) {
-            FormParamIterator formParamIterator = new FormParamIterator(request);
-            while (formParamIterator.hasNext()) {
-                FormItem item = formParamIterator.next();
-
-                String cType = item.getContentType();
-                if (cType != null && cType.contains(";")) {
-                    cType = cType.split(";")[0];
-                }
-                if (cType == null) {
-                    cType = MediaType.TEXT_PLAIN;
-                }
-                boolean isFile = item.getHeaders().getHeader("content-disposition").contains("filename") ||
-                        MediaType.APPLICATION_OCTET_STREAM.equals(item.getHeaders().getHeader("content-type"));
-                formParamContentType.putIfAbsent(item.getFieldName(), cType);
-
-                List<Object> existingValues = parameters.get(item.getFieldName());
-                if (existingValues == null) {
-                    parameters.put(item.getFieldName(),
-                            isFile ? new ArrayList<>(Collections.singletonList(createAndTrackTempFile(item))) :
-                                    new ArrayList<>(Collections.singletonList(StreamUtil.asString(item.openStream()))));
-                } else {
-                    existingValues.add(isFile ? createAndTrackTempFile(item) : StreamUtil.asString(item.openStream()));
-                }
-
-                if (addFileInfo && isFile) {
-                    //Create FileInfo bean to handle InputStream
-                    FileInfo fileInfo = new FileInfo();
-                    fileInfo.setFileName(item.getName());
-                    fileInfo.setContentType(item.getContentType());
-                    parameters.putSingle(item.getFieldName() + FILEINFO_POSTFIX, fileInfo);
+    private MultivaluedMap<String, Object> getFormParameters(Request request,
+                                                             HttpResourceModel.ParameterInfo<?> paramInfo)
+            throws IOException {
+        if (formParameters == null) {
+            MultivaluedMap<String, Object> parameters = new MultivaluedHashMap<>();
+            if (MediaType.MULTIPART_FORM_DATA.equals(request.getContentType())) {
+                RequestTempStorage storage = RequestTempStorage.of(request);
+                FormParamIterator formParamIterator = new FormParamIterator(request);
+                while (formParamIterator.hasNext()) {
+                    FormPart part = FormPart.read(formParamIterator.next(), storage);
+                    parameters.add(part.getFieldName(), part);
                 }
+            } else if (MediaType.APPLICATION_FORM_URLENCODED.equals(request.getContentType())) {
+                getUrlEncodedFormParameters(request, paramInfo).entrySet().
+                        forEach(entry -> parameters.put(entry.getKey(), new ArrayList<>(entry.getValue())));
             }
-        } else if (MediaType.APPLICATION_FORM_URLENCODED.equals(request.getContentType())) {
-            ByteBuffer fullContent = BufferUtil.merge(request.getFullMessageBody());
-            String bodyStr = BeanConverter
-                    .getConverter((request.getContentType() != null) ? request.getContentType() : MediaType.WILDCARD)
-                    .convertToObject(fullContent, paramInfo.getParameterType()).toString();
-            QueryStringDecoderUtil queryStringDecoderUtil = new QueryStringDecoderUtil(bodyStr, false);
-            queryStringDecoderUtil.parameters().entrySet().
-                    forEach(entry -> parameters.put(entry.getKey(), new ArrayList<>(entry.getValue())));
+            setFormParameters(parameters);
+        }
+        return formParameters;
+    }
+
+    private static List<Object> asStrings(List<Object> values) throws IOException {
+        List<Object> strings = new ArrayList<>(values.size());
+        for (Object value : values) {
+            strings.add(value instanceof FormPart ? ((FormPart) value).asString() : value);
         }
-        return parameters;
+        return strings;
     }
 
-    private Object createBean(List<Object> parameter, FormDataParam formDataParam, Type paramType, boolean isNotNull) {
-        if (isNotNull) {
-            MediaTypeConverter converter = BeanConverter.getConverter(formParamContentType.get(formDataParam.value()));
+    private Object createBean(List<Object> parameter, String mediaType, Type paramType) {
+        if (parameter != null) {
+            MediaTypeConverter converter = BeanConverter.getConverter(mediaType);
             ByteBuffer value = ByteBuffer.wrap(parameter.get(0).toString().getBytes(Charset.defaultCharset()));
             return converter.convertToObject(value, paramType);
         }
         return null;
     }
 
-    private File createAndTrackTempFile(FormItem item) throws IOException {
-        if (tmpPathForRequest == null) {
-            if (Files.notExists(tempRepoPath)) {
-                Files.createDirectory(tempRepoPath);
-            }
-            tmpPathForRequest = Files.createTempDirectory(tempRepoPath, "tmp");
+    /**
+     * Decode the application/x-www-form-urlencoded body of the request. The body is decoded only once per request
+     * even when several parameters are bound from it.
+     */
+    private Map<String, List<String>> getUrlEncodedFormParameters(Request request,
+                                                                  HttpResourceModel.ParameterInfo<?> paramInfo) {
+        if (urlEncodedFormParameters == null) {
+            CompositeByteBuffer fullContent = new CompositeByteBuffer(request.getFullMessageBody());
+            String bodyStr = BeanConverter.getConverter(
+                    (request.getContentType() != null) ? request.getContentType() : MediaType.WILDCARD)
+                    .convertToObject(fullContent, paramInfo.getParameterType()).toString();
+            urlEncodedFormParameters = new QueryStringDecoderUtil(bodyStr, false).parameters();
         }
-        Path path = Paths.get(tmpPathForRequest.toString(), item.getName());
-        File file = path.toFile();
-        StreamUtil.copy(item.openStream(), new FileOutputStream(file), true);
-        fileCleaningTracker.track(file, file);
-        fileCleaningTracker.track(tmpPathForRequest.toFile(), file, FileDeleteStrategy.FORCE);
-        return file;
+        return urlEncodedFormParameters;
     }
 
     private Object getFormParamValue(HttpResourceModel.ParameterInfo<List<Object>> paramInfo, Request request)
             throws FormUploadException, IOException {
         FormParam formParam = paramInfo.getAnnotation();
-        if (getFormParameters() == null) {
-            MultivaluedMap<String, Object> parameters = new MultivaluedHashMap<>();
-            if (MediaType.MULTIPART_FORM_DATA.equals(request.getContentType())) {
-                FormParamIterator formParamIterator = new FormParamIterator(request);
-                while (formParamIterator.hasNext()) {
-                    FormItem item = formParamIterator.next();
-                    List<Object> existingValues = parameters.get(item.getFieldName());
-                    if (existingValues == null) {
-                        parameters.put(item.getFieldName(), new ArrayList<>(
-                                Collections.singletonList(StreamUtil.asString(item.openStream()))));
-                    } else {
-                        existingValues.add(StreamUtil.asString(item.openStream()));
-                    }
-                }
-            } else if (MediaType.APPLICATION_FORM_URLENCODED.equals(request.getContentType())) {
-                ByteBuffer fullContent = BufferUtil.merge(request.getFullMessageBody());
-                String bodyStr = BeanConverter.getConverter(
-                        (request.getContentType() != null) ? request.getContentType() : MediaType.WILDCARD)
-                        .convertToObject(fullContent, paramInfo.getParameterType()).toString();
-                QueryStringDecoderUtil queryStringDecoderUtil = new QueryStringDecoderUtil(bodyStr, false);
-                queryStringDecoderUtil.parameters().entrySet().
-                        forEach(entry -> parameters.put(entry.getKey(), new ArrayList<>(entry.getValue())));
-            }
-            setFormParameters(parameters);
-        }
-
-        List<Object> paramValue = getParameter(formParam.value());
-        if (paramValue == null) {
+        List<Object> paramValue = getFormParameters(request, paramInfo).get(formParam.value());
+        if (paramValue != null) {
+            paramValue = asStrings(paramValue);
+        } else {
             String defaultVal = paramInfo.getDefaultVal();
             if (defaultVal != null) {
                 paramValue = Collections.singletonList(defaultVal);
@@ -330,25 +345,23 @@ public class HttpResourceModelProcessor {
         } else if (((Class) paramType).isAssignableFrom(Response.class)) {
             value = responder;
         } else if (((Class) paramType).isAssignableFrom(HttpStreamer.class)) {
-            if (httpStreamer == null) {
-                httpStreamer = new HttpStreamer();
-            }
-            value = httpStreamer;
+            value = getHttpStreamer();
         } else if (((Class) paramType).isAssignableFrom(FormParamIterator.class)) {
             value = new FormParamIterator(request);
         } else if (((Class) paramType).isAssignableFrom(MultivaluedMap.class)) {
+            // Files are handed out as java.io.File and the other items as strings
             MultivaluedMap<String, Object> listMultivaluedMap = new MultivaluedHashMap<>();
-            if (MediaType.MULTIPART_FORM_DATA.equals(request.getContentType())) {
-                listMultivaluedMap = extractRequestFormParams(request, paramInfo, false);
-            } else if (MediaType.APPLICATION_FORM_URLENCODED.equals(request.getContentType())) {
-                ByteBuffer fullContent = BufferUtil.merge(request.getFullMessageBody());
-                String bodyStr = BeanConverter.getConverter(
-                        (request.getContentType() != null) ? request.getContentType() : MediaType.WILDCARD)
-                        .convertToObject(fullContent, paramInfo.getParameterType()).toString();
-                QueryStringDecoderUtil queryStringDecoderUtil = new QueryStringDecoderUtil(bodyStr, false);
-                MultivaluedMap<String, Object> finalListMultivaluedMap = listMultivaluedMap;
-                queryStringDecoderUtil.parameters().entrySet().
-                        forEach(entry -> finalListMultivaluedMap.put(entry.getKey(), new ArrayList(entry.getValue())));
+            for (Map.Entry<String, List<Object>> entry : getFormParameters(request, paramInfo).entrySet()) {
+                List<Object> values = new ArrayList<>(entry.getValue().size());
+                for (Object item : entry.getValue()) {
+                    if (item instanceof FormPart) {
+                        FormPart part = (FormPart) item;
+                        values.add(part.isFile() ? part.toFile() : part.asString());
+                    } else {
+                        values.add(item);
+                    }
+                }
+                listMultivaluedMap.put(entry.getKey(), values);
             }
             value = listMultivaluedMap;
         }
@@ -371,9 +384,9 @@ public class HttpResourceModelProcessor {
     }
 
     @SuppressWarnings("unchecked")
-    private Object getQueryParamValue(HttpResourceModel.ParameterInfo<List<String>> info, String uri) {
+    private Object getQueryParamValue(HttpResourceModel.ParameterInfo<List<String>> info, Request request) {
         QueryParam queryParam = info.getAnnotation();
-        List<String> values = new QueryStringDecoderUtil(uri).parameters().get(queryParam.value());
+        List<String> values = request.getQueryParameter(queryParam.value());
         if (values == null || values.isEmpty()) {
             String defaultVal = info.getDefaultVal();
             if (defaultVal != null) {
@@ -413,14 +426,6 @@ public class HttpResourceModelProcessor {
         return null;
     }
 
-    /**
-     * @param key parameter name.
-     * @return parameter value of the given key.
-     */
-    private List<Object> getParameter(String key) {
-        return formParameters.get(key);
-    }
-
     /**
      * @return Map of request formParameters
      */
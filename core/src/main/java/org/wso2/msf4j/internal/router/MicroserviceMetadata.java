@@ -18,16 +18,15 @@ package org.wso2.msf4j.internal.router;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.wso2.msf4j.util.Utils;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
+import java.util.Optional;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.ws.rs.DELETE;
@@ -46,8 +45,12 @@ import javax.ws.rs.core.Response;
 public final class MicroserviceMetadata {
 
     private static final Logger log = LoggerFactory.getLogger(MicroserviceMetadata.class);
+    private static final String SUB_RESOURCE_LOCATOR_KEY_SUFFIX = " (sub-resource locator)";
+    // Characters, other than letters and digits, which may appear in a uri without being escaped
+    private static final String URI_PUNCTUATION = "-._~!$&'()*+,;=:@/";
 
-    private final PatternPathRouter<HttpResourceModel> patternRouter = PatternPathRouter.create();
+    private final PatternPathRouter<ResourceDispatchTable> patternRouter = PatternPathRouter.create();
+    private final Map<String, ResourceDispatchTable> dispatchTables = new HashMap<>();
 
     /**
      * Construct HttpResourceHandler. Reads all annotations from all the handler classes and methods passed in,
@@ -75,7 +78,7 @@ public final class MicroserviceMetadata {
                         relativePath = method.getAnnotation(Path.class).value();
                     }
                     String absolutePath = String.format("%s/%s", basePath, relativePath);
-                    patternRouter.add(absolutePath, new HttpResourceModel(absolutePath, method, service, false));
+                    addResourceModel(new HttpResourceModel(absolutePath, method, service, false));
                 } else if (Modifier.isPublic(method.getModifiers()) && method.getAnnotation(Path.class) != null) {
                     // Sub resource locator method
                     String relativePath = method.getAnnotation(Path.class).value();
@@ -83,7 +86,7 @@ public final class MicroserviceMetadata {
                         relativePath = relativePath.substring(1);
                     }
                     String absolutePath = String.format("%s/%s", basePath, relativePath);
-                    patternRouter.add(absolutePath, new HttpResourceModel(absolutePath, method, service, true));
+                    addResourceModel(new HttpResourceModel(absolutePath, method, service, true));
                 } else {
                     log.trace("Not adding method {}({}) to path routing like. " +
                                     "HTTP calls will not be routed to this method",
@@ -113,7 +116,7 @@ public final class MicroserviceMetadata {
                     relativePath = method.getAnnotation(Path.class).value();
                 }
                 String absolutePath = String.format("%s/%s", basePath, relativePath);
-                patternRouter.add(absolutePath, new HttpResourceModel(absolutePath, method, service, false));
+                addResourceModel(new HttpResourceModel(absolutePath, method, service, false));
             } else {
                 log.trace("Not adding method {}({}) to path routing like. " +
                           "HTTP calls will not be routed to this method", method.getName(), method.getParameterTypes());
@@ -122,6 +125,22 @@ public final class MicroserviceMetadata {
 
     }
 
+    /**
+     * Add the resource model to the dispatch table of its path, creating and routing the table if this is the first
+     * resource model with that path.
+     */
+    private void addResourceModel(HttpResourceModel resourceModel) {
+        String key = resourceModel.isSubResourceLocator() ? resourceModel.getPath() + SUB_RESOURCE_LOCATOR_KEY_SUFFIX :
+                     resourceModel.getPath();
+        ResourceDispatchTable dispatchTable = dispatchTables.get(key);
+        if (dispatchTable == null) {
+            dispatchTable = new ResourceDispatchTable(resourceModel.getPath(), resourceModel.isSubResourceLocator());
+            dispatchTables.put(key, dispatchTable);
+            patternRouter.add(dispatchTable.getPath(), dispatchTable, dispatchTable.isSubResourceLocator());
+        }
+        dispatchTable.add(resourceModel);
+    }
+
     private boolean isHttpMethodAvailable(Method method) {
         return method.isAnnotationPresent(GET.class) ||
                 method.isAnnotationPresent(PUT.class) ||
@@ -149,116 +168,136 @@ public final class MicroserviceMetadata {
                                                                          String contentTypeHeader,
                                                                          List<String> acceptHeader)
             throws HandlerException {
-        try {
-            String path = URI.create(uri).normalize().getPath();
+        String path = getRequestPath(uri);
 
-            List<PatternPathRouter.RoutableDestination<HttpResourceModel>>
-                    routableDestinations = patternRouter.getDestinations(path);
+        List<PatternPathRouter.RoutableDestination<ResourceDispatchTable>>
+                routableDestinations = patternRouter.getDestinations(path);
 
-            List<PatternPathRouter.RoutableDestination<HttpResourceModel>>
-                    matchedDestinations = getMatchedDestination(routableDestinations, httpMethod, path);
+        List<PatternPathRouter.RoutableDestination<ResourceDispatchTable>>
+                matchedDestinations = getMatchedDestination(routableDestinations, httpMethod, path);
 
-            if (!matchedDestinations.isEmpty()) {
-                if (matchedDestinations.size() == 1) {
-                    return matchedDestinations.stream().filter(matchedDestination1 ->
-                                                                       matchedDestination1.getDestination()
-                                                                                          .matchConsumeMediaType(
-                                                                                                  contentTypeHeader) &&
-                                                                       matchedDestination1.getDestination()
-                                                                                          .matchProduceMediaType(
-                                                                                                  acceptHeader))
-                                              .findFirst().get();
-                } else {
-                    return matchedDestinations.stream().filter(matchedDestination1 ->
-                                                                       matchedDestination1.getDestination()
-                                                                                          .matchConsumeMediaType(
-                                                                                                  contentTypeHeader) &&
-                                                                       matchedDestination1.getDestination()
-                                                                                          .matchProduceMediaType(
-                                                                                                  acceptHeader))
-                                              .filter(destination -> destination.getDestination().getHttpHandler()
-                                                                                .getClass() ==
-                                                                     destination.getDestination().getMethod()
-                                                                                .getDeclaringClass()).findFirst().get();
+        if (!matchedDestinations.isEmpty()) {
+            if (matchedDestinations.size() == 1) {
+                PatternPathRouter.RoutableDestination<ResourceDispatchTable> matchedDestination =
+                        matchedDestinations.get(0);
+                Optional<HttpResourceModel> resourceModel = matchedDestination.getDestination()
+                        .negotiate(httpMethod, contentTypeHeader, acceptHeader);
+                if (resourceModel.isPresent()) {
+                    return new PatternPathRouter.RoutableDestination<>(resourceModel.get(),
+                                                                       matchedDestination.getGroupNameValues());
                 }
-            } else if (!routableDestinations.isEmpty()) {
-                //Found a matching resource but could not find the right HttpMethod so return 405
-                throw new HandlerException(Response.Status.METHOD_NOT_ALLOWED, uri);
             } else {
-                throw new HandlerException(Response.Status.NOT_FOUND,
-                        String.format("Problem accessing: %s. Reason: Not Found", uri));
+                // Several path templates are equally good, so pick among the resource models of all of them
+                List<HttpResourceModel> resourceModels = new ArrayList<>();
+                Map<HttpResourceModel, Map<String, String>> groupNameValues = new HashMap<>();
+                for (PatternPathRouter.RoutableDestination<ResourceDispatchTable> destination : matchedDestinations) {
+                    for (HttpResourceModel resourceModel : destination.getDestination().getResourceModels(httpMethod)) {
+                        resourceModels.add(resourceModel);
+                        groupNameValues.putIfAbsent(resourceModel, destination.getGroupNameValues());
+                    }
+                }
+                Optional<HttpResourceModel> resourceModel =
+                        ResourceDispatchTable.select(resourceModels, contentTypeHeader, acceptHeader);
+                if (resourceModel.isPresent()) {
+                    return new PatternPathRouter.RoutableDestination<>(resourceModel.get(),
+                                                                       groupNameValues.get(resourceModel.get()));
+                }
             }
-        } catch (NoSuchElementException ex) {
             throw new HandlerException(Response.Status.UNSUPPORTED_MEDIA_TYPE,
-                    String.format("Problem accessing: %s. Reason: Unsupported Media Type", uri), ex);
+                    String.format("Problem accessing: %s. Reason: Unsupported Media Type", uri));
+        } else if (!routableDestinations.isEmpty()) {
+            //Found a matching resource but could not find the right HttpMethod so return 405
+            throw new HandlerException(Response.Status.METHOD_NOT_ALLOWED, uri);
+        } else {
+            throw new HandlerException(Response.Status.NOT_FOUND,
+                    String.format("Problem accessing: %s. Reason: Not Found", uri));
         }
     }
 
     /**
-     * Get HttpResourceModel which matches the HttpMethod of the request.
+     * Get the normalized path of the request uri. Plain paths are sliced out of the uri as they are, anything which
+     * needs decoding or normalizing goes through {@link URI}.
      *
-     * @param routableDestinations List of ResourceModels.
+     * @param uri request uri
+     * @return path of the request uri
+     */
+    static String getRequestPath(String uri) {
+        int length = uri.length();
+        if (length == 0 || uri.charAt(0) != '/' || uri.startsWith("//") || uri.contains("/.")) {
+            return URI.create(uri).normalize().getPath();
+        }
+        int pathEnd = length;
+        for (int i = 0; i < length; i++) {
+            char c = uri.charAt(i);
+            if (c == '?' && pathEnd == length) {
+                pathEnd = i;
+            } else if (c == '%' && pathEnd == length) {
+                // Escaped octets in the path are decoded by URI
+                return URI.create(uri).normalize().getPath();
+            } else if (c == '%') {
+                if (i + 2 >= length || Character.digit(uri.charAt(i + 1), 16) < 0 ||
+                    Character.digit(uri.charAt(i + 2), 16) < 0) {
+                    // Let URI report the malformed escape
+                    return URI.create(uri).normalize().getPath();
+                }
+            } else if (!isUriChar(c) && !(c == '?' && pathEnd < length)) {
+                return URI.create(uri).normalize().getPath();
+            }
+        }
+        return uri.substring(0, pathEnd);
+    }
+
+    private static boolean isUriChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
+               URI_PUNCTUATION.indexOf(c) >= 0;
+    }
+
+    /**
+     * Get the dispatch tables which have a resource method for the HttpMethod of the request.
+     *
+     * @param routableDestinations List of dispatch tables matching the path.
      * @param targetHttpMethod     HttpMethod.
      * @param requestUri           request URI.
-     * @return RoutableDestination that matches httpMethod that needs to be handled. null if there are no matches.
+     * @return RoutableDestinations that match httpMethod that needs to be handled. empty if there are no matches.
      */
-    private List<PatternPathRouter.RoutableDestination<HttpResourceModel>>
-    getMatchedDestination(List<PatternPathRouter.RoutableDestination<HttpResourceModel>> routableDestinations,
+    private List<PatternPathRouter.RoutableDestination<ResourceDispatchTable>>
+    getMatchedDestination(List<PatternPathRouter.RoutableDestination<ResourceDispatchTable>> routableDestinations,
                           String targetHttpMethod, String requestUri) {
 
-        Iterable<String> requestUriParts = Collections.unmodifiableList(Utils.split(requestUri, "/", true));
-        List<PatternPathRouter.RoutableDestination<HttpResourceModel>> matchedDestinations =
+        List<PatternPathRouter.RoutableDestination<ResourceDispatchTable>> matchedDestinations =
                 new ArrayList<>(routableDestinations.size());
         int maxExactMatch = 0;
         int maxGroupMatch = 0;
         int maxPatternLength = 0;
 
-        for (PatternPathRouter.RoutableDestination<HttpResourceModel> destination : routableDestinations) {
-            HttpResourceModel resourceModel = destination.getDestination();
+        for (PatternPathRouter.RoutableDestination<ResourceDispatchTable> destination : routableDestinations) {
+            ResourceDispatchTable dispatchTable = destination.getDestination();
             int groupMatch = destination.getGroupNameValues().size();
 
-            for (String httpMethod : resourceModel.getHttpMethod()) {
-                if (targetHttpMethod.equals(httpMethod)) {
-                    int exactMatch = getExactPrefixMatchCount(requestUriParts, Collections
-                            .unmodifiableList(Utils.split(resourceModel.getPath(), "/", true)));
+            if (dispatchTable.hasMethod(targetHttpMethod)) {
+                int exactMatch = dispatchTable.getExactPrefixMatchCount(requestUri);
 
-                    // When there are multiple matches present, the following precedence order is used -
-                    // 1. template path that has highest exact prefix match with the url is chosen.
-                    // 2. template path has the maximum groups is chosen.
-                    // 3. finally, template path that has the longest length is chosen.
-                    if (exactMatch > maxExactMatch) {
-                        maxExactMatch = exactMatch;
-                        maxGroupMatch = groupMatch;
-                        maxPatternLength = resourceModel.getPath().length();
+                // When there are multiple matches present, the following precedence order is used -
+                // 1. template path that has highest exact prefix match with the url is chosen.
+                // 2. template path has the maximum groups is chosen.
+                // 3. finally, template path that has the longest length is chosen.
+                if (exactMatch > maxExactMatch) {
+                    maxExactMatch = exactMatch;
+                    maxGroupMatch = groupMatch;
+                    maxPatternLength = dispatchTable.getPath().length();
 
+                    matchedDestinations.clear();
+                    matchedDestinations.add(destination);
+                } else if (exactMatch == maxExactMatch && groupMatch >= maxGroupMatch) {
+                    if (groupMatch > maxGroupMatch || dispatchTable.getPath().length() > maxPatternLength) {
+                        maxGroupMatch = groupMatch;
+                        maxPatternLength = dispatchTable.getPath().length();
                         matchedDestinations.clear();
-                        matchedDestinations.add(destination);
-                    } else if (exactMatch == maxExactMatch && groupMatch >= maxGroupMatch) {
-                        if (groupMatch > maxGroupMatch || resourceModel.getPath().length() > maxPatternLength) {
-                            maxGroupMatch = groupMatch;
-                            maxPatternLength = resourceModel.getPath().length();
-                            matchedDestinations.clear();
-                        }
-                        matchedDestinations.add(destination);
                     }
+                    matchedDestinations.add(destination);
                 }
             }
         }
         return matchedDestinations;
     }
-
-    /**
-     * @return the number of path components that match from left to right.
-     */
-    private int getExactPrefixMatchCount(Iterable<String> first, Iterable<String> second) {
-        int count = 0;
-        for (Iterator<String> fit = first.iterator(), sit = second.iterator(); fit.hasNext() && sit.hasNext(); ) {
-            if (fit.next().equals(sit.next())) {
-                ++count;
-            } else {
-                break;
-            }
-        }
-        return count;
-    }
 }
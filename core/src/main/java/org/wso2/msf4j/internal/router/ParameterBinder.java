@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.msf4j.internal.router;
+
+import org.wso2.msf4j.Request;
+import org.wso2.msf4j.Response;
+
+import java.util.Map;
+
+/**
+ * Extracts the value of a single resource method parameter from a request. The binders of a resource method are
+ * created once by {@link HttpResourceModelProcessor#compileBindingPlan(java.util.List)} and shared by all the
+ * requests dispatched to it, so they must not hold any request state.
+ */
+@FunctionalInterface
+interface ParameterBinder {
+
+    /**
+     * @param processor   processor holding the state of the current request, e.g. the parsed form parameters
+     * @param request     request being dispatched
+     * @param responder   response of the request
+     * @param groupValues path parameter values of the request
+     * @return value of the parameter
+     * @throws Exception if the value cannot be extracted
+     */
+    Object bind(HttpResourceModelProcessor processor, Request request, Response responder,
+                Map<String, String> groupValues) throws Exception;
+}
@@ -20,6 +20,7 @@ import org.wso2.msf4j.util.Utils;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +30,12 @@ import java.util.regex.Pattern;
 /**
  * Matches incoming un-matched paths to destinations. Designed to be used for routing URI paths to http resources.
  * Parameters within braces "{}" are treated as template parameter (a named wild-card pattern).
+ * <p>
+ * Routes are compiled in to a segment trie. Literal segments and plain template parameters are resolved by walking
+ * the trie one path segment at a time, so the cost of a lookup depends on the depth of the path rather than on the
+ * number of registered routes. A route segment that needs a regular expression (a "**" wild card, a template
+ * parameter with a custom pattern or a literal containing regex meta characters) is attached to the trie node of its
+ * longest simple prefix and only the remainder of the path is matched against it.
  *
  * @param <T> represents the destination of the routes.
  */
@@ -43,15 +50,21 @@ public final class PatternPathRouter<T> {
 
     private static final Pattern VARIABLE_PATTERN = Pattern.compile("(\\w[-\\w\\.]*[ ]*)(\\:(.+))?");
 
+    // Literal segments having any of these characters are matched as regular expressions.
+    private static final Pattern REGEX_META_CHARS = Pattern.compile(".*[\\\\.\\[\\]{}()*+?^$|].*");
+
     private static final String PATH_SLASH = "/";
+    private static final char PATH_SLASH_CHAR = '/';
+    private static final String[] ROOT_PARTS = new String[]{""};
 
-    private final List<ImmutablePair<Pattern, RouteDestinationWithGroups>> patternRouteList;
+    private final TrieNode root = new TrieNode();
+    private final List<Route> subResourceLocatorRoutes = new ArrayList<>();
+    private int routeCount;
 
     /**
      * Initialize PatternPathRouter.
      */
     public PatternPathRouter() {
-        this.patternRouteList = new ArrayList<>();
     }
 
     public static <T> PatternPathRouter<T> create() {
@@ -65,6 +78,20 @@ public final class PatternPathRouter<T> {
      * @param destination Destination of the path.
      */
     public void add(final String source, final T destination) {
+        add(source, destination,
+            destination instanceof HttpResourceModel && ((HttpResourceModel) destination).isSubResourceLocator());
+    }
+
+    /**
+     * Add a source and destination.
+     *
+     * @param source             Source path to be routed. Routed path can have named wild-card pattern with braces
+     *                           "{}".
+     * @param destination        Destination of the path.
+     * @param subResourceLocator true if the destination should also match paths below the source path when no other
+     *                           route matches.
+     */
+    public void add(final String source, final T destination, boolean subResourceLocator) {
 
         // replace multiple slashes with a single slash.
         String path = source.replaceAll("/+", PATH_SLASH);
@@ -74,25 +101,72 @@ public final class PatternPathRouter<T> {
 
 
         String[] parts = path.split(PATH_SLASH);
-        StringBuilder sb = new StringBuilder();
-        List<String> groupNames = new ArrayList<>();
+        if (parts.length == 0) {
+            // "/" is matched by the empty path, which is a single empty segment
+            parts = ROOT_PARTS;
+        }
+        PathPart[] pathParts = new PathPart[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            pathParts[i] = createPathPart(parts[i]);
+        }
 
-        for (String part : parts) {
-            Matcher groupMatcher = GROUP_PATTERN.matcher(part);
-            if (groupMatcher.matches()) {
-                PathPart pathPart = createPathPart(groupMatcher.group(1));
+        // Compiling the whole path validates the template and is needed for sub-resource locators
+        Pattern pattern = compile(pathParts, 0);
+        List<String> groupNames = new ArrayList<>();
+        for (PathPart pathPart : pathParts) {
+            if (pathPart.getType() == PathPart.PARAM || pathPart.getType() == PathPart.REGEX_PARAM) {
                 groupNames.add(pathPart.getName());
-                if (pathPart.getPattern() != null) {
-                    sb.append('(');
-                    sb.append(pathPart.getPattern());
-                    sb.append(')');
-                } else {
-                    sb.append("([^/]+?)");
+            }
+        }
+
+        TrieNode node = root;
+        int depth = 0;
+        int trieGroupCount = 0;
+        while (depth < pathParts.length) {
+            PathPart pathPart = pathParts[depth];
+            if (pathPart.getType() == PathPart.LITERAL) {
+                node = node.literalChildren.computeIfAbsent(pathPart.getName(), key -> new TrieNode());
+            } else if (pathPart.getType() == PathPart.PARAM) {
+                if (node.paramChild == null) {
+                    node.paramChild = new TrieNode();
                 }
-            } else if (WILD_CARD_PATTERN.matcher(part).matches()) {
+                node = node.paramChild;
+                trieGroupCount++;
+            } else {
+                break;
+            }
+            depth++;
+        }
+
+        Route route = new Route(routeCount++, destination, Collections.unmodifiableList(groupNames), trieGroupCount,
+                                pattern);
+        if (depth == pathParts.length) {
+            node.routes.add(route);
+        } else {
+            route.remainderPattern = compile(pathParts, depth);
+            node.fallbackRoutes.add(route);
+        }
+        if (subResourceLocator) {
+            route.subResourcePattern = Pattern.compile(pattern.pattern() + ".*");
+            subResourceLocatorRoutes.add(route);
+        }
+    }
+
+    /**
+     * Builds the regular expression for the path parts starting from the given index.
+     */
+    private static Pattern compile(PathPart[] pathParts, int from) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < pathParts.length; i++) {
+            PathPart pathPart = pathParts[i];
+            if (pathPart.getType() == PathPart.WILD_CARD) {
                 sb.append(".*?");
+            } else if (pathPart.getType() == PathPart.LITERAL || pathPart.getType() == PathPart.REGEX_LITERAL) {
+                sb.append(pathPart.getName());
             } else {
-                sb.append(part);
+                sb.append('(');
+                sb.append(pathPart.getPattern() != null ? pathPart.getPattern() : "[^/]+?");
+                sb.append(')');
             }
             sb.append(PATH_SLASH);
         }
@@ -101,22 +175,30 @@ public final class PatternPathRouter<T> {
         if (sb.length() > 0) {
             sb.setLength(sb.length() - 1);
         }
-
-        Pattern pattern = Pattern.compile(sb.toString());
-        patternRouteList.add(ImmutablePair.of(pattern, new RouteDestinationWithGroups(destination, groupNames)));
+        return Pattern.compile(sb.toString());
     }
 
-    private static PathPart createPathPart(String uriChunk) {
+    private static PathPart createPathPart(String part) {
         PathPart pathPart = new PathPart();
-        uriChunk = stripBraces(uriChunk).trim();
-        Matcher matcher = VARIABLE_PATTERN.matcher(uriChunk);
-        if (matcher.matches()) {
-            pathPart.setName(matcher.group(1).trim());
-            if (matcher.group(2) != null && matcher.group(3) != null) {
-                pathPart.setPattern(matcher.group(3).trim());
+        Matcher groupMatcher = GROUP_PATTERN.matcher(part);
+        if (groupMatcher.matches()) {
+            String uriChunk = stripBraces(groupMatcher.group(1)).trim();
+            Matcher matcher = VARIABLE_PATTERN.matcher(uriChunk);
+            pathPart.setType(PathPart.PARAM);
+            if (matcher.matches()) {
+                pathPart.setName(matcher.group(1).trim());
+                if (matcher.group(2) != null && matcher.group(3) != null) {
+                    pathPart.setPattern(matcher.group(3).trim());
+                    pathPart.setType(PathPart.REGEX_PARAM);
+                }
+            } else {
+                pathPart.setName(uriChunk);
             }
+        } else if (WILD_CARD_PATTERN.matcher(part).matches()) {
+            pathPart.setType(PathPart.WILD_CARD);
         } else {
-            pathPart.setName(uriChunk);
+            pathPart.setName(part);
+            pathPart.setType(REGEX_META_CHARS.matcher(part).matches() ? PathPart.REGEX_LITERAL : PathPart.LITERAL);
         }
         return pathPart;
     }
@@ -130,8 +212,11 @@ public final class PatternPathRouter<T> {
      * Represents Paths parts.
      */
     private static class PathPart {
+        static final int LITERAL = 0, REGEX_LITERAL = 1, PARAM = 2, REGEX_PARAM = 3, WILD_CARD = 4;
+
         private String name;
         private String pattern;
+        private int type;
 
         public String getPattern() {
             return pattern;
@@ -148,6 +233,14 @@ public final class PatternPathRouter<T> {
         public void setName(String name) {
             this.name = name;
         }
+
+        public int getType() {
+            return type;
+        }
+
+        public void setType(int type) {
+            this.type = type;
+        }
     }
 
     /**
@@ -162,46 +255,93 @@ public final class PatternPathRouter<T> {
         String cleanPath = (path.endsWith(PATH_SLASH) && path.length() > 0)
                 ? path.substring(0, path.length() - 1) : path;
 
-        List<RoutableDestination<T>> result = new ArrayList<>();
-
-        for (ImmutablePair<Pattern, RouteDestinationWithGroups> patternRoute : patternRouteList) {
-            Map<String, String> groupNameValues = new HashMap<>();
-            Matcher matcher = patternRoute.getFirst().matcher(cleanPath);
-            if (matcher.matches()) {
-                int matchIndex = 1;
-                for (String name : patternRoute.getSecond().getGroupNames()) {
-                    String value = matcher.group(matchIndex);
-                    groupNameValues.put(name, value);
-                    matchIndex++;
-                }
-                result.add(new RoutableDestination<>(patternRoute.getSecond().getDestination(),
-                                                     Collections.unmodifiableMap(groupNameValues)));
+        // Start offsets of each path segment, the segment count is one more than the number of slashes
+        int segmentCount = 1;
+        for (int i = 0; i < cleanPath.length(); i++) {
+            if (cleanPath.charAt(i) == PATH_SLASH_CHAR) {
+                segmentCount++;
             }
         }
+        int[] offsets = new int[segmentCount + 1];
+        for (int i = 0, segment = 1; i < cleanPath.length(); i++) {
+            if (cleanPath.charAt(i) == PATH_SLASH_CHAR) {
+                offsets[segment++] = i + 1;
+            }
+        }
+        offsets[segmentCount] = cleanPath.length() + 1;
+
+        List<ImmutablePair<Route, Map<String, String>>> matches = new ArrayList<>();
+        match(root, cleanPath, offsets, 0, new String[segmentCount], 0, matches);
+
         //Check for sub-resource locator
-        if (result.isEmpty()) {
-            patternRouteList.stream()
-                            .filter(patternRoute -> patternRoute.getSecond().destination instanceof HttpResourceModel &&
-                                                    ((HttpResourceModel) patternRoute.getSecond().destination)
-                                                            .isSubResourceLocator()).forEach(patternRoute -> {
-                Map<String, String> groupNameValues = new HashMap<>();
-                Pattern pattern = Pattern.compile(patternRoute.getFirst().pattern() + ".*");
-                Matcher matcher = pattern.matcher(cleanPath);
+        if (matches.isEmpty()) {
+            for (Route route : subResourceLocatorRoutes) {
+                Matcher matcher = route.subResourcePattern.matcher(cleanPath);
                 if (matcher.matches()) {
-                    int matchIndex = 1;
-                    for (String name : patternRoute.getSecond().getGroupNames()) {
-                        String value = matcher.group(matchIndex);
-                        groupNameValues.put(name, value);
-                        matchIndex++;
-                    }
-                    result.add(new RoutableDestination<>(patternRoute.getSecond().getDestination(),
-                                                         Collections.unmodifiableMap(groupNameValues)));
+                    matches.add(ImmutablePair.of(route, groupValues(route, null, 0, matcher)));
                 }
-            });
+            }
+        }
+
+        if (matches.size() > 1) {
+            // Keep the registration order of the routes for the callers which pick the first among equals
+            matches.sort(Comparator.comparingInt(match -> match.getFirst().index));
+        }
+        List<RoutableDestination<T>> result = new ArrayList<>(matches.size());
+        for (ImmutablePair<Route, Map<String, String>> match : matches) {
+            result.add(new RoutableDestination<>(match.getFirst().destination, match.getSecond()));
         }
         return result;
     }
 
+    private void match(TrieNode node, String path, int[] offsets, int depth, String[] captures, int captureCount,
+                       List<ImmutablePair<Route, Map<String, String>>> matches) {
+        int segmentCount = offsets.length - 1;
+        if (depth < segmentCount) {
+            for (Route route : node.fallbackRoutes) {
+                Matcher matcher = route.remainderPattern.matcher(path).region(offsets[depth], path.length());
+                if (matcher.matches()) {
+                    matches.add(ImmutablePair.of(route, groupValues(route, captures, route.trieGroupCount, matcher)));
+                }
+            }
+        } else {
+            for (Route route : node.routes) {
+                matches.add(ImmutablePair.of(route, groupValues(route, captures, route.trieGroupCount, null)));
+            }
+            return;
+        }
+
+        int start = offsets[depth];
+        int end = offsets[depth + 1] - 1;
+        if (!node.literalChildren.isEmpty()) {
+            TrieNode literalChild = node.literalChildren.get(path.substring(start, end));
+            if (literalChild != null) {
+                match(literalChild, path, offsets, depth + 1, captures, captureCount, matches);
+            }
+        }
+        if (node.paramChild != null && end > start) {
+            captures[captureCount] = path.substring(start, end);
+            match(node.paramChild, path, offsets, depth + 1, captures, captureCount + 1, matches);
+        }
+    }
+
+    /**
+     * Pairs the group names of the route with the values captured by the trie and the values matched by the regex.
+     */
+    private Map<String, String> groupValues(Route route, String[] captures, int captureCount, Matcher matcher) {
+        if (route.groupNames.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> groupNameValues = new HashMap<>();
+        int index = 0;
+        for (String name : route.groupNames) {
+            String value = (index < captureCount) ? captures[index] : matcher.group(index - captureCount + 1);
+            groupNameValues.put(name, value);
+            index++;
+        }
+        return Collections.unmodifiableMap(groupNameValues);
+    }
+
     /**
      * Represents a matched destination.
      *
@@ -243,25 +383,42 @@ public final class PatternPathRouter<T> {
         }
     }
 
+    /**
+     * A node of the segment trie. Holds the routes that end at this node and the routes that need a regular
+     * expression to match the rest of the path.
+     */
+    private final class TrieNode {
+
+        private final Map<String, TrieNode> literalChildren = new HashMap<>();
+        private final List<Route> routes = new ArrayList<>(1);
+        private final List<Route> fallbackRoutes = new ArrayList<>(1);
+        private TrieNode paramChild;
+    }
+
     /**
      * Helper class to store the groupNames and Destination.
      */
-    private final class RouteDestinationWithGroups {
+    private final class Route {
 
+        private final int index;
         private final T destination;
         private final List<String> groupNames;
+        private final int trieGroupCount;
+        private final Pattern pattern;
+        private Pattern remainderPattern;
+        private Pattern subResourcePattern;
 
-        public RouteDestinationWithGroups(T destination, List<String> groupNames) {
+        private Route(int index, T destination, List<String> groupNames, int trieGroupCount, Pattern pattern) {
+            this.index = index;
             this.destination = destination;
             this.groupNames = groupNames;
+            this.trieGroupCount = trieGroupCount;
+            this.pattern = pattern;
         }
 
-        public T getDestination() {
-            return destination;
-        }
-
-        public List<String> getGroupNames() {
-            return groupNames;
+        @Override
+        public String toString() {
+            return pattern.pattern();
         }
     }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.msf4j.internal.router;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.msf4j.Request;
+import org.wso2.msf4j.util.SystemVariableUtil;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Temporary files of a single request, such as the multipart parts which did not fit in memory. All of them live
+ * in one directory which is deleted as soon as the request completes, instead of waiting for the garbage collector
+ * to reclaim the files.
+ */
+public final class RequestTempStorage {
+
+    /**
+     * System property or environment variable holding the directory under which the temporary files are created.
+     */
+    public static final String TEMP_DIR_PROPERTY = "msf4j.multipart.tempDir";
+
+    private static final Logger log = LoggerFactory.getLogger(RequestTempStorage.class);
+    private static final String REQUEST_PROPERTY = "MSF4J_REQUEST_TEMP_STORAGE";
+    private static final int MAX_FILE_NAME_LENGTH = 255;
+    private static final Path TEMP_REPO_PATH = Paths.get(SystemVariableUtil.getValue(
+            TEMP_DIR_PROPERTY, Paths.get(System.getProperty("java.io.tmpdir"), "msf4jtemp").toString()));
+
+    private Path directory;
+
+    private RequestTempStorage() {
+    }
+
+    /**
+     * @param request request being processed
+     * @return temporary storage of the given request, which is created on first use
+     */
+    static RequestTempStorage of(Request request) {
+        RequestTempStorage storage = (RequestTempStorage) request.getProperty(REQUEST_PROPERTY);
+        if (storage == null) {
+            storage = new RequestTempStorage();
+            request.setProperty(REQUEST_PROPERTY, storage);
+        }
+        return storage;
+    }
+
+    /**
+     * Delete the temporary files of the given request, if it has any.
+     *
+     * @param request request which has completed
+     */
+    public static void release(Request request) {
+        RequestTempStorage storage = (RequestTempStorage) request.getProperty(REQUEST_PROPERTY);
+        if (storage != null) {
+            request.removeProperty(REQUEST_PROPERTY);
+            storage.delete();
+        }
+    }
+
+    /**
+     * Resolve a path for a new temporary file. The file name given by the client is kept, since resource methods
+     * see it through {@link java.io.File#getName()}, but it never escapes the directory of the request. Only the last
+     * segment of the name is kept, and a generated name is used instead of a name which is not a plain file name.
+     *
+     * @param fileName file name given by the client, or null
+     * @return path of a file which does not exist yet
+     * @throws IOException if the directory of the request could not be created
+     */
+    synchronized Path createFile(String fileName) throws IOException {
+        if (directory == null) {
+            Files.createDirectories(TEMP_REPO_PATH);
+            directory = Files.createTempDirectory(TEMP_REPO_PATH, "tmp");
+        }
+        Path name = toFileName(fileName);
+        if (name == null) {
+            return Files.createTempFile(directory, "part", null);
+        }
+        Path path = directory.resolve(name);
+        if (Files.exists(path)) {
+            // Several parts with the same file name
+            path = Files.createTempDirectory(directory, "part").resolve(name);
+        }
+        return path;
+    }
+
+    /**
+     * @return last segment of the given file name, or null if it is not usable as the name of a file in the directory
+     */
+    private static Path toFileName(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        // Both separators are stripped, whichever the platform is, since the name comes from any client
+        String name = fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1);
+        if (name.isEmpty() || ".".equals(name) || "..".equals(name) || name.length() > MAX_FILE_NAME_LENGTH) {
+            return null;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.isISOControl(name.charAt(i))) {
+                return null;
+            }
+        }
+        try {
+            Path path = Paths.get(name);
+            return path.getNameCount() == 1 && !path.isAbsolute() ? path : null;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private synchronized void delete() {
+        if (directory != null) {
+            try {
+                FileUtils.deleteDirectory(directory.toFile());
+            } catch (IOException e) {
+                log.warn("Could not delete the temporary files in {}", directory, e);
+            }
+            directory = null;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.msf4j.internal.router;
+
+import org.wso2.msf4j.util.Utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Holds all the resource methods registered under one path template. The resource models are indexed by HTTP method
+ * when they are registered, so dispatching a request to a known route is a map lookup followed by the
+ * consumes/produces negotiation over the few resource methods of that HTTP method.
+ */
+final class ResourceDispatchTable {
+
+    private final String path;
+    private final String[] pathSegments;
+    private final boolean subResourceLocator;
+    private final Map<String, MethodEntry> methodTable = new HashMap<>();
+
+    ResourceDispatchTable(String path, boolean subResourceLocator) {
+        this.path = path;
+        this.pathSegments = Utils.split(path, "/", true).toArray(new String[0]);
+        this.subResourceLocator = subResourceLocator;
+    }
+
+    /**
+     * Register a resource model in this table against all the HTTP methods it serves.
+     *
+     * @param resourceModel resource model to be added
+     */
+    void add(HttpResourceModel resourceModel) {
+        for (String httpMethod : resourceModel.getHttpMethod()) {
+            methodTable.computeIfAbsent(httpMethod, key -> new MethodEntry()).add(resourceModel);
+        }
+    }
+
+    /**
+     * @param httpMethod HTTP method of the request
+     * @return true if there is a resource method in this table which handles the given HTTP method
+     */
+    boolean hasMethod(String httpMethod) {
+        return methodTable.containsKey(httpMethod);
+    }
+
+    /**
+     * @param httpMethod HTTP method of the request
+     * @return resource models handling the given HTTP method, in registration order
+     */
+    HttpResourceModel[] getResourceModels(String httpMethod) {
+        MethodEntry methodEntry = methodTable.get(httpMethod);
+        return methodEntry == null ? new HttpResourceModel[0] : methodEntry.resourceModels;
+    }
+
+    /**
+     * Find the resource model for the given HTTP method which consumes and produces the given media types.
+     *
+     * @param httpMethod  HTTP method of the request
+     * @param contentType content type of the request
+     * @param acceptTypes accept types of the request
+     * @return matching resource model or empty if the media types are not supported
+     */
+    Optional<HttpResourceModel> negotiate(String httpMethod, String contentType, List<String> acceptTypes) {
+        MethodEntry methodEntry = methodTable.get(httpMethod);
+        if (methodEntry == null) {
+            return Optional.empty();
+        }
+        return select(methodEntry.resourceModels, contentType, acceptTypes);
+    }
+
+    /**
+     * Select the resource model which consumes and produces the given media types. When there are several
+     * candidates, the one declared in the class of the handler instance wins over inherited ones.
+     *
+     * @param resourceModels candidate resource models
+     * @param contentType    content type of the request
+     * @param acceptTypes    accept types of the request
+     * @return matching resource model or empty if the media types are not supported
+     */
+    static Optional<HttpResourceModel> select(List<HttpResourceModel> resourceModels, String contentType,
+                                              List<String> acceptTypes) {
+        return select(resourceModels.toArray(new HttpResourceModel[resourceModels.size()]), contentType, acceptTypes);
+    }
+
+    private static Optional<HttpResourceModel> select(HttpResourceModel[] resourceModels, String contentType,
+                                                      List<String> acceptTypes) {
+        boolean multipleCandidates = resourceModels.length > 1;
+        for (HttpResourceModel resourceModel : resourceModels) {
+            if (resourceModel.matchConsumeMediaType(contentType) &&
+                resourceModel.matchProduceMediaType(acceptTypes) &&
+                (!multipleCandidates ||
+                 resourceModel.getHttpHandler().getClass() == resourceModel.getMethod().getDeclaringClass())) {
+                return Optional.of(resourceModel);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Count the path segments that match the path template from left to right, ignoring empty segments.
+     *
+     * @param requestPath path of the request
+     * @return the number of path components that match from left to right
+     */
+    int getExactPrefixMatchCount(String requestPath) {
+        int count = 0;
+        int length = requestPath.length();
+        int start = 0;
+        while (start < length && count < pathSegments.length) {
+            int end = requestPath.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                String segment = pathSegments[count];
+                if (segment.length() != end - start || !requestPath.regionMatches(start, segment, 0, end - start)) {
+                    break;
+                }
+                ++count;
+            }
+            start = end + 1;
+        }
+        return count;
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    boolean isSubResourceLocator() {
+        return subResourceLocator;
+    }
+
+    @Override
+    public String toString() {
+        return Utils.toString(this, new String[] { "path", "subResourceLocator" });
+    }
+
+    /**
+     * Resource models of a single HTTP method. The array is replaced when a resource model is added, so that requests
+     * read it without locking.
+     */
+    private static final class MethodEntry {
+
+        private volatile HttpResourceModel[] resourceModels = new HttpResourceModel[0];
+
+        synchronized void add(HttpResourceModel resourceModel) {
+            HttpResourceModel[] models = Arrays.copyOf(resourceModels, resourceModels.length + 1);
+            models[models.length - 1] = resourceModel;
+            resourceModels = models;
+        }
+    }
+}
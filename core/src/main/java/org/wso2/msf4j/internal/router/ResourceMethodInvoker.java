@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.msf4j.internal.router;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Invokes a resource method on its handler instance. The invoker is created once for each resource method when the
+ * resource is registered. It adapts the method to a single {@code (Object, Object[])Object} method handle, so a
+ * request pays neither the reflective access checks of {@link Method#invoke(Object, Object...)} nor another copy of
+ * the argument array. Arguments are checked before the handle is invoked, and those the handle would have to convert
+ * are passed to {@link Method#invoke(Object, Object...)} instead, so a mismatch is reported as it reports it and is
+ * never mistaken for an exception thrown by the resource method.
+ */
+public final class ResourceMethodInvoker {
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private final Method method;
+    // null when the method is not accessible through a public lookup and has to be invoked reflectively
+    private final MethodHandle methodHandle;
+
+    private ResourceMethodInvoker(Method method, MethodHandle methodHandle) {
+        this.method = method;
+        this.methodHandle = methodHandle;
+    }
+
+    /**
+     * Create an invoker for the given resource method.
+     *
+     * @param method resource method
+     * @return invoker of the method
+     */
+    public static ResourceMethodInvoker create(Method method) {
+        MethodHandle methodHandle;
+        try {
+            methodHandle = MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            // e.g. public method of a non public class, keep the reflective behaviour for those
+            return new ResourceMethodInvoker(method, null);
+        }
+        if (Modifier.isStatic(method.getModifiers())) {
+            methodHandle = MethodHandles.dropArguments(methodHandle, 0, Object.class);
+        }
+        methodHandle = methodHandle.asType(MethodType.genericMethodType(method.getParameterCount() + 1))
+                                   .asSpreader(Object[].class, method.getParameterCount())
+                                   .asType(INVOKER_TYPE);
+        return new ResourceMethodInvoker(method, methodHandle);
+    }
+
+    /**
+     * Invoke the resource method.
+     *
+     * @param handler instance of the resource class
+     * @param args    arguments of the resource method
+     * @return value returned by the resource method or null if the method is void
+     * @throws InvocationTargetException if the resource method throws an exception
+     * @throws IllegalAccessException    if the resource method is not accessible
+     */
+    public Object invoke(Object handler, Object[] args) throws InvocationTargetException, IllegalAccessException {
+        if (methodHandle == null || !matchesExactly(handler, args)) {
+            // Method#invoke reports a mismatch before entering the method, or applies the widening conversions it
+            // allows
+            return method.invoke(handler, args);
+        }
+        try {
+            return (Object) methodHandle.invokeExact(handler, args);
+        } catch (Throwable throwable) {
+            throw new InvocationTargetException(throwable);
+        }
+    }
+
+    /**
+     * Check whether the handle accepts the given handler instance and arguments without any conversion that can fail.
+     */
+    private boolean matchesExactly(Object handler, Object[] args) {
+        if (!Modifier.isStatic(method.getModifiers()) && !method.getDeclaringClass().isInstance(handler)) {
+            return false;
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if ((args == null ? 0 : args.length) != parameterTypes.length) {
+            return false;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Class<?> parameterType = parameterTypes[i];
+            if (parameterType.isPrimitive()) {
+                Class<?> wrapperType = MethodType.methodType(parameterType).wrap().returnType();
+                if (args[i] == null || args[i].getClass() != wrapperType) {
+                    return false;
+                }
+            } else if (args[i] != null && !parameterType.isInstance(args[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the resource method invoked by this invoker
+     */
+    public Method getMethod() {
+        return method;
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.internal.router;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.msf4j.Request;
+import org.wso2.msf4j.executor.IOThreadRequestExecutor;
+import org.wso2.msf4j.executor.RequestExecutor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+/**
+ * {@link AsyncResponse} injected to resource method parameters annotated with
+ * {@link javax.ws.rs.container.Suspended}. The response is sent when it is resumed, cancelled or timed out, from the
+ * thread which does so. Connection callbacks are not supported, since the transport does not report disconnects.
+ * <p>
+ * Timeouts are detected by a single shared thread, which hands the timeout handler and the default 503 response off to
+ * the executor of the request.
+ */
+final class SuspendedAsyncResponse implements AsyncResponse {
+
+    private static final Logger log = LoggerFactory.getLogger(SuspendedAsyncResponse.class);
+
+    private final Request request;
+    private final RequestExecutor requestExecutor;
+    private final CompletableFuture<Object> result = new CompletableFuture<>();
+    private final List<CompletionCallback> completionCallbacks = new ArrayList<>();
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    private TimeoutHandler timeoutHandler;
+    private ScheduledFuture<?> timeoutFuture;
+    private boolean responseSent;
+    private Throwable responseFailure;
+
+    /**
+     * @param request         request whose response is suspended
+     * @param requestExecutor executor of the request, or null to handle timeouts on the timeout thread
+     */
+    SuspendedAsyncResponse(Request request, RequestExecutor requestExecutor) {
+        this.request = request;
+        // The timeout thread is not an I/O thread, so it must not run the timeout handler itself
+        this.requestExecutor = requestExecutor instanceof IOThreadRequestExecutor ?
+                ((IOThreadRequestExecutor) requestExecutor).getFallbackExecutor() : requestExecutor;
+    }
+
+    /**
+     * @return stage completed with the entity, or the failure, the response is resumed with
+     */
+    CompletionStage<Object> getResult() {
+        return result;
+    }
+
+    /**
+     * Notify the registered completion callbacks that the response has been processed.
+     *
+     * @param failure unhandled failure of the processing or null if the response was sent
+     */
+    void responseSent(Throwable failure) {
+        List<CompletionCallback> callbacks;
+        synchronized (this) {
+            responseSent = true;
+            responseFailure = failure;
+            callbacks = new ArrayList<>(completionCallbacks);
+            completionCallbacks.clear();
+        }
+        callbacks.forEach(callback -> notifyCompletion(callback, failure));
+    }
+
+    @Override
+    public boolean resume(Object response) {
+        return complete(response, null, false);
+    }
+
+    @Override
+    public boolean resume(Throwable response) {
+        return complete(null, response, false);
+    }
+
+    @Override
+    public boolean cancel() {
+        return complete(Response.status(Response.Status.SERVICE_UNAVAILABLE).build(), null, true);
+    }
+
+    @Override
+    public boolean cancel(int retryAfter) {
+        return complete(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, retryAfter).build(), null, true);
+    }
+
+    @Override
+    public boolean cancel(Date retryAfter) {
+        return complete(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, retryAfter).build(), null, true);
+    }
+
+    @Override
+    public boolean isSuspended() {
+        return !done;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public synchronized boolean setTimeout(long time, TimeUnit unit) {
+        if (done) {
+            return false;
+        }
+        if (timeoutFuture != null) {
+            timeoutFuture.cancel(false);
+        }
+        timeoutFuture = TimeoutScheduler.INSTANCE.schedule(this::dispatchTimeout, time, unit);
+        return true;
+    }
+
+    @Override
+    public synchronized void setTimeoutHandler(TimeoutHandler handler) {
+        this.timeoutHandler = handler;
+    }
+
+    @Override
+    public Collection<Class<?>> register(Class<?> callback) {
+        try {
+            return register(callback.newInstance());
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot instantiate callback " + callback.getName(), e);
+        }
+    }
+
+    @Override
+    public Map<Class<?>, Collection<Class<?>>> register(Class<?> callback, Class<?>... callbacks) {
+        Map<Class<?>, Collection<Class<?>>> registered = new HashMap<>();
+        registered.put(callback, register(callback));
+        for (Class<?> other : callbacks) {
+            registered.put(other, register(other));
+        }
+        return registered;
+    }
+
+    @Override
+    public Collection<Class<?>> register(Object callback) {
+        if (!(callback instanceof CompletionCallback)) {
+            return Collections.emptyList();
+        }
+        boolean sent;
+        Throwable failure;
+        synchronized (this) {
+            sent = responseSent;
+            failure = responseFailure;
+            if (!sent) {
+                completionCallbacks.add((CompletionCallback) callback);
+            }
+        }
+        if (sent) {
+            notifyCompletion((CompletionCallback) callback, failure);
+        }
+        return Collections.singletonList(CompletionCallback.class);
+    }
+
+    @Override
+    public Map<Class<?>, Collection<Class<?>>> register(Object callback, Object... callbacks) {
+        Map<Class<?>, Collection<Class<?>>> registered = new HashMap<>();
+        registered.put(callback.getClass(), register(callback));
+        for (Object other : callbacks) {
+            registered.put(other.getClass(), register(other));
+        }
+        return registered;
+    }
+
+    /**
+     * Complete the response once. The stage is completed outside the lock, since completing it sends the response.
+     */
+    private boolean complete(Object response, Throwable failure, boolean cancel) {
+        synchronized (this) {
+            if (done) {
+                return cancel && cancelled;
+            }
+            done = true;
+            cancelled = cancel;
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
+                timeoutFuture = null;
+            }
+        }
+        if (failure == null) {
+            result.complete(response);
+        } else {
+            result.completeExceptionally(failure);
+        }
+        return true;
+    }
+
+    /**
+     * Hand the expired timeout off to the executor of the request. If the executor rejects it, the response is
+     * resumed with a 503 without involving the timeout handler.
+     */
+    private void dispatchTimeout() {
+        ScheduledFuture<?> expired;
+        synchronized (this) {
+            expired = timeoutFuture;
+        }
+        if (requestExecutor == null) {
+            timeout(expired);
+            return;
+        }
+        try {
+            requestExecutor.execute(request, () -> timeout(expired));
+        } catch (RejectedExecutionException e) {
+            log.debug("Timeout of a suspended response rejected by {}", requestExecutor.getName(), e);
+            resume(Response.status(Response.Status.SERVICE_UNAVAILABLE).build());
+        }
+    }
+
+    /**
+     * Let the timeout handler deal with the timeout. If it neither completes the response nor extends the timeout,
+     * the response is resumed with a 503, as it is when there is no timeout handler.
+     */
+    private void timeout(ScheduledFuture<?> expired) {
+        TimeoutHandler handler;
+        synchronized (this) {
+            if (done || timeoutFuture != expired) {
+                // Completed or given a new timeout while the timeout was being handed off
+                return;
+            }
+            handler = timeoutHandler;
+        }
+        if (handler != null) {
+            handler.handleTimeout(this);
+        }
+        synchronized (this) {
+            if (timeoutFuture != expired) {
+                return;
+            }
+        }
+        resume(Response.status(Response.Status.SERVICE_UNAVAILABLE).build());
+    }
+
+    private static void notifyCompletion(CompletionCallback callback, Throwable failure) {
+        try {
+            callback.onComplete(failure);
+        } catch (Exception e) {
+            log.error("Exception while executing a completion callback", e);
+        }
+    }
+
+    /**
+     * Single daemon thread which fires the timeouts of all the suspended responses.
+     */
+    private static final class TimeoutScheduler {
+
+        private static final ScheduledThreadPoolExecutor INSTANCE = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "msf4j-async-response-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        static {
+            INSTANCE.setRemoveOnCancelPolicy(true);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.msf4j.internal.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache of security decisions, such as verified tokens, which expire at a given time. When the cache is
+ * full the least recently used entry is evicted. Keys are meant to be digests of the secrets, see
+ * {@link #digest(String)}, so that the secrets themselves are not kept in memory.
+ *
+ * @param <V> type of the cached values
+ */
+public final class ExpiringCache<V> {
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry<V>> entries;
+
+    /**
+     * @param maxEntries maximum number of entries, 0 disables the cache
+     */
+    public ExpiringCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, Entry<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                return size() > ExpiringCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param key key of the entry
+     * @return cached value, or null if there is no entry or it has expired
+     */
+    public V get(String key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    /**
+     * Cache a value until the given time. Values which have already expired are not cached.
+     *
+     * @param key       key of the entry
+     * @param value     value to be cached
+     * @param expiresAt time in milliseconds since the epoch after which the entry is discarded
+     */
+    public void put(String key, V value, long expiresAt) {
+        if (maxEntries <= 0 || expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, expiresAt));
+        }
+    }
+
+    /**
+     * Remove the entries whose values match the given predicate.
+     *
+     * @param predicate predicate matching the values to be removed
+     */
+    public void invalidateIf(Predicate<? super V> predicate) {
+        synchronized (entries) {
+            entries.values().removeIf(entry -> predicate.test(entry.value));
+        }
+    }
+
+    /**
+     * Remove all the entries.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @param secret secret, such as a token, to be used as a key
+     * @return Base64 encoded SHA-256 digest of the secret
+     */
+    public static String digest(String secret) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(secret.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
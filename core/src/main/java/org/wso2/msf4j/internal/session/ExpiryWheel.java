@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.internal.session;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Hashed timing wheel which finds the items whose expiry time has passed without scanning all the items. Each item
+ * sits in the bucket of the tick in which it expires and a tick only visits its own bucket.
+ * <p>
+ * The expiry time of an item is read again when its bucket is visited, so extending the lifetime of an item, for
+ * example when a session is accessed, only needs to update the field the expiry time is computed from. An item
+ * visited before its current expiry time is moved to the bucket of that time. Items expiring further away than one
+ * turn of the wheel are likewise moved on each turn until they are due.
+ * <p>
+ * {@link #schedule(Object)} can be called from any thread, while {@link #advance(long, Consumer)} has to be called
+ * from one thread at a time, which owns the buckets.
+ *
+ * @param <T> type of the items
+ */
+public final class ExpiryWheel<T> {
+
+    private final long tickMillis;
+    private final ArrayDeque<T>[] buckets;
+    private final ToLongFunction<T> expiryTime;
+    // Items scheduled since the last advance, placed in the buckets by the thread which advances the wheel
+    private final Queue<T> scheduled = new ConcurrentLinkedQueue<>();
+    private long currentTick;
+
+    /**
+     * @param tickMillis  length of a tick in milliseconds, which is the precision of the expiry
+     * @param wheelSize   number of buckets
+     * @param expiryTime  function which returns the time, in milliseconds since the epoch, an item expires at
+     * @param startMillis current time in milliseconds since the epoch
+     */
+    @SuppressWarnings("unchecked")
+    public ExpiryWheel(long tickMillis, int wheelSize, ToLongFunction<T> expiryTime, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick length and wheel size must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.expiryTime = expiryTime;
+        this.buckets = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Start tracking the expiry of an item.
+     *
+     * @param item item to be expired
+     */
+    public void schedule(T item) {
+        scheduled.add(item);
+    }
+
+    /**
+     * Advance the wheel to the given time and hand over the items which have expired by then. Expired items are no
+     * longer tracked.
+     *
+     * @param nowMillis current time in milliseconds since the epoch
+     * @param expired   consumer of the expired items
+     */
+    public void advance(long nowMillis, Consumer<T> expired) {
+        T item;
+        while ((item = scheduled.poll()) != null) {
+            place(item);
+        }
+        long nowTick = nowMillis / tickMillis;
+        // After a long pause one turn visits every bucket
+        currentTick = Math.max(currentTick, nowTick - buckets.length);
+        while (currentTick < nowTick) {
+            ++currentTick;
+            ArrayDeque<T> bucket = buckets[bucketIndex(currentTick)];
+            // Items moved on to a later turn land in this bucket again, so only the present ones are visited
+            for (int count = bucket.size(); count > 0; --count) {
+                item = bucket.poll();
+                if (expiryTime.applyAsLong(item) <= nowMillis) {
+                    expired.accept(item);
+                } else {
+                    place(item);
+                }
+            }
+        }
+    }
+
+    private void place(T item) {
+        long expiry = expiryTime.applyAsLong(item);
+        // The first tick which starts after the expiry time, but never a tick that has already been visited
+        long tick = Math.max(Math.floorDiv(expiry, tickMillis) + 1, currentTick + 1);
+        buckets[bucketIndex(tick)].add(item);
+    }
+
+    private int bucketIndex(long tick) {
+        return (int) Math.floorMod(tick, (long) buckets.length);
+    }
+}
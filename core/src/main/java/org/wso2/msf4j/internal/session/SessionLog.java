@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.internal.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Append-only log of serialized sessions. Every write appends a record which either stores the serialized form of a
+ * session or removes a session, and later records override earlier ones. The log is rewritten with only the live
+ * sessions by {@link #compact(Map)}.
+ * <p>
+ * A record is a one byte type, the session ID in modified UTF-8 and, for stored sessions, the length of the
+ * serialized session followed by its bytes. Every record ends with the CRC-32 of its preceding bytes, so that a record
+ * which was torn or corrupted on disk is detected instead of being read as a session.
+ */
+public final class SessionLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionLog.class);
+    private static final int STORE = 1;
+    private static final int REMOVE = 2;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * Largest serialized session the log holds, which bounds what a corrupted length can make the reader allocate.
+     */
+    private static final int MAX_SESSION_SIZE = 64 * 1024 * 1024;
+
+    private final Path file;
+    private DataOutputStream out;
+    // Size of the log up to its last complete record after a failed append, or -1
+    private long tornOffset = -1;
+
+    /**
+     * @param file file of the log, which is created when the first record is written
+     */
+    public SessionLog(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Read the sessions stored in the log. A record cut short, for example by a crash while it was written, or a
+     * corrupted record ends the log, and the rest of the log is ignored.
+     *
+     * @return serialized sessions by session ID
+     * @throws IOException if the log cannot be read
+     */
+    public Map<String, byte[]> read() throws IOException {
+        Map<String, byte[]> sessions = new HashMap<>();
+        if (!Files.exists(file)) {
+            return sessions;
+        }
+        CheckedInputStream checkedIn = new CheckedInputStream(new BufferedInputStream(Files.newInputStream(file),
+                                                                                      BUFFER_SIZE), new CRC32());
+        try (DataInputStream in = new DataInputStream(checkedIn)) {
+            int type;
+            while ((type = in.read()) >= 0) {
+                if (type != STORE && type != REMOVE) {
+                    log.warn("Session log " + file + " has an unknown record type " + type +
+                             ", ignoring the rest of the log");
+                    break;
+                }
+                String sessionId = in.readUTF();
+                byte[] session = null;
+                if (type == STORE) {
+                    int length = in.readInt();
+                    if (length < 0 || length > MAX_SESSION_SIZE) {
+                        log.warn("Session log " + file + " has a record of invalid length " + length +
+                                 ", ignoring the rest of the log");
+                        break;
+                    }
+                    session = new byte[length];
+                    in.readFully(session);
+                }
+                int checksum = (int) checkedIn.getChecksum().getValue();
+                if (in.readInt() != checksum) {
+                    log.warn("Session log " + file + " has a corrupted record, ignoring the rest of the log");
+                    break;
+                }
+                checkedIn.getChecksum().reset();
+                if (session != null) {
+                    sessions.put(sessionId, session);
+                } else {
+                    sessions.remove(sessionId);
+                }
+            }
+        } catch (EOFException e) {
+            log.warn("Session log " + file + " ends with an incomplete record, which is ignored");
+        } catch (UTFDataFormatException e) {
+            log.warn("Session log " + file + " has a corrupted session ID, ignoring the rest of the log");
+        }
+        return sessions;
+    }
+
+    /**
+     * Append records to the log. If they cannot be written, the log is truncated back to its last complete record, so
+     * that a torn record does not hide the records appended after it.
+     *
+     * @param records serialized sessions by session ID, where a null value removes the session
+     * @throws IOException if the records cannot be written
+     */
+    public void append(Map<String, byte[]> records) throws IOException {
+        if (tornOffset >= 0) {
+            truncate(tornOffset);
+            tornOffset = -1;
+        }
+        // Every append is flushed, so the log ends with a complete record
+        long committed = size();
+        try {
+            if (out == null) {
+                out = open(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            write(out, records);
+            out.flush();
+        } catch (IOException e) {
+            tornOffset = committed;
+            try {
+                close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            try {
+                truncate(committed);
+                tornOffset = -1;
+            } catch (IOException truncateFailure) {
+                // Retried before the next append
+                e.addSuppressed(truncateFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Replace the log with one which holds only the given sessions. The new log is written to a separate file, which
+     * is synced to the disk before it replaces the log, so the log is never left half written.
+     *
+     * @param sessions serialized sessions by session ID
+     * @throws IOException if the log cannot be rewritten
+     */
+    public void compact(Map<String, byte[]> sessions) throws IOException {
+        close();
+        tornOffset = -1;
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        try (FileChannel channel = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream compactedOut =
+                    new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            write(compactedOut, sessions);
+            compactedOut.flush();
+            channel.force(true);
+        }
+        try {
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return size of the log in bytes
+     * @throws IOException if the size cannot be read
+     */
+    public long size() throws IOException {
+        return Files.exists(file) ? Files.size(file) : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            try {
+                out.close();
+            } finally {
+                out = null;
+            }
+        }
+    }
+
+    private void truncate(long size) throws IOException {
+        if (Files.exists(file)) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(size);
+            }
+        }
+    }
+
+    private static DataOutputStream open(Path path, StandardOpenOption... options) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path, options), BUFFER_SIZE));
+    }
+
+    private static void write(DataOutputStream out, Map<String, byte[]> records) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream recordOut = new DataOutputStream(buffer);
+        CRC32 crc = new CRC32();
+        for (Map.Entry<String, byte[]> record : records.entrySet()) {
+            byte[] session = record.getValue();
+            if (session != null && session.length > MAX_SESSION_SIZE) {
+                log.error("Cannot save session " + record.getKey() + " of " + session.length +
+                          " bytes, which is larger than " + MAX_SESSION_SIZE + " bytes");
+                continue;
+            }
+            buffer.reset();
+            if (session == null) {
+                recordOut.writeByte(REMOVE);
+                recordOut.writeUTF(record.getKey());
+            } else {
+                recordOut.writeByte(STORE);
+                recordOut.writeUTF(record.getKey());
+                recordOut.writeInt(session.length);
+                recordOut.write(session);
+            }
+            crc.reset();
+            crc.update(buffer.toByteArray());
+            buffer.writeTo(out);
+            out.writeInt((int) crc.getValue());
+        }
+    }
+}
@@ -19,32 +19,112 @@ import org.wso2.msf4j.Request;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 
 /**
- * Wrapper {@link InputStream} for {@link Request}.
+ * Wrapper {@link InputStream} for {@link Request}. The body is read chunk by chunk as the transport receives it and
+ * only the chunk being read is referenced by the stream, so consumed chunks can be collected right away.
  */
 public class MSF4JRequestInputStream extends InputStream {
-    private Request request;
+
+    private static final int TRANSFER_BUFFER_SIZE = 8192;
+
+    private final Request request;
     private ByteBuffer buffer;
 
     public MSF4JRequestInputStream(Request request) {
         this.request = request;
-        buffer = request.getMessageBody();
     }
 
     @Override
     public int read() throws IOException {
-        if (request.isEomAdded() && request.isEmpty() && !buffer.hasRemaining()) {
+        if (!nextChunk()) {
             return -1;
-        } else if (!buffer.hasRemaining()) {
-            buffer = request.getMessageBody();
         }
         return buffer.get() & 0xFF;
     }
 
+    /**
+     * Read up to the given number of bytes from the current chunk of the body. This blocks only if the current
+     * chunk is consumed and the next one has not been received yet.
+     */
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || length > bytes.length - offset) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (length == 0) {
+            return 0;
+        }
+        if (!nextChunk()) {
+            return -1;
+        }
+        int read = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, read);
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && nextChunk()) {
+            int step = (int) Math.min(n - skipped, buffer.remaining());
+            buffer.position(buffer.position() + step);
+            skipped += step;
+        }
+        return skipped;
+    }
+
     @Override
     public int available() throws IOException {
-        return buffer.remaining();
+        return buffer == null ? 0 : buffer.remaining();
+    }
+
+    /**
+     * Write the rest of the body to the given output stream, a chunk at a time.
+     *
+     * @param outputStream stream to write the body to
+     * @return the number of bytes transferred
+     * @throws IOException if writing to the output stream fails
+     */
+    public long transferTo(OutputStream outputStream) throws IOException {
+        long transferred = 0;
+        byte[] transferBuffer = null;
+        while (nextChunk()) {
+            int length = buffer.remaining();
+            if (buffer.hasArray()) {
+                outputStream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+                buffer.position(buffer.limit());
+            } else {
+                if (transferBuffer == null) {
+                    transferBuffer = new byte[TRANSFER_BUFFER_SIZE];
+                }
+                while (buffer.hasRemaining()) {
+                    int step = Math.min(buffer.remaining(), transferBuffer.length);
+                    buffer.get(transferBuffer, 0, step);
+                    outputStream.write(transferBuffer, 0, step);
+                }
+            }
+            transferred += length;
+        }
+        return transferred;
+    }
+
+    /**
+     * Make the next chunk of the body the current one if the current chunk is consumed, waiting for the transport
+     * if the chunk has not been received yet.
+     *
+     * @return false if the whole body has been read
+     */
+    private boolean nextChunk() {
+        while (buffer == null || !buffer.hasRemaining()) {
+            if (request.isEomAdded() && request.isEmpty()) {
+                buffer = null;
+                return false;
+            }
+            buffer = request.getMessageBody();
+        }
+        return true;
     }
 }
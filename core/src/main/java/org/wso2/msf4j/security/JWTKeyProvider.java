@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.msf4j.security;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Provides the keys used to verify the signature of JWTs.
+ * <p>
+ * The default key is the certificate of an alias in a keystore, which is looked up in the classpath and then in the
+ * file system. Additional keys can be given in a JWK set file, which are selected by the {@code kid} header of the
+ * JWT. Tokens with an unknown or no {@code kid} are verified with the default key. Keys are loaded once and reloaded
+ * when the refresh interval has passed, by the first request that needs them afterwards. If reloading fails, the
+ * previous keys are kept.
+ */
+final class JWTKeyProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(JWTKeyProvider.class);
+
+    private final String keyStorePath;
+    private final char[] keyStorePassword;
+    private final String alias;
+    private final String jwkSetPath;
+    private final long refreshIntervalNanos;
+    private final Runnable onChange;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Keys keys = new Keys(null, Collections.emptyMap());
+    private volatile long loadedAt;
+
+    /**
+     * @param keyStorePath     keystore holding the default key
+     * @param keyStorePassword password of the keystore and the key
+     * @param alias            alias of the default key
+     * @param jwkSetPath       JWK set file with additional keys, or null
+     * @param refreshInterval  interval in seconds after which the keys are reloaded
+     * @param onChange         called when the reloaded keys differ from the previous ones
+     */
+    JWTKeyProvider(String keyStorePath, String keyStorePassword, String alias, String jwkSetPath,
+                   long refreshInterval, Runnable onChange) {
+        this.keyStorePath = keyStorePath;
+        this.keyStorePassword = keyStorePassword.toCharArray();
+        this.alias = alias;
+        this.jwkSetPath = jwkSetPath;
+        this.refreshIntervalNanos = TimeUnit.SECONDS.toNanos(refreshInterval);
+        this.onChange = onChange;
+        refresh();
+    }
+
+    /**
+     * @param keyId {@code kid} header of the JWT, or null
+     * @return verifier for the key with the given id, or the default key; null if there is no such key
+     */
+    JWSVerifier getVerifier(String keyId) {
+        refreshIfDue();
+        Keys current = keys;
+        JWSVerifier verifier = keyId == null ? null : current.verifiers.get(keyId);
+        return verifier != null ? verifier : current.defaultVerifier;
+    }
+
+    /**
+     * @param keyId id of the key, or null for the default key
+     * @return public key with the given id, or null if there is no such key
+     */
+    PublicKey getPublicKey(String keyId) {
+        refreshIfDue();
+        return keyId == null ? keys.defaultKey : keys.keysById.get(keyId);
+    }
+
+    private void refreshIfDue() {
+        if (System.nanoTime() - loadedAt >= refreshIntervalNanos && refreshing.compareAndSet(false, true)) {
+            try {
+                if (System.nanoTime() - loadedAt >= refreshIntervalNanos) {
+                    refresh();
+                }
+            } finally {
+                refreshing.set(false);
+            }
+        }
+    }
+
+    private void refresh() {
+        try {
+            Keys loaded = new Keys(loadKeyStoreKey(), loadJwkSet());
+            Keys previous = keys;
+            keys = loaded;
+            if (!loaded.sameKeys(previous)) {
+                log.debug("Loaded JWT verification keys, {} keys by id", loaded.keysById.size());
+                onChange.run();
+            }
+        } catch (IOException | GeneralSecurityException | JsonParseException | IllegalArgumentException e) {
+            log.warn("Could not load the JWT verification keys, using the previously loaded keys", e);
+        }
+        loadedAt = System.nanoTime();
+    }
+
+    private PublicKey loadKeyStoreKey() throws IOException, GeneralSecurityException {
+        InputStream inputStream = getClass().getClassLoader().getResourceAsStream(keyStorePath);
+        if (inputStream == null) {
+            Path path = Paths.get(keyStorePath);
+            if (!Files.isRegularFile(path)) {
+                log.warn("Keystore {} is not found", keyStorePath);
+                return null;
+            }
+            inputStream = Files.newInputStream(path);
+        }
+        try (InputStream keyStoreStream = inputStream) {
+            KeyStore keystore = KeyStore.getInstance(KeyStore.getDefaultType());
+            keystore.load(keyStoreStream, keyStorePassword);
+            Key key = keystore.getKey(alias, keyStorePassword);
+            if (key instanceof PrivateKey) {
+                // Get public key from the certificate of the key
+                return keystore.getCertificate(alias).getPublicKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read the RSA signing keys of the JWK set file (RFC 7517).
+     */
+    private Map<String, PublicKey> loadJwkSet() throws IOException, GeneralSecurityException {
+        if (jwkSetPath == null || jwkSetPath.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        String content = new String(Files.readAllBytes(Paths.get(jwkSetPath)), StandardCharsets.UTF_8);
+        JsonObject jwkSet = new Gson().fromJson(content, JsonObject.class);
+        if (jwkSet == null || !jwkSet.has("keys")) {
+            throw new JsonParseException("JWK set " + jwkSetPath + " does not have keys");
+        }
+        Map<String, PublicKey> keysById = new HashMap<>();
+        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+        for (JsonElement element : jwkSet.getAsJsonArray("keys")) {
+            JsonObject jwk = element.getAsJsonObject();
+            if (!"RSA".equals(getString(jwk, "kty")) || getString(jwk, "kid") == null ||
+                (jwk.has("use") && !"sig".equals(getString(jwk, "use")))) {
+                continue;
+            }
+            RSAPublicKeySpec keySpec = new RSAPublicKeySpec(decode(getString(jwk, "n")), decode(getString(jwk, "e")));
+            keysById.put(getString(jwk, "kid"), keyFactory.generatePublic(keySpec));
+        }
+        return keysById;
+    }
+
+    private static String getString(JsonObject jsonObject, String name) {
+        JsonElement element = jsonObject.get(name);
+        return element == null || element.isJsonNull() ? null : element.getAsString();
+    }
+
+    private static BigInteger decode(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("RSA JWK without modulus or exponent");
+        }
+        return new BigInteger(1, Base64.getUrlDecoder().decode(value));
+    }
+
+    /**
+     * Keys loaded at the same time and their verifiers, which are created once since they are thread safe.
+     */
+    private static final class Keys {
+
+        private final PublicKey defaultKey;
+        private final JWSVerifier defaultVerifier;
+        private final Map<String, PublicKey> keysById;
+        private final Map<String, JWSVerifier> verifiers = new HashMap<>();
+
+        Keys(PublicKey defaultKey, Map<String, PublicKey> keysById) {
+            this.defaultKey = defaultKey;
+            this.defaultVerifier = defaultKey instanceof RSAPublicKey ?
+                                   new RSASSAVerifier((RSAPublicKey) defaultKey) : null;
+            this.keysById = keysById;
+            keysById.forEach((keyId, key) -> verifiers.put(keyId, new RSASSAVerifier((RSAPublicKey) key)));
+        }
+
+        boolean sameKeys(Keys other) {
+            return Objects.equals(defaultKey, other.defaultKey) && keysById.equals(other.keysById);
+        }
+    }
+}
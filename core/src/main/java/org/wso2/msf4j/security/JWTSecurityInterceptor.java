@@ -18,7 +18,6 @@ package org.wso2.msf4j.security;
 
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSVerifier;
-import com.nimbusds.jose.crypto.RSASSAVerifier;
 import com.nimbusds.jwt.SignedJWT;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,24 +25,19 @@ import org.wso2.msf4j.Interceptor;
 import org.wso2.msf4j.Request;
 import org.wso2.msf4j.Response;
 import org.wso2.msf4j.ServiceMethodInfo;
+import org.wso2.msf4j.internal.security.ExpiringCache;
 import org.wso2.msf4j.util.SystemVariableUtil;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.security.Key;
-import java.security.KeyStore;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.PrivateKey;
-import java.security.PublicKey;
-import java.security.UnrecoverableKeyException;
-import java.security.cert.CertificateException;
-import java.security.interfaces.RSAPublicKey;
 import java.text.ParseException;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Verify the JWT header in request.
+ * <p>
+ * The verification keys are loaded once and reloaded periodically, see {@code JWT_KEY_REFRESH_INTERVAL}. Keys in the
+ * JWK set file given by {@code JWT_JWKS_FILE} are selected by the {@code kid} header of the JWT. Verified tokens are
+ * cached for a short time, so that clients which send the same token again do not pay for the signature check.
  */
 public class JWTSecurityInterceptor implements Interceptor {
 
@@ -54,10 +48,20 @@ public class JWTSecurityInterceptor implements Interceptor {
     private static final String KEYSTORE = SystemVariableUtil.getValue("PETSTORE_KEYSTORE", "wso2carbon.jks");
     private static final String ALIAS = SystemVariableUtil.getValue("PETSTORE_KEY_ALIAS", "wso2carbon");
     private static final String KEYSTORE_PASSWORD = SystemVariableUtil.getValue("PETSTORE_KEYSTORE_PASS", "wso2carbon");
+    private static final String JWKS_FILE = SystemVariableUtil.getValue("JWT_JWKS_FILE", null);
+    private static final long KEY_REFRESH_INTERVAL =
+            Long.parseLong(SystemVariableUtil.getValue("JWT_KEY_REFRESH_INTERVAL", "300"));
+    private static final long CACHE_TTL_MILLIS =
+            TimeUnit.SECONDS.toMillis(Long.parseLong(SystemVariableUtil.getValue("JWT_CACHE_TTL", "60")));
+    private static final ExpiringCache<Boolean> VERIFIED_TOKENS =
+            new ExpiringCache<>(Integer.parseInt(SystemVariableUtil.getValue("JWT_CACHE_MAX_ENTRIES", "10000")));
+    // When the keys change, tokens verified with the previous keys have to be verified again
+    private static final JWTKeyProvider KEY_PROVIDER =
+            new JWTKeyProvider(KEYSTORE, KEYSTORE_PASSWORD, ALIAS, JWKS_FILE, KEY_REFRESH_INTERVAL,
+                               VERIFIED_TOKENS::invalidateAll);
 
     public boolean preCall(Request request, Response responder, ServiceMethodInfo serviceMethodInfo)
             throws Exception {
-        log.info("Authentication precall");
         boolean isValidSignature;
         String jwtHeader = request.getHeader(JWT_HEADER);
         if (jwtHeader != null) {
@@ -77,39 +81,27 @@ public class JWTSecurityInterceptor implements Interceptor {
     }
 
     private boolean verifySignature(String jwt) {
+        String cacheKey = ExpiringCache.digest(jwt);
+        if (VERIFIED_TOKENS.get(cacheKey) != null) {
+            return true;
+        }
         try {
             SignedJWT signedJWT = SignedJWT.parse(jwt);
-            if (new Date().before(signedJWT.getJWTClaimsSet().getExpirationTime())) {
-                JWSVerifier verifier =
-                        new RSASSAVerifier((RSAPublicKey) getPublicKey(KEYSTORE, KEYSTORE_PASSWORD, ALIAS));
-                return signedJWT.verify(verifier);
+            Date expirationTime = signedJWT.getJWTClaimsSet().getExpirationTime();
+            if (expirationTime != null && new Date().before(expirationTime)) {
+                JWSVerifier verifier = KEY_PROVIDER.getVerifier(signedJWT.getHeader().getKeyID());
+                if (verifier != null && signedJWT.verify(verifier)) {
+                    // A cached token is never trusted beyond its own expiration time
+                    long expiresAt = Math.min(expirationTime.getTime(), System.currentTimeMillis() + CACHE_TTL_MILLIS);
+                    VERIFIED_TOKENS.put(cacheKey, Boolean.TRUE, expiresAt);
+                    return true;
+                }
             } else {
-                log.info("Token has expired");
+                log.debug("Token has expired");
             }
-        } catch (ParseException | IOException | KeyStoreException | CertificateException |
-                NoSuchAlgorithmException | UnrecoverableKeyException | JOSEException e) {
+        } catch (ParseException | JOSEException e) {
             log.error("Error occurred while JWT signature verification. JWT=" + jwt, e);
         }
         return false;
     }
-
-    private PublicKey getPublicKey(String keyStorePath, String keyStorePassword, String alias)
-            throws IOException, KeyStoreException, CertificateException,
-            NoSuchAlgorithmException, UnrecoverableKeyException {
-
-        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(keyStorePath)) {
-            KeyStore keystore = KeyStore.getInstance(KeyStore.getDefaultType());
-            keystore.load(inputStream, keyStorePassword.toCharArray());
-
-            Key key = keystore.getKey(alias, keyStorePassword.toCharArray());
-            if (key instanceof PrivateKey) {
-                // Get certificate of public key
-                java.security.cert.Certificate cert = keystore.getCertificate(alias);
-
-                // Get public key
-                return cert.getPublicKey();
-            }
-        }
-        return null;
-    }
 }
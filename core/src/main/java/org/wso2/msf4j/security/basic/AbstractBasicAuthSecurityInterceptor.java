@@ -20,13 +20,26 @@ import org.wso2.msf4j.Interceptor;
 import org.wso2.msf4j.Request;
 import org.wso2.msf4j.Response;
 import org.wso2.msf4j.ServiceMethodInfo;
+import org.wso2.msf4j.internal.security.ExpiringCache;
 
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 
 /**
  * AbstractBasicAuthSecurityInterceptor hides Netty based header processing and provide authenticate() method to plug-in
  * custom authentication logic.
+ * <p>
+ * Successful authentications can be cached, so that a client sending the same credentials again does not pay for
+ * {@link #authenticate(String, String)}, which typically checks a slow password hash or a user store. The cache is
+ * opt-in, see {@link #AbstractBasicAuthSecurityInterceptor(int, long, TimeUnit)}. It is keyed by an HMAC of the
+ * Authorization header with a random key, so the credentials themselves are not kept in memory.
  *
  * @since 1.1.0
  */
@@ -35,25 +48,57 @@ public abstract class AbstractBasicAuthSecurityInterceptor implements Intercepto
     private static final String AUTH_TYPE_BASIC = "Basic";
     public static final String CHARSET_UTF_8 = "UTF-8";
     private static final int AUTH_TYPE_BASIC_LENGTH = AUTH_TYPE_BASIC.length();
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int FAILURE_WINDOW_SECONDS = 60;
+
+    private final ExpiringCache<String> credentialCache;
+    private final long cacheTtlMillis;
+    private final ThreadLocal<Mac> cacheKeyMac;
+    private final LongAdder successCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder cacheHitCount = new LongAdder();
+    // Failures of the last FAILURE_WINDOW_SECONDS, one slot for each second
+    private final long[] failureWindowSeconds = new long[FAILURE_WINDOW_SECONDS];
+    private final long[] failureWindowCounts = new long[FAILURE_WINDOW_SECONDS];
+
+    /**
+     * Create an interceptor which authenticates every request.
+     */
+    protected AbstractBasicAuthSecurityInterceptor() {
+        this.credentialCache = null;
+        this.cacheTtlMillis = 0;
+        this.cacheKeyMac = null;
+    }
+
+    /**
+     * Create an interceptor which caches successful authentications.
+     *
+     * @param maxCachedCredentials maximum number of cached credentials
+     * @param cacheTtl             time a successful authentication is cached
+     * @param unit                 unit of the cache TTL
+     */
+    protected AbstractBasicAuthSecurityInterceptor(int maxCachedCredentials, long cacheTtl, TimeUnit unit) {
+        this.credentialCache = new ExpiringCache<>(maxCachedCredentials);
+        this.cacheTtlMillis = unit.toMillis(cacheTtl);
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        SecretKeySpec keySpec = new SecretKeySpec(key, HMAC_ALGORITHM);
+        this.cacheKeyMac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(HMAC_ALGORITHM + " is not supported", e);
+            }
+        });
+    }
 
     @Override
     public boolean preCall(Request request, Response responder, ServiceMethodInfo serviceMethodInfo) throws Exception {
         String authHeader = request.getHeader(javax.ws.rs.core.HttpHeaders.AUTHORIZATION);
-        if (authHeader != null) {
-            String authType = authHeader.substring(0, AUTH_TYPE_BASIC_LENGTH);
-            String authEncoded = authHeader.substring(AUTH_TYPE_BASIC_LENGTH).trim();
-            if (AUTH_TYPE_BASIC.equals(authType) && !authEncoded.isEmpty()) {
-                byte[] decodedByte = authEncoded.getBytes(Charset.forName(CHARSET_UTF_8));
-                String authDecoded = new String(Base64.getDecoder().decode(decodedByte),
-                        Charset.forName(CHARSET_UTF_8));
-                String[] authParts = authDecoded.split(":");
-                String username = authParts[0];
-                String password = authParts[1];
-                if (authenticate(username, password)) {
-                    return true;
-                }
-            }
-
+        if (authHeader != null && isAuthenticated(authHeader)) {
+            return true;
         }
         responder.setStatus(javax.ws.rs.core.Response.Status.UNAUTHORIZED.getStatusCode());
         responder.setHeader(javax.ws.rs.core.HttpHeaders.WWW_AUTHENTICATE, AUTH_TYPE_BASIC);
@@ -68,4 +113,165 @@ public abstract class AbstractBasicAuthSecurityInterceptor implements Intercepto
 
     protected abstract boolean authenticate(String username, String password);
 
+    /**
+     * Remove all the cached authentications, e.g. when the user store has changed.
+     */
+    public void invalidateCachedCredentials() {
+        if (credentialCache != null) {
+            credentialCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Remove the cached authentications of a user, e.g. when the password of the user has changed.
+     *
+     * @param username name of the user
+     */
+    public void invalidateCachedCredentials(String username) {
+        if (credentialCache != null) {
+            credentialCache.invalidateIf(username::equals);
+        }
+    }
+
+    /**
+     * @return number of requests which were authenticated, including the ones answered from the cache
+     */
+    public long getAuthenticationSuccessCount() {
+        return successCount.sum();
+    }
+
+    /**
+     * @return number of requests with a Basic Authorization header which failed to authenticate
+     */
+    public long getAuthenticationFailureCount() {
+        return failureCount.sum();
+    }
+
+    /**
+     * @return number of requests which were authenticated from the cache
+     */
+    public long getCredentialCacheHitCount() {
+        return cacheHitCount.sum();
+    }
+
+    /**
+     * A high number of recent failures indicates brute force attempts.
+     *
+     * @return number of failed authentications during the last minute
+     */
+    public long getRecentFailureCount() {
+        long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        long count = 0;
+        synchronized (failureWindowCounts) {
+            for (int i = 0; i < FAILURE_WINDOW_SECONDS; i++) {
+                if (now - failureWindowSeconds[i] < FAILURE_WINDOW_SECONDS) {
+                    count += failureWindowCounts[i];
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Authenticate the credentials of a Basic Authorization header. The header is parsed in place, without
+     * splitting it, and the password is everything after the first colon of the credentials (RFC 7617).
+     *
+     * @param authHeader value of the Authorization header
+     * @return true if the credentials are valid
+     */
+    boolean isAuthenticated(String authHeader) {
+        if (!authHeader.regionMatches(true, 0, AUTH_TYPE_BASIC, 0, AUTH_TYPE_BASIC_LENGTH)) {
+            return false;
+        }
+        int start = AUTH_TYPE_BASIC_LENGTH;
+        int end = authHeader.length();
+        while (start < end && authHeader.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && authHeader.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (start == AUTH_TYPE_BASIC_LENGTH || start == end) {
+            return false;
+        }
+
+        String cacheKey = null;
+        if (credentialCache != null) {
+            cacheKey = getCacheKey(authHeader, start, end);
+            if (credentialCache.get(cacheKey) != null) {
+                cacheHitCount.increment();
+                successCount.increment();
+                return true;
+            }
+        }
+
+        byte[] credentials = decode(authHeader, start, end);
+        int separator = -1;
+        if (credentials != null) {
+            for (int i = 0; i < credentials.length && separator < 0; i++) {
+                if (credentials[i] == ':') {
+                    separator = i;
+                }
+            }
+        }
+        if (separator < 0) {
+            recordFailure();
+            return false;
+        }
+        String username = new String(credentials, 0, separator, StandardCharsets.UTF_8);
+        String password = new String(credentials, separator + 1, credentials.length - separator - 1,
+                                     StandardCharsets.UTF_8);
+        Arrays.fill(credentials, (byte) 0);
+        if (authenticate(username, password)) {
+            successCount.increment();
+            if (cacheKey != null) {
+                credentialCache.put(cacheKey, username, System.currentTimeMillis() + cacheTtlMillis);
+            }
+            return true;
+        }
+        recordFailure();
+        return false;
+    }
+
+    /**
+     * @return decoded credentials, or null if they are not valid Base64
+     */
+    private static byte[] decode(String authHeader, int start, int end) {
+        byte[] encoded = new byte[end - start];
+        for (int i = start; i < end; i++) {
+            char c = authHeader.charAt(i);
+            if (c > 0x7F) {
+                return null;
+            }
+            encoded[i - start] = (byte) c;
+        }
+        try {
+            return Base64.getDecoder().decode(encoded);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private String getCacheKey(String authHeader, int start, int end) {
+        Mac mac = cacheKeyMac.get();
+        for (int i = start; i < end; i++) {
+            char c = authHeader.charAt(i);
+            mac.update((byte) (c >> 8));
+            mac.update((byte) c);
+        }
+        return Base64.getEncoder().encodeToString(mac.doFinal());
+    }
+
+    private void recordFailure() {
+        failureCount.increment();
+        long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        int slot = (int) (now % FAILURE_WINDOW_SECONDS);
+        synchronized (failureWindowCounts) {
+            if (failureWindowSeconds[slot] != now) {
+                failureWindowSeconds[slot] = now;
+                failureWindowCounts[slot] = 0;
+            }
+            failureWindowCounts[slot]++;
+        }
+    }
 }
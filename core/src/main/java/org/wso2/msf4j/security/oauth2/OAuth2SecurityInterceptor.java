@@ -15,10 +15,6 @@
  */
 package org.wso2.msf4j.security.oauth2;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import org.apache.commons.io.Charsets;
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.messaging.Headers;
@@ -30,17 +26,15 @@ import org.wso2.msf4j.security.MSF4JSecurityException;
 import org.wso2.msf4j.security.SecurityErrorCode;
 import org.wso2.msf4j.util.SystemVariableUtil;
 
-import java.lang.reflect.Type;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.IOException;
 import java.util.Locale;
 import java.util.Map;
-import javax.ws.rs.HttpMethod;
 
 /**
  * Act as a security gateway for resources secured with Oauth2.
  * <p>
  * Verify Oauth2 access token in Authorization Bearer HTTP header and allow access to the resource accordingly.
+ * Introspection results of active tokens are cached until the tokens expire.
  *
  * @since 1.0.0
  */
@@ -54,6 +48,14 @@ public class OAuth2SecurityInterceptor implements Interceptor {
     private static final String AUTH_SERVER_URL;
     private static final String TRUST_STORE = "TRUST_STORE";
     private static final String TRUST_STORE_PASSWORD = "TRUST_STORE_PASSWORD";
+    private static final String AUTH_SERVER_CONNECT_TIMEOUT = "AUTH_SERVER_CONNECT_TIMEOUT";
+    private static final String AUTH_SERVER_READ_TIMEOUT = "AUTH_SERVER_READ_TIMEOUT";
+    private static final String TOKEN_CACHE_MAX_ENTRIES = "TOKEN_CACHE_MAX_ENTRIES";
+    private static final String TOKEN_CACHE_MAX_TTL = "TOKEN_CACHE_MAX_TTL";
+    private static final int DEFAULT_TIMEOUT = 5000;
+    private static final int DEFAULT_CACHE_MAX_ENTRIES = 10000;
+    private static final int DEFAULT_CACHE_MAX_TTL = 300;
+    private static final TokenIntrospector TOKEN_INTROSPECTOR;
 
     static {
         AUTH_SERVER_URL = SystemVariableUtil.getValue(AUTH_SERVER_URL_KEY, null);
@@ -67,6 +69,20 @@ public class OAuth2SecurityInterceptor implements Interceptor {
             System.setProperty("javax.net.ssl.trustStore", trustStore);
             System.setProperty("javax.net.ssl.trustStorePassword", trustStorePassword);
         }
+        try {
+            TOKEN_INTROSPECTOR = new TokenIntrospector(
+                    AUTH_SERVER_URL,
+                    Integer.parseInt(SystemVariableUtil.getValue(AUTH_SERVER_CONNECT_TIMEOUT,
+                                                                 String.valueOf(DEFAULT_TIMEOUT))),
+                    Integer.parseInt(SystemVariableUtil.getValue(AUTH_SERVER_READ_TIMEOUT,
+                                                                 String.valueOf(DEFAULT_TIMEOUT))),
+                    Integer.parseInt(SystemVariableUtil.getValue(TOKEN_CACHE_MAX_ENTRIES,
+                                                                 String.valueOf(DEFAULT_CACHE_MAX_ENTRIES))),
+                    Long.parseLong(SystemVariableUtil.getValue(TOKEN_CACHE_MAX_TTL,
+                                                               String.valueOf(DEFAULT_CACHE_MAX_TTL))));
+        } catch (IOException e) {
+            throw new RuntimeException(AUTH_SERVER_URL_KEY + " is not a valid URL.", e);
+        }
     }
 
     @Override
@@ -108,11 +124,8 @@ public class OAuth2SecurityInterceptor implements Interceptor {
         // 1. Check whether this token is bearer token, if not return false
         String accessToken = extractAccessToken(authHeader);
 
-        // 2. Send a request to key server's introspect endpoint to validate this token
-        String responseStr = getValidatedTokenResponse(accessToken);
-        Map<String, String> responseData = getResponseDataMap(responseStr);
-
-        //TODO handle NPE
+        // 2. Send a request to key server's introspect endpoint to validate this token, unless it is cached
+        Map<String, String> responseData = TOKEN_INTROSPECTOR.introspect(accessToken);
 
         // 3. Process the response and return true if the token is valid.
         if (!Boolean.parseBoolean(responseData.get(IntrospectionResponse.ACTIVE))) {
@@ -142,48 +155,6 @@ public class OAuth2SecurityInterceptor implements Interceptor {
                 "Invalid Authorization header: " + authHeader);
     }
 
-    /**
-     * Validated the given accessToken with an external key server.
-     *
-     * @param accessToken AccessToken to be validated.
-     * @return the response from the key manager server.
-     */
-    private String getValidatedTokenResponse(String accessToken) throws MSF4JSecurityException {
-        URL url;
-        try {
-            url = new URL(AUTH_SERVER_URL);
-            HttpURLConnection urlConn = (HttpURLConnection) url.openConnection();
-            urlConn.setDoOutput(true);
-            urlConn.setRequestMethod(HttpMethod.POST);
-            urlConn.getOutputStream()
-                   .write(("token=" + accessToken + "&token_type_hint=" + BEARER_PREFIX).getBytes(Charsets.UTF_8));
-            return new String(IOUtils.toByteArray(urlConn.getInputStream()), Charsets.UTF_8);
-        } catch (java.io.IOException e) {
-            log.error("Error invoking Authorization Server", e);
-            throw new MSF4JSecurityException(SecurityErrorCode.GENERIC_ERROR, "Error invoking Authorization Server", e);
-        }
-    }
-
-    /**
-     * @param responseStr validated token response string returned from the key server.
-     * @return a Map of key, value pairs available the response String.
-     */
-    private Map<String, String> getResponseDataMap(String responseStr) {
-        Gson gson = new Gson();
-        Type typeOfMapOfStrings = new ExtendedTypeToken<Map<String, String>>() {
-        }.getType();
-        return gson.fromJson(responseStr, typeOfMapOfStrings);
-    }
-
-    /**
-     * This class extends the {@link TypeToken}.
-     * Created due to the findbug issue when passing anonymous inner class.
-     *
-     * @param <T> Generic type
-     */
-    private static class ExtendedTypeToken<T> extends TypeToken {
-    }
-
     /**
      * @param errorCode Security error code
      * @param responder HttpResponder instance which is used send error messages back to the client
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.msf4j.security.oauth2;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import org.apache.commons.io.Charsets;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.msf4j.internal.security.ExpiringCache;
+import org.wso2.msf4j.security.MSF4JSecurityException;
+import org.wso2.msf4j.security.SecurityErrorCode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Client of the token introspection endpoint of an authorization server.
+ * <p>
+ * Introspection results of active tokens are cached until the token expires, as given by the {@code exp} field of
+ * the response, but at most for the maximum TTL. The cache is bounded and keyed by a hash of the token, so access
+ * tokens are not kept in memory. Concurrent lookups of a token which is not cached share a single request to the
+ * authorization server.
+ * <p>
+ * Requests are sent with {@link HttpURLConnection}, which keeps the connection to the authorization server alive
+ * and reuses it as long as every response is read completely and closed. The number of idle connections kept per
+ * server is set with the {@code http.maxConnections} system property.
+ */
+final class TokenIntrospector {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenIntrospector.class);
+    private static final String TOKEN_TYPE_HINT = "bearer";
+
+    private final URL serverUrl;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final long maxTtlMillis;
+    private final Gson gson = new Gson();
+    private final ExpiringCache<Map<String, String>> cache;
+    private final ConcurrentMap<String, CompletableFuture<Map<String, String>>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param serverUrl      URL of the introspection endpoint
+     * @param connectTimeout timeout in milliseconds for connecting to the authorization server
+     * @param readTimeout    timeout in milliseconds for reading the response of the authorization server
+     * @param maxEntries     maximum number of cached introspection results, 0 disables the cache
+     * @param maxTtl         maximum time in seconds an introspection result is cached
+     * @throws IOException if the URL of the introspection endpoint is malformed
+     */
+    TokenIntrospector(String serverUrl, int connectTimeout, int readTimeout, int maxEntries, long maxTtl)
+            throws IOException {
+        this.serverUrl = new URL(serverUrl);
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.maxTtlMillis = TimeUnit.SECONDS.toMillis(maxTtl);
+        this.cache = new ExpiringCache<>(maxEntries);
+    }
+
+    /**
+     * Introspect the given access token.
+     *
+     * @param accessToken access token to be introspected
+     * @return fields of the introspection response, which are empty if the response did not have any
+     * @throws MSF4JSecurityException if the authorization server could not be invoked
+     */
+    Map<String, String> introspect(String accessToken) throws MSF4JSecurityException {
+        String key = ExpiringCache.digest(accessToken);
+        Map<String, String> response = cache.get(key);
+        if (response != null) {
+            return response;
+        }
+        CompletableFuture<Map<String, String>> future = new CompletableFuture<>();
+        CompletableFuture<Map<String, String>> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            // Another thread is already introspecting this token
+            return await(existing);
+        }
+        try {
+            response = cache.get(key);
+            if (response == null) {
+                response = invoke(accessToken);
+                cache(key, response);
+            }
+            future.complete(response);
+            return response;
+        } catch (MSF4JSecurityException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Cache the response of an active token until the token expires, bounded by the maximum TTL. Inactive tokens
+     * are not cached, so that requests with arbitrary tokens cannot evict the active ones.
+     */
+    private void cache(String key, Map<String, String> response) {
+        if (!Boolean.parseBoolean(response.get(IntrospectionResponse.ACTIVE))) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + maxTtlMillis;
+        String exp = response.get(IntrospectionResponse.EXP);
+        if (exp != null) {
+            try {
+                expiresAt = Math.min(expiresAt, (long) (Double.parseDouble(exp) * 1000));
+            } catch (NumberFormatException e) {
+                log.debug("Invalid exp in the introspection response: {}", exp);
+                return;
+            }
+        }
+        cache.put(key, response, expiresAt);
+    }
+
+    private static Map<String, String> await(CompletableFuture<Map<String, String>> future)
+            throws MSF4JSecurityException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof MSF4JSecurityException) {
+                throw (MSF4JSecurityException) e.getCause();
+            }
+            throw new MSF4JSecurityException(SecurityErrorCode.GENERIC_ERROR, "Error invoking Authorization Server",
+                                             e.getCause());
+        }
+    }
+
+    /**
+     * Send the access token to the introspection endpoint of the authorization server.
+     */
+    private Map<String, String> invoke(String accessToken) throws MSF4JSecurityException {
+        try {
+            byte[] body = ("token=" + URLEncoder.encode(accessToken, "UTF-8") + "&token_type_hint=" + TOKEN_TYPE_HINT)
+                    .getBytes(Charsets.UTF_8);
+            HttpURLConnection urlConn = (HttpURLConnection) serverUrl.openConnection();
+            urlConn.setConnectTimeout(connectTimeout);
+            urlConn.setReadTimeout(readTimeout);
+            urlConn.setDoOutput(true);
+            urlConn.setRequestMethod(HttpMethod.POST);
+            urlConn.setRequestProperty(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED);
+            urlConn.setRequestProperty(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON);
+            urlConn.setFixedLengthStreamingMode(body.length);
+            try (OutputStream outputStream = urlConn.getOutputStream()) {
+                outputStream.write(body);
+            }
+            int status = urlConn.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                // Read the error response as well, so that the connection can be reused
+                InputStream errorStream = urlConn.getErrorStream();
+                if (errorStream != null) {
+                    try (InputStream inputStream = errorStream) {
+                        IOUtils.toByteArray(inputStream);
+                    }
+                }
+                throw new IOException("Authorization Server responded with status " + status);
+            }
+            String responseStr;
+            try (InputStream inputStream = urlConn.getInputStream()) {
+                responseStr = new String(IOUtils.toByteArray(inputStream), Charsets.UTF_8);
+            }
+            return toResponseMap(gson.fromJson(responseStr, JsonObject.class));
+        } catch (IOException | JsonParseException e) {
+            log.error("Error invoking Authorization Server", e);
+            throw new MSF4JSecurityException(SecurityErrorCode.GENERIC_ERROR, "Error invoking Authorization Server", e);
+        }
+    }
+
+    /**
+     * Flatten the introspection response. Fields which are not strings, such as an {@code aud} array, are kept in
+     * their JSON form.
+     */
+    private static Map<String, String> toResponseMap(JsonObject jsonObject) {
+        if (jsonObject == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> response = new HashMap<>();
+        for (Map.Entry<String, JsonElement> field : jsonObject.entrySet()) {
+            JsonElement value = field.getValue();
+            if (!value.isJsonNull()) {
+                response.put(field.getKey(), value.isJsonPrimitive() ? value.getAsString() : value.toString());
+            }
+        }
+        return Collections.unmodifiableMap(response);
+    }
+}
@@ -26,7 +26,8 @@ import java.util.List;
 public class BufferUtil {
 
     /**
-     * Merge a list of buffers into a single buffer.
+     * Merge a list of buffers into a single buffer. Prefer {@link CompositeByteBuffer}, which does not copy the
+     * content, where the consumer can read the content as a stream or as slices.
      *
      * @param byteBuffers list of ByteBuffer objects
      * @return merged ByteBuffer
@@ -39,7 +40,7 @@ public class BufferUtil {
         } else {
             ByteBuffer fullContent = ByteBuffer.allocate(
                     byteBuffers.stream()
-                            .mapToInt(Buffer::capacity)
+                            .mapToInt(Buffer::remaining)
                             .sum()
             );
             byteBuffers.forEach(fullContent::put);
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.msf4j.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * View over the chunks of a message body. The chunks are not copied, converters can consume the content as a stream
+ * or as read-only slices, and only {@link #toByteBuffer()} copies the content when there is more than one chunk.
+ * Reading from the view never changes the position of the underlying chunks.
+ */
+public class CompositeByteBuffer {
+
+    private static final int CHAR_BUFFER_SIZE = 8192;
+
+    private final List<ByteBuffer> buffers;
+    private final int remaining;
+
+    /**
+     * Create a view over the remaining bytes of the given buffers.
+     *
+     * @param byteBuffers list of ByteBuffer objects, may be null
+     */
+    public CompositeByteBuffer(List<ByteBuffer> byteBuffers) {
+        if (byteBuffers == null || byteBuffers.isEmpty()) {
+            this.buffers = Collections.emptyList();
+            this.remaining = 0;
+        } else {
+            List<ByteBuffer> slices = new ArrayList<>(byteBuffers.size());
+            int size = 0;
+            for (ByteBuffer byteBuffer : byteBuffers) {
+                if (byteBuffer.hasRemaining()) {
+                    slices.add(byteBuffer.duplicate());
+                    size = Math.addExact(size, byteBuffer.remaining());
+                }
+            }
+            this.buffers = Collections.unmodifiableList(slices);
+            this.remaining = size;
+        }
+    }
+
+    /**
+     * @return number of bytes in the view
+     */
+    public int remaining() {
+        return remaining;
+    }
+
+    /**
+     * @return true if the view does not have any bytes
+     */
+    public boolean isEmpty() {
+        return remaining == 0;
+    }
+
+    /**
+     * @return read-only slices of the chunks in the view, each positioned at its first byte
+     */
+    public List<ByteBuffer> slices() {
+        List<ByteBuffer> slices = new ArrayList<>(buffers.size());
+        buffers.forEach(buffer -> slices.add(buffer.asReadOnlyBuffer()));
+        return slices;
+    }
+
+    /**
+     * @return a new stream reading the content of the view from the beginning
+     */
+    public InputStream newInputStream() {
+        return new ChunkInputStream(slices());
+    }
+
+    /**
+     * @param charset charset of the content
+     * @return a new reader decoding the content of the view from the beginning
+     */
+    public Reader newReader(Charset charset) {
+        return new InputStreamReader(newInputStream(), charset);
+    }
+
+    /**
+     * Decode the content of the view.
+     *
+     * @param charset charset of the content
+     * @return decoded content
+     */
+    public String toString(Charset charset) {
+        if (buffers.isEmpty()) {
+            return "";
+        } else if (buffers.size() == 1) {
+            return charset.decode(buffers.get(0).duplicate()).toString();
+        }
+        StringBuilder content = new StringBuilder(remaining);
+        char[] chars = new char[Math.min(CHAR_BUFFER_SIZE, remaining)];
+        try (Reader reader = newReader(charset)) {
+            int read;
+            while ((read = reader.read(chars)) != -1) {
+                content.append(chars, 0, read);
+            }
+        } catch (IOException e) {
+            // Reading from heap and direct buffers does not throw IOExceptions
+            throw new IllegalStateException("Error while decoding the content", e);
+        }
+        return content.toString();
+    }
+
+    /**
+     * Get the content of the view as a single buffer. This copies the content when the view has more than one chunk,
+     * prefer {@link #newInputStream()} or {@link #slices()} where possible.
+     *
+     * @return duplicate of the chunk, sharing its content and backing array, if the view has a single chunk or a new
+     *         buffer with a copy of the content
+     */
+    public ByteBuffer toByteBuffer() {
+        if (buffers.isEmpty()) {
+            return ByteBuffer.allocate(0);
+        } else if (buffers.size() == 1) {
+            return buffers.get(0).duplicate();
+        }
+        ByteBuffer content = ByteBuffer.allocate(remaining);
+        buffers.forEach(buffer -> content.put(buffer.duplicate()));
+        content.flip();
+        return content;
+    }
+
+    /**
+     * InputStream over a list of buffers.
+     */
+    private static class ChunkInputStream extends InputStream {
+
+        private final List<ByteBuffer> chunks;
+        private int chunkIndex;
+
+        ChunkInputStream(List<ByteBuffer> chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public int read() {
+            ByteBuffer chunk = currentChunk();
+            return chunk == null ? -1 : chunk.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            ByteBuffer chunk = currentChunk();
+            if (chunk == null) {
+                return -1;
+            }
+            int read = Math.min(length, chunk.remaining());
+            chunk.get(bytes, offset, read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = 0;
+            ByteBuffer chunk;
+            while (skipped < n && (chunk = currentChunk()) != null) {
+                int skip = (int) Math.min(n - skipped, chunk.remaining());
+                chunk.position(chunk.position() + skip);
+                skipped += skip;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            int available = 0;
+            for (int i = chunkIndex; i < chunks.size(); i++) {
+                available += chunks.get(i).remaining();
+            }
+            return available;
+        }
+
+        private ByteBuffer currentChunk() {
+            while (chunkIndex < chunks.size()) {
+                ByteBuffer chunk = chunks.get(chunkIndex);
+                if (chunk.hasRemaining()) {
+                    return chunk;
+                }
+                chunkIndex++;
+            }
+            return null;
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.wso2.msf4j.util;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -59,6 +60,8 @@ public class QueryStringDecoderUtil {
     private final int maxParams;
     private String path;
     private Map<String, List<String>> params;
+    // start and end offsets of the name and the value of each decoded parameter, 4 entries per parameter
+    private int[] paramOffsets;
     private int nParams;
 
     /**
@@ -224,81 +227,152 @@ public class QueryStringDecoderUtil {
      */
     public Map<String, List<String>> parameters() {
         if (params == null) {
-            if (hasPath) {
-                int pathLength = path().length();
-                if (uri.length() == pathLength) {
-                    return Collections.emptyMap();
-                }
-                decodeParams(uri.substring(pathLength + 1));
-            } else {
-                if (uri.isEmpty()) {
-                    return Collections.emptyMap();
+            indexParams();
+            if (nParams == 0) {
+                return Collections.emptyMap();
+            }
+            Map<String, List<String>> params = new LinkedHashMap<>();
+            for (int i = 0; i < nParams * 4; i += 4) {
+                String name = decodeComponent(paramOffsets[i], paramOffsets[i + 1]);
+                List<String> values = params.get(name);
+                if (values == null) {
+                    values = new ArrayList<>(1);  // Often there's only 1 value.
+                    params.put(name, values);
                 }
-                decodeParams(uri);
+                values.add(decodeComponent(paramOffsets[i + 2], paramOffsets[i + 3]));
             }
+            this.params = params;
         }
         return params;
     }
 
-    private void decodeParams(String s) {
-        Map<String, List<String>> params = this.params = new LinkedHashMap<>();
+    /**
+     * Returns the decoded values of a single parameter of the URI. Unlike {@link #parameters()} this only decodes the
+     * values of the given parameter, so it is cheaper when a few parameters are looked up from a long query string.
+     *
+     * @param name decoded name of the parameter
+     * @return the decoded values of the parameter or null if the URI does not have the parameter
+     */
+    public List<String> parameter(String name) {
+        if (params != null) {
+            return params.get(name);
+        }
+        indexParams();
+        List<String> values = null;
+        for (int i = 0; i < nParams * 4; i += 4) {
+            if (nameMatches(paramOffsets[i], paramOffsets[i + 1], name)) {
+                if (values == null) {
+                    values = new ArrayList<>(1);
+                }
+                values.add(decodeComponent(paramOffsets[i + 2], paramOffsets[i + 3]));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Records the start and end offsets of the name and the value of each parameter in the URI, without creating
+     * any strings.
+     */
+    private void indexParams() {
+        if (paramOffsets != null) {
+            return;
+        }
+        paramOffsets = new int[16];
         nParams = 0;
-        String name = null;
-        int pos = 0; // Beginning of the unprocessed region
-        int i;       // End of the unprocessed region
-        char c;  // Current character
-        for (i = 0; i < s.length(); i++) {
-            c = s.charAt(i);
-            if (c == '=' && name == null) {
+        int start;
+        if (hasPath) {
+            start = uri.indexOf('?') + 1;
+            if (start == 0) {
+                return;
+            }
+        } else {
+            start = 0;
+        }
+        int nameStart = -1; // Beginning of the name of the current parameter, if we have seen an `='
+        int nameEnd = -1;
+        int pos = start; // Beginning of the unprocessed region
+        int i;           // End of the unprocessed region
+        char c;          // Current character
+        for (i = start; i < uri.length(); i++) {
+            c = uri.charAt(i);
+            if (c == '=' && nameStart < 0) {
                 if (pos != i) {
-                    name = decodeComponent(s.substring(pos, i), charset);
+                    nameStart = pos;
+                    nameEnd = i;
                 }
                 pos = i + 1;
                 // http://www.w3.org/TR/html401/appendix/notes.html#h-B.2.2
             } else if (c == '&' || c == ';') {
-                if (name == null && pos != i) {
+                if (nameStart < 0 && pos != i) {
                     // We haven't seen an `=' so far but moved forward.
                     // Must be a param of the form '&a&' so add it with
                     // an empty value.
-                    if (!addParam(params, decodeComponent(s.substring(pos, i), charset), "")) {
+                    if (!addParam(pos, i, i, i)) {
                         return;
                     }
-                } else if (name != null) {
-                    if (!addParam(params, name, decodeComponent(s.substring(pos, i), charset))) {
+                } else if (nameStart >= 0) {
+                    if (!addParam(nameStart, nameEnd, pos, i)) {
                         return;
                     }
-                    name = null;
+                    nameStart = -1;
                 }
                 pos = i + 1;
             }
         }
 
         if (pos != i) {  // Are there characters we haven't dealt with?
-            if (name == null) {     // Yes and we haven't seen any `='.
-                addParam(params, decodeComponent(s.substring(pos, i), charset), "");
+            if (nameStart < 0) {     // Yes and we haven't seen any `='.
+                addParam(pos, i, i, i);
             } else {                // Yes and this must be the last value.
-                addParam(params, name, decodeComponent(s.substring(pos, i), charset));
+                addParam(nameStart, nameEnd, pos, i);
             }
-        } else if (name != null) {  // Have we seen a name without value?
-            addParam(params, name, "");
+        } else if (nameStart >= 0) {  // Have we seen a name without value?
+            addParam(nameStart, nameEnd, i, i);
         }
     }
 
-    private boolean addParam(Map<String, List<String>> params, String name, String value) {
+    private boolean addParam(int nameStart, int nameEnd, int valueStart, int valueEnd) {
         if (nParams >= maxParams) {
             return false;
         }
-
-        List<String> values = params.get(name);
-        if (values == null) {
-            values = new ArrayList<>(1);  // Often there's only 1 value.
-            params.put(name, values);
+        int offset = nParams * 4;
+        if (offset == paramOffsets.length) {
+            paramOffsets = Arrays.copyOf(paramOffsets, offset * 2);
         }
-        values.add(value);
+        paramOffsets[offset] = nameStart;
+        paramOffsets[offset + 1] = nameEnd;
+        paramOffsets[offset + 2] = valueStart;
+        paramOffsets[offset + 3] = valueEnd;
         nParams++;
         return true;
     }
 
+    private boolean nameMatches(int start, int end, String name) {
+        if (isEncoded(start, end)) {
+            return decodeComponent(uri.substring(start, end), charset).equals(name);
+        }
+        return end - start == name.length() && uri.regionMatches(start, name, 0, name.length());
+    }
+
+    private String decodeComponent(int start, int end) {
+        if (start == end) {
+            return "";
+        }
+        String component = uri.substring(start, end);
+        return isEncoded(start, end) ? decodeComponent(component, charset) : component;
+    }
+
+    private boolean isEncoded(int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = uri.charAt(i);
+            if (c == '%' || c == '+') {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Decodes a bit of an URL encoded by a browser.
      * <p>
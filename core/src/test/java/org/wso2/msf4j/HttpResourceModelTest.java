@@ -17,9 +17,18 @@
 package org.wso2.msf4j;
 
 import org.testng.annotations.Test;
+import org.wso2.msf4j.executor.ExecuteOn;
+import org.wso2.msf4j.executor.RequestExecutor;
+import org.wso2.msf4j.executor.RequestExecutors;
+import org.wso2.msf4j.internal.MicroservicesRegistryImpl;
 import org.wso2.msf4j.internal.router.HttpResourceModel;
 
+import java.lang.reflect.InvocationTargetException;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
 import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
 
 /**
  * Tests functionality fo HttpResourceModel.
@@ -46,6 +55,70 @@ public class HttpResourceModelTest {
         assertTrue(!httpResourceModel.isStreamingReqSupported());
     }
 
+    @Test
+    public void testExecuteOnResolution() throws NoSuchMethodException {
+        TestClass testObj = new TestClass();
+        HttpResourceModel httpResourceModel = new HttpResourceModel("", testObj.getClass()
+                .getMethod("methodWithNoHttpStreaming", Object.class),
+                testObj, false);
+        assertNull(httpResourceModel.getExecuteOn());
+
+        httpResourceModel = new HttpResourceModel("", testObj.getClass()
+                .getMethod("methodExecutedOnIOThread"),
+                testObj, false);
+        assertEquals(ExecuteOn.IO, httpResourceModel.getExecuteOn());
+
+        IOTestClass ioTestObj = new IOTestClass();
+        httpResourceModel = new HttpResourceModel("", ioTestObj.getClass()
+                .getMethod("inheritedExecution"),
+                ioTestObj, false);
+        assertEquals(ExecuteOn.IO, httpResourceModel.getExecuteOn());
+
+        httpResourceModel = new HttpResourceModel("", ioTestObj.getClass()
+                .getMethod("overriddenExecution"),
+                ioTestObj, false);
+        assertEquals("reports", httpResourceModel.getExecuteOn());
+    }
+
+    @Test
+    public void testMissingRequestExecutorDetectedOnDeployment() {
+        MicroservicesRegistryImpl registry = new MicroservicesRegistryImpl();
+        registry.checkRequestExecutors(new TestClass());
+        try {
+            registry.checkRequestExecutors(new IOTestClass());
+            fail("Expected IllegalStateException for the unregistered executor");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("reports"));
+        }
+
+        RequestExecutor reportsExecutor = RequestExecutors.newBoundedQueueExecutor(1, 1);
+        try {
+            registry.addRequestExecutor("reports", reportsExecutor);
+            registry.checkRequestExecutors(new IOTestClass());
+        } finally {
+            reportsExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testInvoker() throws Exception {
+        InvokerTestClass testObj = new InvokerTestClass();
+        HttpResourceModel httpResourceModel = new HttpResourceModel("", testObj.getClass()
+                .getMethod("echo", String.class, int.class),
+                testObj, false);
+        assertEquals("msf4j:2", httpResourceModel.getInvoker().invoke(testObj, new Object[]{"msf4j", 2}));
+
+        httpResourceModel = new HttpResourceModel("", testObj.getClass()
+                .getMethod("fail"),
+                testObj, false);
+        try {
+            httpResourceModel.getInvoker().invoke(testObj, new Object[0]);
+            fail("Exception thrown by the resource method should be propagated");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getTargetException() instanceof IllegalStateException);
+        }
+    }
+
     /**
      * Test class used for testing HttpResourceMethod functionality.
      */
@@ -57,6 +130,40 @@ public class HttpResourceModelTest {
         public void methodWithNoHttpStreaming(Object object) {
         }
 
+        @ExecuteOn(ExecuteOn.IO)
+        public void methodExecutedOnIOThread() {
+        }
+
+    }
+
+    /**
+     * Test class used for testing resource method invocation.
+     */
+    public static class InvokerTestClass {
+
+        public String echo(String message, int count) {
+            return message + ":" + count;
+        }
+
+        public void fail() {
+            throw new IllegalStateException("Resource method failed");
+        }
+
+    }
+
+    /**
+     * Test class used for testing the class level execution affinity.
+     */
+    @ExecuteOn(ExecuteOn.IO)
+    private static class IOTestClass {
+
+        public void inheritedExecution() {
+        }
+
+        @ExecuteOn("reports")
+        public void overriddenExecution() {
+        }
+
     }
 
 }
@@ -46,6 +46,7 @@ import org.wso2.msf4j.service.sub.Player;
 import org.wso2.msf4j.service.sub.Team;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
@@ -72,6 +73,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
@@ -705,6 +709,29 @@ public class HttpServerTest {
         assertTrue(isStreamEqual(downStream, new FileInputStream(file)));
     }
 
+    @Test
+    public void testDownloadInputStreamOfSeveralChunks() throws Exception {
+        testStreamedDownload("/test/v1/stream/download/", 5 * 32 * 1024 + 123);
+    }
+
+    @Test
+    public void testDownloadStreamingOutputOfSeveralChunks() throws Exception {
+        testStreamedDownload("/test/v1/streamingOutput/download/", 5 * 32 * 1024 + 123);
+    }
+
+    protected void testStreamedDownload(String path, int size) throws IOException {
+        HttpURLConnection urlConn = request(path + size, HttpMethod.GET);
+        assertEquals(Response.Status.OK.getStatusCode(), urlConn.getResponseCode());
+        byte[] content = IOUtils.toByteArray(urlConn.getInputStream());
+        urlConn.disconnect();
+        assertEquals(size, content.length);
+        for (int i = 0; i < size; i++) {
+            if (content[i] != TestMicroservice.streamedByte(i)) {
+                fail("Content differs at byte " + i);
+            }
+        }
+    }
+
     @Test
     public void testDownloadTxtFile() throws Exception {
         HttpURLConnection urlConn = request("/test/v1/fileserver/txt", HttpMethod.GET);
@@ -716,6 +743,86 @@ public class HttpServerTest {
         assertTrue(isStreamEqual(downStream, new FileInputStream(file)));
     }
 
+    @Test
+    public void testDownloadTxtFileRange() throws Exception {
+        HttpURLConnection urlConn = request("/test/v1/fileserver/txt", HttpMethod.GET);
+        urlConn.setRequestProperty("Range", "bytes=10-19");
+        assertEquals(206, urlConn.getResponseCode());
+        File file = new File(Thread.currentThread().getContextClassLoader().getResource("testTxtFile.txt").toURI());
+        assertEquals("bytes 10-19/" + file.length(), urlConn.getHeaderField("Content-Range"));
+        byte[] expected = Arrays.copyOfRange(Files.readAllBytes(file.toPath()), 10, 20);
+        assertTrue(Arrays.equals(expected, IOUtils.toByteArray(urlConn.getInputStream())));
+        urlConn.disconnect();
+
+        urlConn = request("/test/v1/fileserver/txt", HttpMethod.GET);
+        urlConn.setRequestProperty("Range", "bytes=-10");
+        assertEquals(206, urlConn.getResponseCode());
+        expected = Arrays.copyOfRange(Files.readAllBytes(file.toPath()), (int) file.length() - 10, (int) file.length());
+        assertTrue(Arrays.equals(expected, IOUtils.toByteArray(urlConn.getInputStream())));
+        urlConn.disconnect();
+    }
+
+    @Test
+    public void testDownloadTxtFileUnsatisfiableRange() throws Exception {
+        HttpURLConnection urlConn = request("/test/v1/fileserver/txt", HttpMethod.GET);
+        File file = new File(Thread.currentThread().getContextClassLoader().getResource("testTxtFile.txt").toURI());
+        urlConn.setRequestProperty("Range", "bytes=" + file.length() + "-");
+        assertEquals(416, urlConn.getResponseCode());
+        assertEquals("bytes */" + file.length(), urlConn.getHeaderField("Content-Range"));
+        urlConn.disconnect();
+    }
+
+    @Test
+    public void testDownloadTxtFileIfRangeMismatch() throws Exception {
+        HttpURLConnection urlConn = request("/test/v1/fileserver/txt", HttpMethod.GET);
+        urlConn.setRequestProperty("Range", "bytes=10-19");
+        urlConn.setRequestProperty("If-Range", "\"outdated\"");
+        assertEquals(Response.Status.OK.getStatusCode(), urlConn.getResponseCode());
+        assertEquals("bytes", urlConn.getHeaderField("Accept-Ranges"));
+        File file = new File(Thread.currentThread().getContextClassLoader().getResource("testTxtFile.txt").toURI());
+        assertTrue(isStreamEqual(urlConn.getInputStream(), new FileInputStream(file)));
+        urlConn.disconnect();
+    }
+
+    @Test
+    public void testCompressedFileValidators() throws Exception {
+        String expected = getTextFileContent(256);
+        HttpURLConnection urlConn = request("/test/v1/fileserver/tagged", HttpMethod.GET);
+        assertEquals(Response.Status.OK.getStatusCode(), urlConn.getResponseCode());
+        assertNull(urlConn.getHeaderField(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"text-file\"", urlConn.getHeaderField(HttpHeaders.ETAG));
+        assertEquals("bytes", urlConn.getHeaderField("Accept-Ranges"));
+        assertEquals(expected, getContent(urlConn));
+        urlConn.disconnect();
+
+        // The compressed representation has a weak entity tag and offers no byte ranges
+        urlConn = request("/test/v1/fileserver/tagged", HttpMethod.GET);
+        urlConn.addRequestProperty(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        assertEquals(Response.Status.OK.getStatusCode(), urlConn.getResponseCode());
+        assertEquals("gzip", urlConn.getHeaderField(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("W/\"text-file\"", urlConn.getHeaderField(HttpHeaders.ETAG));
+        assertNull(urlConn.getHeaderField("Accept-Ranges"));
+        assertEquals(expected,
+                     new String(IOUtils.toByteArray(new GZIPInputStream(urlConn.getInputStream())), Charsets.UTF_8));
+        urlConn.disconnect();
+
+        // Resuming with the entity tag of the compressed representation gets the whole file again
+        urlConn = request("/test/v1/fileserver/tagged", HttpMethod.GET);
+        urlConn.setRequestProperty("Range", "bytes=10-19");
+        urlConn.setRequestProperty("If-Range", "W/\"text-file\"");
+        assertEquals(Response.Status.OK.getStatusCode(), urlConn.getResponseCode());
+        assertEquals(expected, getContent(urlConn));
+        urlConn.disconnect();
+    }
+
+    @Test(timeOut = 30000)
+    public void testDownloadLargeFileOnIOThread() throws Exception {
+        HttpURLConnection urlConn = request("/test/v1/fileserver/large", HttpMethod.GET);
+        assertEquals(Response.Status.OK.getStatusCode(), urlConn.getResponseCode());
+        assertEquals(getTextFileContent(200000), getContent(urlConn));
+        urlConn.disconnect();
+    }
+
     @Test
     public void testDownloadTxtFileFromInputStream() throws Exception {
         HttpURLConnection urlConn = request("/test/v1/fileserver/ip/txt", HttpMethod.GET);
@@ -740,14 +847,99 @@ public class HttpServerTest {
 
     @Test
     public void testGzipCompressionWithGzipAccept() throws Exception {
+        HttpURLConnection urlConn = request("/test/v1/gziptext", HttpMethod.GET);
+        String content = getContent(urlConn);
+        urlConn.disconnect();
+
+        urlConn = request("/test/v1/gziptext", HttpMethod.GET);
+        urlConn.addRequestProperty(HttpHeaders.ACCEPT_ENCODING, "deflate;q=0.5, gzip");
+        assertEquals(Response.Status.OK.getStatusCode(), urlConn.getResponseCode());
+        assertEquals("gzip", urlConn.getHeaderField(HttpHeaders.CONTENT_ENCODING));
+        byte[] compressed = IOUtils.toByteArray(urlConn.getInputStream());
+        assertTrue(compressed.length < content.length());
+        assertEquals(content, new String(IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed))),
+                                         Charsets.UTF_8));
+        urlConn.disconnect();
+    }
+
+    @Test
+    public void testDeflateCompression() throws Exception {
+        HttpURLConnection urlConn = request("/test/v1/gziptext", HttpMethod.GET);
+        urlConn.addRequestProperty(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate");
+        assertEquals(Response.Status.OK.getStatusCode(), urlConn.getResponseCode());
+        assertEquals("deflate", urlConn.getHeaderField(HttpHeaders.CONTENT_ENCODING));
+        String content = new String(IOUtils.toByteArray(new InflaterInputStream(urlConn.getInputStream())),
+                                    Charsets.UTF_8);
+        assertTrue(content.startsWith("compressible-0\n"));
+        urlConn.disconnect();
+    }
+
+    @Test
+    public void testGzipCompressionSkipsCompressedMediaType() throws Exception {
         HttpURLConnection urlConn = request("/test/v1/gzipfile", HttpMethod.GET);
         urlConn.addRequestProperty(HttpHeaders.ACCEPT_ENCODING, "gzip");
         assertEquals(Response.Status.OK.getStatusCode(), urlConn.getResponseCode());
-        String contentEncoding = urlConn.getHeaderField(HttpHeaders.CONTENT_ENCODING);
-        assertTrue("gzip".equalsIgnoreCase(contentEncoding));
-        InputStream downStream = urlConn.getInputStream();
-        assertTrue(IOUtils.toByteArray(downStream).length < IOUtils.toByteArray(
+        // Neither MSF4J nor the transport compresses the image, and the response does not vary on Accept-Encoding
+        assertNull(urlConn.getHeaderField(HttpHeaders.CONTENT_ENCODING));
+        assertNull(urlConn.getHeaderField(HttpHeaders.VARY));
+        assertTrue(IOUtils.toByteArray(urlConn.getInputStream()).length == IOUtils.toByteArray(
                 Thread.currentThread().getContextClassLoader().getResource("testJpgFile.jpg").openStream()).length);
+        urlConn.disconnect();
+    }
+
+    @Test
+    public void testGzipRequestBody() throws Exception {
+        HttpURLConnection urlConn = request("/test/v1/textConsumeTextProduce", HttpMethod.POST);
+        urlConn.setRequestProperty(HttpHeaders.CONTENT_TYPE, "text/plain");
+        urlConn.setRequestProperty(HttpHeaders.CONTENT_ENCODING, "gzip");
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(urlConn.getOutputStream())) {
+            outputStream.write("send-something-compressed".getBytes(Charsets.UTF_8));
+        }
+        assertEquals(Response.Status.OK.getStatusCode(), urlConn.getResponseCode());
+        assertEquals("send-something-compressed-processed", getContent(urlConn));
+        urlConn.disconnect();
+    }
+
+    @Test
+    public void testMalformedGzipRequestBody() throws Exception {
+        HttpURLConnection urlConn = request("/test/v1/textConsumeTextProduce", HttpMethod.POST);
+        urlConn.setRequestProperty(HttpHeaders.CONTENT_TYPE, "text/plain");
+        urlConn.setRequestProperty(HttpHeaders.CONTENT_ENCODING, "gzip");
+        try (OutputStream outputStream = urlConn.getOutputStream()) {
+            outputStream.write("not-compressed".getBytes(Charsets.UTF_8));
+        }
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), urlConn.getResponseCode());
+        urlConn.disconnect();
+    }
+
+    @Test
+    public void testGzipRequestBodyAboveDecompressedLimit() throws Exception {
+        // The limit is set to 1MB for the tests, and zeros compress to a small fraction of that
+        HttpURLConnection urlConn = request("/test/v1/textConsumeTextProduce", HttpMethod.POST);
+        urlConn.setRequestProperty(HttpHeaders.CONTENT_TYPE, "text/plain");
+        urlConn.setRequestProperty(HttpHeaders.CONTENT_ENCODING, "gzip");
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(urlConn.getOutputStream())) {
+            outputStream.write(new byte[2 * 1024 * 1024]);
+        }
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.getStatusCode(), urlConn.getResponseCode());
+        urlConn.disconnect();
+    }
+
+    @Test
+    public void testGzipMultipartRequestAboveDecompressedLimit() throws Exception {
+        HttpURLConnection urlConn = request("/test/v1/formDataParam", HttpMethod.POST);
+        MultipartEntityBuilder builder = MultipartEntityBuilder.create();
+        builder.addPart("name", new StringBody(new String(new char[2 * 1024 * 1024]).replace('\0', 'a'),
+                                               ContentType.TEXT_PLAIN));
+        builder.addPart("age", new StringBody("10", ContentType.TEXT_PLAIN));
+        HttpEntity entity = builder.build();
+        urlConn.setRequestProperty(HttpHeaders.CONTENT_TYPE, entity.getContentType().getValue());
+        urlConn.setRequestProperty(HttpHeaders.CONTENT_ENCODING, "gzip");
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(urlConn.getOutputStream())) {
+            entity.writeTo(outputStream);
+        }
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.getStatusCode(), urlConn.getResponseCode());
+        urlConn.disconnect();
     }
 
     @Test
@@ -787,6 +979,74 @@ public class HttpServerTest {
         urlConn.disconnect();
     }
 
+    @Test
+    public void testAsyncCompletionStage() throws Exception {
+        testContent("/test/v1/async/completionStage/stage", "async-stage");
+    }
+
+    @Test
+    public void testAsyncExceptionMapper() throws Exception {
+        HttpURLConnection urlConn = request("/test/v1/async/mappedException", HttpMethod.GET);
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), urlConn.getResponseCode());
+        urlConn.disconnect();
+    }
+
+    @Test
+    public void testAsyncResponse() throws Exception {
+        testContent("/test/v1/async/suspended/resumed", "suspended-resumed");
+    }
+
+    @Test
+    public void testAsyncResponseTimeout() throws Exception {
+        HttpURLConnection urlConn = request("/test/v1/async/timeout", HttpMethod.GET);
+        assertEquals(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), urlConn.getResponseCode());
+        urlConn.disconnect();
+    }
+
+    @Test
+    public void testCachedResponse() throws Exception {
+        HttpURLConnection urlConn = request("/test/v1/cached/reference?lang=en&page=1", HttpMethod.GET);
+        assertEquals(Response.Status.OK.getStatusCode(), urlConn.getResponseCode());
+        String content = getContent(urlConn);
+        assertTrue(content.startsWith("reference-en-"));
+        urlConn.disconnect();
+
+        // Query parameters which are not listed in the annotation do not select another response
+        urlConn = request("/test/v1/cached/reference?lang=en&page=2", HttpMethod.GET);
+        assertEquals(Response.Status.OK.getStatusCode(), urlConn.getResponseCode());
+        assertEquals(content, getContent(urlConn));
+        urlConn.disconnect();
+
+        urlConn = request("/test/v1/cached/reference?lang=fr", HttpMethod.GET);
+        assertEquals(Response.Status.OK.getStatusCode(), urlConn.getResponseCode());
+        String otherContent = getContent(urlConn);
+        assertTrue(otherContent.startsWith("reference-fr-"));
+        urlConn.disconnect();
+    }
+
+    @Test
+    public void testCachedResponseNotModified() throws Exception {
+        HttpURLConnection urlConn = request("/test/v1/cached/revalidated", HttpMethod.GET);
+        assertEquals(Response.Status.OK.getStatusCode(), urlConn.getResponseCode());
+        String etag = urlConn.getHeaderField(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        String content = getContent(urlConn);
+        urlConn.disconnect();
+
+        urlConn = request("/test/v1/cached/revalidated", HttpMethod.GET);
+        urlConn.setRequestProperty(HttpHeaders.IF_NONE_MATCH, etag);
+        assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), urlConn.getResponseCode());
+        assertEquals(etag, urlConn.getHeaderField(HttpHeaders.ETAG));
+        urlConn.disconnect();
+
+        urlConn = request("/test/v1/cached/revalidated", HttpMethod.GET);
+        urlConn.setRequestProperty(HttpHeaders.IF_NONE_MATCH, "\"stale\"");
+        assertEquals(Response.Status.OK.getStatusCode(), urlConn.getResponseCode());
+        assertEquals(etag, urlConn.getHeaderField(HttpHeaders.ETAG));
+        assertEquals(content, getContent(urlConn));
+        urlConn.disconnect();
+    }
+
     @Test
     public void tesFormParamWithURLEncoded() throws IOException {
         HttpURLConnection connection = request("/test/v1/formParam", HttpMethod.POST);
@@ -1030,6 +1290,100 @@ public class HttpServerTest {
         assertEquals(response, stringBuilder.toString() + "-" + file.getName());
     }
 
+    @Test
+    public void testFormItemIterator() throws IOException {
+        HttpURLConnection connection = request("/test/v1/streamFormItems", HttpMethod.POST);
+        HttpEntity reqEntity = MultipartEntityBuilder.create()
+                .addTextBody("id", "1")
+                .addBinaryBody("file", new byte[100 * 1024], ContentType.DEFAULT_BINARY, "large.bin").build();
+
+        connection.setRequestProperty("Content-Type", reqEntity.getContentType().getValue());
+        try (OutputStream out = connection.getOutputStream()) {
+            reqEntity.writeTo(out);
+        }
+
+        InputStream inputStream = connection.getInputStream();
+        String response = StreamUtil.asString(inputStream);
+        IOUtils.closeQuietly(inputStream);
+        connection.disconnect();
+        assertEquals("id:1 file:" + 100 * 1024, response);
+    }
+
+    @Test
+    public void testUploadedFileDeletedAfterRequest() throws IOException, InterruptedException {
+        HttpURLConnection connection = request("/test/v1/uploadedFile", HttpMethod.POST);
+        HttpEntity reqEntity = MultipartEntityBuilder.create()
+                .addBinaryBody("file", new byte[100 * 1024], ContentType.DEFAULT_BINARY, "large.bin").build();
+
+        connection.setRequestProperty("Content-Type", reqEntity.getContentType().getValue());
+        try (OutputStream out = connection.getOutputStream()) {
+            reqEntity.writeTo(out);
+        }
+
+        InputStream inputStream = connection.getInputStream();
+        String response = StreamUtil.asString(inputStream);
+        IOUtils.closeQuietly(inputStream);
+        connection.disconnect();
+        String[] sizeAndPath = response.split(":", 2);
+        assertEquals(String.valueOf(100 * 1024), sizeAndPath[0]);
+        File file = new File(sizeAndPath[1]);
+        assertEquals("large.bin", file.getName());
+        // The temporary files are deleted once the response has been sent
+        for (int i = 0; i < 50 && file.exists(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(!file.exists());
+    }
+
+    @Test
+    public void testUploadedFileNameSanitized() throws IOException {
+        assertEquals("evil.bin", uploadFile("../../evil.bin").getName());
+        assertEquals("win.bin", uploadFile("dir\\sub\\win.bin").getName());
+        // Names which are not plain file names are replaced with generated ones
+        for (String fileName : new String[] {"..", ".", "a\u0000b.bin", "a\u0007b.bin"}) {
+            File file = uploadFile(fileName);
+            assertTrue(fileName, file.getName().startsWith("part"));
+            assertTrue(file.getParentFile().getName().startsWith("tmp"));
+        }
+    }
+
+    private File uploadFile(String fileName) throws IOException {
+        HttpURLConnection connection = request("/test/v1/uploadedFile", HttpMethod.POST);
+        HttpEntity reqEntity = MultipartEntityBuilder.create()
+                .addBinaryBody("file", new byte[100 * 1024], ContentType.DEFAULT_BINARY, fileName).build();
+        connection.setRequestProperty("Content-Type", reqEntity.getContentType().getValue());
+        try (OutputStream out = connection.getOutputStream()) {
+            reqEntity.writeTo(out);
+        }
+        assertEquals(Response.Status.OK.getStatusCode(), connection.getResponseCode());
+        InputStream inputStream = connection.getInputStream();
+        String response = StreamUtil.asString(inputStream);
+        IOUtils.closeQuietly(inputStream);
+        connection.disconnect();
+        String[] sizeAndPath = response.split(":", 2);
+        assertEquals(String.valueOf(100 * 1024), sizeAndPath[0]);
+        return new File(sizeAndPath[1]);
+    }
+
+    @Test(timeOut = 10000)
+    public void testEntityConversionFailureAfterStreaming() throws IOException {
+        HttpURLConnection urlConn = request("/test/v1/failingLargeJson", HttpMethod.GET);
+        urlConn.setReadTimeout(5000);
+        // The response was started before the conversion failed, so it never gets its terminating chunk
+        assertEquals(200, urlConn.getResponseCode());
+        try {
+            getContent(urlConn);
+            fail("Truncated response was read as a complete one");
+        } catch (IOException expected) {
+            // The client can not mistake the streamed part for the whole entity
+        } finally {
+            urlConn.disconnect();
+        }
+
+        // The failure is not answered a second time on the same connection
+        testContent("/test/v1/multi-match/foo", "multi-match-get-actual-foo");
+    }
+
     @Test
     public void testGetAllFormItemsWithURLEncoded() throws IOException, URISyntaxException {
         HttpURLConnection connection = request("/test/v1/getAllFormItemsURLEncoded", HttpMethod.POST);
@@ -1378,6 +1732,17 @@ public class HttpServerTest {
         return urlConn;
     }
 
+    /**
+     * @return content of the text files served by TestMicroservice, whose lines are line-0 to line-(lines - 1)
+     */
+    private static String getTextFileContent(int lines) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            content.append("line-").append(i).append('\n');
+        }
+        return content.toString();
+    }
+
     protected String getContent(HttpURLConnection urlConn) throws IOException {
         return new String(IOUtils.toByteArray(urlConn.getInputStream()), Charsets.UTF_8);
     }
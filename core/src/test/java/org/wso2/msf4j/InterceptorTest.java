@@ -25,6 +25,7 @@ import org.wso2.msf4j.interceptor.TestInterceptor;
 import org.wso2.msf4j.service.TestMicroServiceWithDynamicPath;
 import org.wso2.msf4j.service.TestMicroservice;
 
+import java.lang.reflect.Method;
 import java.net.URI;
 import java.util.concurrent.TimeUnit;
 import javax.ws.rs.core.Response;
@@ -37,6 +38,13 @@ import static org.testng.AssertJUnit.assertEquals;
 public class InterceptorTest extends InterceptorTestBase {
     private final TestInterceptor interceptor1 = new TestInterceptor();
     private final TestInterceptor interceptor2 = new TestInterceptor();
+    // Intercepts only the resource end-point
+    private final TestInterceptor resourceInterceptor = new TestInterceptor() {
+        @Override
+        public boolean appliesTo(Method method) {
+            return "testGet".equals(method.getName());
+        }
+    };
 
     private final TestMicroservice testMicroservice = new TestMicroservice();
 
@@ -50,7 +58,8 @@ public class InterceptorTest extends InterceptorTestBase {
         microservicesRunner.
                 deploy(testMicroservice).
                 addInterceptor(interceptor1).
-                addInterceptor(interceptor2)
+                addInterceptor(interceptor2).
+                addInterceptor(resourceInterceptor)
                 .start();
         microservicesRunner.deploy("/DynamicPath", new TestMicroServiceWithDynamicPath());
         microservicesRunner.deploy("/DynamicPath2", new TestMicroServiceWithDynamicPath());
@@ -66,6 +75,7 @@ public class InterceptorTest extends InterceptorTestBase {
     public void reset() {
         interceptor1.reset();
         interceptor2.reset();
+        resourceInterceptor.reset();
     }
 
     @Test
@@ -83,4 +93,19 @@ public class InterceptorTest extends InterceptorTestBase {
         assertEquals(0, interceptor2.getNumPreCalls());
         assertEquals(0, interceptor2.getNumPostCalls());
     }
+
+    @Test
+    public void testInterceptorAppliesTo() throws Exception {
+        assertEquals(Response.Status.OK.getStatusCode(), doGet("/test/v1/resource"));
+        assertEquals(Response.Status.OK.getStatusCode(), doGet("/test/v1/testJsonProduceWithString"));
+
+        // Wait for any post handlers to be called
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(2, interceptor1.getNumPreCalls());
+        assertEquals(2, interceptor1.getNumPostCalls());
+
+        // Only the request to the resource end-point should have been intercepted
+        assertEquals(1, resourceInterceptor.getNumPreCalls());
+        assertEquals(1, resourceInterceptor.getNumPostCalls());
+    }
 }
@@ -232,4 +232,44 @@ public class PathRouterTest {
         set11.add(Collections.singletonMap("id", "id1"));
         assertEquals(Collections.singletonMap("id", "id1"), routes.get(0).getGroupNameValues());
     }
+
+    @Test
+    public void testRegexPathRoutings() {
+
+        PatternPathRouter<String> pathRouter = PatternPathRouter.create();
+        pathRouter.add("/orders/{id: [0-9]+}", "order-numeric");
+        pathRouter.add("/orders/{id}", "order");
+        pathRouter.add("/orders/{id}/items/{item: [a-z]+}", "order-item");
+        pathRouter.add("/v1.0/{name}", "versioned");
+
+        List<PatternPathRouter.RoutableDestination<String>> routes;
+
+        routes = pathRouter.getDestinations("/orders/123");
+        assertEquals(2, routes.size());
+        assertEquals("order-numeric", routes.get(0).getDestination());
+        assertEquals("order", routes.get(1).getDestination());
+        assertEquals(Collections.singletonMap("id", "123"), routes.get(0).getGroupNameValues());
+        assertEquals(Collections.singletonMap("id", "123"), routes.get(1).getGroupNameValues());
+
+        routes = pathRouter.getDestinations("/orders/abc");
+        assertEquals(1, routes.size());
+        assertEquals("order", routes.get(0).getDestination());
+
+        routes = pathRouter.getDestinations("/orders/abc/items/book");
+        assertEquals(1, routes.size());
+        assertEquals("order-item", routes.get(0).getDestination());
+        assertEquals(2, routes.get(0).getGroupNameValues().size());
+        assertEquals("abc", routes.get(0).getGroupNameValues().get("id"));
+        assertEquals("book", routes.get(0).getGroupNameValues().get("item"));
+
+        routes = pathRouter.getDestinations("/orders/abc/items/123");
+        assertTrue(routes.isEmpty());
+
+        routes = pathRouter.getDestinations("/orders//items/book");
+        assertTrue(routes.isEmpty());
+
+        routes = pathRouter.getDestinations("/v1.0/foo");
+        assertEquals(1, routes.size());
+        assertEquals(Collections.singletonMap("name", "foo"), routes.get(0).getGroupNameValues());
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.msf4j;
+
+import org.testng.annotations.Test;
+import org.wso2.msf4j.internal.router.ResourceMethodInvoker;
+
+import java.lang.reflect.InvocationTargetException;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+/**
+ * Tests that ResourceMethodInvoker reports failures as Method#invoke does.
+ */
+public class ResourceMethodInvokerTest {
+
+    @Test
+    public void testInvoke() throws Exception {
+        ResourceMethodInvoker invoker = ResourceMethodInvoker.create(TestResource.class.getMethod("add", int.class,
+                                                                                                  Integer.class));
+        assertEquals(5, invoker.invoke(new TestResource(), new Object[]{2, 3}));
+    }
+
+    @Test
+    public void testExceptionOfResourceMethod() throws Exception {
+        ResourceMethodInvoker invoker = ResourceMethodInvoker.create(TestResource.class.getMethod("add", int.class,
+                                                                                                  Integer.class));
+        try {
+            // Unboxing the null Integer fails inside the resource method
+            invoker.invoke(new TestResource(), new Object[]{2, null});
+            fail("Expected InvocationTargetException");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof NullPointerException);
+        }
+    }
+
+    @Test
+    public void testNullForPrimitiveParameter() throws Exception {
+        ResourceMethodInvoker invoker = ResourceMethodInvoker.create(TestResource.class.getMethod("add", int.class,
+                                                                                                  Integer.class));
+        try {
+            invoker.invoke(new TestResource(), new Object[]{null, 3});
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Same as Method#invoke
+        }
+    }
+
+    @Test
+    public void testMistypedArgument() throws Exception {
+        ResourceMethodInvoker invoker = ResourceMethodInvoker.create(TestResource.class.getMethod("add", int.class,
+                                                                                                  Integer.class));
+        try {
+            invoker.invoke(new TestResource(), new Object[]{2, "3"});
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Same as Method#invoke
+        }
+        try {
+            invoker.invoke(new TestResource(), new Object[]{2});
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Same as Method#invoke
+        }
+    }
+
+    @Test
+    public void testWideningConversion() throws Exception {
+        ResourceMethodInvoker invoker = ResourceMethodInvoker.create(TestResource.class.getMethod("twice",
+                                                                                                  long.class));
+        assertEquals(8L, invoker.invoke(new TestResource(), new Object[]{4}));
+    }
+
+    @Test
+    public void testWideningConversionWithFailingMethod() throws Exception {
+        ResourceMethodInvoker invoker = ResourceMethodInvoker.create(TestResource.class.getMethod("reject",
+                                                                                                  long.class));
+        TestResource resource = new TestResource();
+        try {
+            invoker.invoke(resource, new Object[]{4});
+            fail("Expected InvocationTargetException");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+        // The resource method is not invoked again after it has thrown
+        assertEquals(1, resource.rejected);
+    }
+
+    /**
+     * Resource class used for testing the invoker.
+     */
+    public static class TestResource {
+
+        private int rejected;
+
+        public int add(int a, Integer b) {
+            return a + b;
+        }
+
+        public long twice(long value) {
+            return 2 * value;
+        }
+
+        public long reject(long value) {
+            rejected++;
+            throw new IllegalArgumentException("Rejected " + value);
+        }
+    }
+}
@@ -18,13 +18,20 @@ package org.wso2.msf4j.beanconversion;
 
 import org.testng.annotations.Test;
 import org.wso2.msf4j.internal.beanconversion.BeanConverter;
+import org.wso2.msf4j.internal.beanconversion.TextPlainConverter;
 import org.wso2.msf4j.pojo.Category;
 import org.wso2.msf4j.pojo.Pet;
 import org.wso2.msf4j.pojo.XmlBean;
+import org.wso2.msf4j.util.CompositeByteBuffer;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertSame;
 
 /**
  * Tests the functionality of BeanConverter.
@@ -59,6 +66,39 @@ public class BeanConverterTest {
         assertEquals(original.getDateAdded(), result.getDateAdded());
     }
 
+    @Test
+    public void testChunkedJsonBeanConversion() throws BeanConversionException {
+        Pet original = makePet();
+        ByteBuffer json = BeanConverter.getConverter("application/json").toMedia(original);
+        CompositeByteBuffer content = new CompositeByteBuffer(split(json, 7));
+        Pet result = (Pet) BeanConverter.getConverter("application/json").convertToObject(content, Pet.class);
+        assertEquals(original.getId(), result.getId());
+        assertEquals(original.getDetails(), result.getDetails());
+        assertEquals(original.getCategory().getName(), result.getCategory().getName());
+        assertEquals(original.getDateAdded(), result.getDateAdded());
+    }
+
+    @Test
+    public void testChunkedTextPlainBeanConversion() throws BeanConversionException {
+        String original = "Test_String_Split_Into_Chunks";
+        ByteBuffer media = ByteBuffer.wrap(original.getBytes(Charset.defaultCharset()));
+        CompositeByteBuffer content = new CompositeByteBuffer(split(media, 3));
+        assertEquals(media.remaining(), content.remaining());
+        assertEquals(original, BeanConverter.getConverter("text/plain").convertToObject(content, String.class));
+        // the view can be read again and does not consume the chunks
+        assertEquals(original, BeanConverter.getConverter("text/plain").convertToObject(content, String.class));
+        assertEquals(media, content.toByteBuffer());
+    }
+
+    @Test
+    public void testSingleChunkBufferIsWritable() {
+        ByteBuffer media = ByteBuffer.wrap("Test_String".getBytes(Charset.defaultCharset()));
+        ByteBuffer content = new CompositeByteBuffer(Collections.singletonList(media)).toByteBuffer();
+        // Converters which read the backing array, as they could before the view was introduced
+        assertSame(media.array(), content.array());
+        assertEquals(media, content);
+    }
+
     @Test
     public void testTextPlainBeanConversion() throws BeanConversionException {
         String val = "Test_String";
@@ -85,6 +125,29 @@ public class BeanConverterTest {
         assertEquals(original.getValue(), result.getValue());
     }
 
+    @Test
+    public void testRegisteredConverter() throws BeanConversionException {
+        MediaTypeConverter converter = new TextPlainConverter() {
+            @Override
+            public String[] getSupportedMediaTypes() {
+                return new String[]{"application/x-msf4j-test"};
+            }
+        };
+        BeanConverter.addMediaTypeConverter(converter);
+        assertSame(converter, BeanConverter.getConverter("application/x-msf4j-test"));
+        assertSame(converter, BeanConverter.getConverter("Application/X-MSF4J-Test"));
+    }
+
+    @Test
+    public void testConverterResolvedAfterManyMediaTypes() {
+        MediaTypeConverter jsonConverter = BeanConverter.getConverter("application/json");
+        for (int i = 0; i < 1000; i++) {
+            assertSame(TextPlainConverter.class, BeanConverter.getConverter("application/x-unknown-" + i).getClass());
+        }
+        assertSame(jsonConverter, BeanConverter.getConverter("application/json"));
+        assertSame(jsonConverter, BeanConverter.getConverter("Application/JSON"));
+    }
+
     private XmlBean makeXmlBan() {
         XmlBean xmlBean = new XmlBean();
         xmlBean.setId(12);
@@ -102,4 +165,15 @@ public class BeanConverterTest {
         pet.setImage("cat.png");
         return pet;
     }
+
+    private List<ByteBuffer> split(ByteBuffer content, int chunkSize) {
+        List<ByteBuffer> chunks = new ArrayList<>();
+        for (int i = content.position(); i < content.limit(); i += chunkSize) {
+            ByteBuffer chunk = content.duplicate();
+            chunk.position(i);
+            chunk.limit(Math.min(i + chunkSize, content.limit()));
+            chunks.add(chunk.slice());
+        }
+        return chunks;
+    }
 }
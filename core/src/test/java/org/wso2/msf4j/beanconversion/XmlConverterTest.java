@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.msf4j.beanconversion;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.wso2.msf4j.internal.beanconversion.XmlConverter;
+import org.wso2.msf4j.pojo.XmlBean;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the pooled marshallers and unmarshallers of XmlConverter.
+ */
+public class XmlConverterTest {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 200;
+
+    @AfterMethod
+    public void teardown() {
+        System.clearProperty(XmlConverter.FORMATTED_OUTPUT_PROPERTY);
+    }
+
+    @Test
+    public void testConcurrentRoundTrip() throws Exception {
+        XmlConverter converter = new XmlConverter();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int base = thread * ITERATIONS;
+                Callable<Integer> roundTrips = () -> {
+                    for (int i = base; i < base + ITERATIONS; i++) {
+                        XmlBean original = makeXmlBean(i);
+                        ByteBuffer xml = converter.toMedia(original);
+                        XmlBean result = (XmlBean) converter.toObject(xml, XmlBean.class);
+                        assertEquals(original.getId(), result.getId());
+                        assertEquals(original.getName(), result.getName());
+                        assertEquals(original.getValue(), result.getValue());
+                    }
+                    return ITERATIONS;
+                };
+                results.add(executor.submit(roundTrips));
+            }
+            for (Future<Integer> result : results) {
+                // Rethrows the assertion failures of the threads
+                assertEquals(ITERATIONS, result.get().intValue());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFormattedOutputByDefault() throws BeanConversionException {
+        String xml = toXml(new XmlConverter(), makeXmlBean(1));
+        assertTrue(xml.trim().contains("\n"));
+    }
+
+    @Test
+    public void testFormattedOutputDisabled() throws BeanConversionException {
+        System.setProperty(XmlConverter.FORMATTED_OUTPUT_PROPERTY, "false");
+        XmlConverter converter = new XmlConverter();
+        String xml = toXml(converter, makeXmlBean(1));
+        assertFalse(xml.trim().contains("\n"));
+        XmlBean result = (XmlBean) converter.toObject(ByteBuffer.wrap(xml.getBytes(Charset.defaultCharset())),
+                                                      XmlBean.class);
+        assertEquals("xml-bean-1", result.getName());
+    }
+
+    private static String toXml(XmlConverter converter, XmlBean xmlBean) throws BeanConversionException {
+        return Charset.defaultCharset().decode(converter.toMedia(xmlBean)).toString();
+    }
+
+    private static XmlBean makeXmlBean(int id) {
+        XmlBean xmlBean = new XmlBean();
+        xmlBean.setId(id);
+        xmlBean.setName("xml-bean-" + id);
+        xmlBean.setValue(id * 3);
+        return xmlBean;
+    }
+}
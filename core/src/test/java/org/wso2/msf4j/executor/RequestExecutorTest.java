@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.executor;
+
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+/**
+ * Test the RequestExecutors shipped with MSF4J.
+ */
+public class RequestExecutorTest {
+
+    @Test
+    public void testBoundedQueueRejection() throws InterruptedException {
+        RequestExecutor executor = RequestExecutors.newBoundedQueueExecutor(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(2);
+        Runnable blockingTask = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            completed.countDown();
+        };
+        try {
+            executor.execute(null, blockingTask);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            executor.execute(null, completed::countDown);
+            assertEquals(1, executor.getActiveCount());
+            assertEquals(1, executor.getQueueDepth());
+            try {
+                executor.execute(null, completed::countDown);
+                fail("Request should have been rejected");
+            } catch (RejectedExecutionException e) {
+                assertEquals(1, executor.getRejectedCount());
+            }
+            release.countDown();
+            assertTrue(completed.await(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testExecutorFromProperties() {
+        RequestExecutor executor = RequestExecutors.fromProperties(Collections.emptyMap());
+        assertTrue(executor instanceof BoundedQueueRequestExecutor);
+        executor.shutdown();
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(RequestExecutors.EXECUTOR_MODE, "IO");
+        properties.put(RequestExecutors.EXECUTOR_POOL_SIZE, "4");
+        executor = RequestExecutors.fromProperties(properties);
+        assertTrue(executor instanceof IOThreadRequestExecutor);
+        assertTrue(((IOThreadRequestExecutor) executor).getFallbackExecutor() instanceof BoundedQueueRequestExecutor);
+        executor.shutdown();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownExecutorMode() {
+        RequestExecutors.fromProperties(Collections.<String, Object>singletonMap(RequestExecutors.EXECUTOR_MODE,
+                                                                            "unknown"));
+    }
+}
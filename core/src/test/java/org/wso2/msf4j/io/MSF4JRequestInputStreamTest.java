@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.msf4j.io;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.messaging.CarbonMessage;
+import org.wso2.carbon.messaging.DefaultCarbonMessage;
+import org.wso2.msf4j.Request;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Tests the functionality of MSF4JRequestInputStream.
+ */
+public class MSF4JRequestInputStreamTest {
+
+    @Test
+    public void testBulkRead() throws IOException {
+        InputStream inputStream = newInputStream("Hello", "", " Micro", "services");
+        byte[] bytes = new byte[32];
+        assertEquals(5, inputStream.read(bytes, 0, bytes.length));
+        assertEquals(6, inputStream.read(bytes, 5, 6));
+        assertEquals(3, inputStream.read(bytes, 11, 3));
+        bytes[14] = (byte) inputStream.read();
+        assertEquals('v', bytes[14]);
+        assertEquals(4, inputStream.read(bytes, 15, bytes.length - 15));
+        assertEquals(-1, inputStream.read(bytes, 0, bytes.length));
+        assertEquals(-1, inputStream.read());
+        assertEquals("Hello Microservices", new String(bytes, 0, 19, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testSkip() throws IOException {
+        InputStream inputStream = newInputStream("Hello", " Micro", "services");
+        assertEquals(8, inputStream.skip(8));
+        assertEquals('c', inputStream.read());
+        assertEquals(10, inputStream.skip(100));
+        assertEquals(-1, inputStream.read());
+    }
+
+    @Test
+    public void testTransferTo() throws IOException {
+        MSF4JRequestInputStream inputStream = newInputStream("Hello", " Micro", "services");
+        assertEquals('H', inputStream.read());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        assertEquals(18, inputStream.transferTo(outputStream));
+        assertEquals("ello Microservices", new String(outputStream.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    private MSF4JRequestInputStream newInputStream(String... chunks) {
+        CarbonMessage carbonMessage = new DefaultCarbonMessage();
+        for (String chunk : chunks) {
+            carbonMessage.addMessageBody(ByteBuffer.wrap(chunk.getBytes(StandardCharsets.US_ASCII)));
+        }
+        carbonMessage.setEndOfMsgAdded(true);
+        return new MSF4JRequestInputStream(new Request(carbonMessage));
+    }
+}
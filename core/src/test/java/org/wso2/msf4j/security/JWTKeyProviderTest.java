@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.security;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+
+/**
+ * Tests JWTKeyProvider.
+ */
+public class JWTKeyProviderTest {
+
+    private Path jwkSet;
+    private final AtomicInteger changes = new AtomicInteger();
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        jwkSet = Files.createTempFile("jwks", ".json");
+        changes.set(0);
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(jwkSet);
+    }
+
+    @Test
+    public void testKeyStoreKey() {
+        JWTKeyProvider keyProvider = new JWTKeyProvider("cert.jks", "secret", "netty-http", null, 300,
+                                                        changes::incrementAndGet);
+        assertNotNull(keyProvider.getPublicKey(null));
+        assertNotNull(keyProvider.getVerifier(null));
+        // Tokens with an unknown kid are verified with the default key
+        assertEquals(keyProvider.getVerifier(null), keyProvider.getVerifier("unknown"));
+        assertEquals(1, changes.get());
+    }
+
+    @Test
+    public void testKeysById() throws Exception {
+        RSAPublicKey first = generateKey();
+        RSAPublicKey second = generateKey();
+        writeJwkSet(jwk("first", first, "sig"), jwk("second", second, null), jwk("encryption", generateKey(), "enc"));
+        JWTKeyProvider keyProvider = new JWTKeyProvider("missing.jks", "secret", "alias", jwkSet.toString(), 300,
+                                                        changes::incrementAndGet);
+        assertEquals(first, keyProvider.getPublicKey("first"));
+        assertEquals(second, keyProvider.getPublicKey("second"));
+        assertNull(keyProvider.getPublicKey("encryption"));
+        assertNull(keyProvider.getPublicKey(null));
+        assertNotNull(keyProvider.getVerifier("first"));
+        assertNull(keyProvider.getVerifier("unknown"));
+    }
+
+    @Test
+    public void testRefresh() throws Exception {
+        RSAPublicKey first = generateKey();
+        writeJwkSet(jwk("first", first, "sig"));
+        // Keys are reloaded on every lookup
+        JWTKeyProvider keyProvider = new JWTKeyProvider("missing.jks", "secret", "alias", jwkSet.toString(), 0,
+                                                        changes::incrementAndGet);
+        assertEquals(first, keyProvider.getPublicKey("first"));
+        assertEquals(1, changes.get());
+
+        RSAPublicKey second = generateKey();
+        writeJwkSet(jwk("second", second, "sig"));
+        assertEquals(second, keyProvider.getPublicKey("second"));
+        assertNull(keyProvider.getPublicKey("first"));
+        assertEquals(2, changes.get());
+
+        // A broken JWK set does not replace the loaded keys
+        writeFile("{");
+        assertEquals(second, keyProvider.getPublicKey("second"));
+        assertEquals(2, changes.get());
+    }
+
+    private void writeJwkSet(String... keys) throws IOException {
+        writeFile("{\"keys\":[" + String.join(",", keys) + "]}");
+    }
+
+    private void writeFile(String content) throws IOException {
+        Files.write(jwkSet, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String jwk(String keyId, RSAPublicKey key, String use) {
+        return "{\"kty\":\"RSA\",\"kid\":\"" + keyId + "\"," + (use == null ? "" : "\"use\":\"" + use + "\",") +
+               "\"n\":\"" + encode(key.getModulus()) + "\",\"e\":\"" + encode(key.getPublicExponent()) + "\"}";
+    }
+
+    private static String encode(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        int offset = bytes[0] == 0 ? 1 : 0;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOfRange(bytes, offset, bytes.length));
+    }
+
+    private static RSAPublicKey generateKey() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return (RSAPublicKey) generator.generateKeyPair().getPublic();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.security.basic;
+
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the header parsing and the credential cache of AbstractBasicAuthSecurityInterceptor.
+ */
+public class BasicAuthSecurityInterceptorTest {
+
+    @Test
+    public void testHeaderParsing() {
+        CountingInterceptor interceptor = new CountingInterceptor();
+        assertTrue(interceptor.isAuthenticated(header("john", "secret")));
+        assertTrue(interceptor.isAuthenticated("basic   " + encode("john:secret") + " "));
+        // Everything after the first colon is the password
+        assertTrue(interceptor.isAuthenticated(header("jane", "pass:with:colons")));
+        assertFalse(interceptor.isAuthenticated(header("john", "wrong")));
+        assertFalse(interceptor.isAuthenticated("Basic"));
+        assertFalse(interceptor.isAuthenticated("Basic "));
+        assertFalse(interceptor.isAuthenticated("Bearer " + encode("john:secret")));
+        assertFalse(interceptor.isAuthenticated("Basic " + encode("john")));
+        assertFalse(interceptor.isAuthenticated("Basic not-base64!"));
+        assertEquals(3, interceptor.getAuthenticationSuccessCount());
+        // Headers which are not Basic or are empty are not counted as failures
+        assertEquals(3, interceptor.getAuthenticationFailureCount());
+        assertEquals(3, interceptor.getRecentFailureCount());
+    }
+
+    @Test
+    public void testWithoutCache() {
+        CountingInterceptor interceptor = new CountingInterceptor();
+        interceptor.isAuthenticated(header("john", "secret"));
+        interceptor.isAuthenticated(header("john", "secret"));
+        assertEquals(2, interceptor.authenticateCount);
+        assertEquals(0, interceptor.getCredentialCacheHitCount());
+    }
+
+    @Test
+    public void testCache() {
+        CountingInterceptor interceptor = new CountingInterceptor(10, 1, TimeUnit.MINUTES);
+        assertTrue(interceptor.isAuthenticated(header("john", "secret")));
+        assertTrue(interceptor.isAuthenticated(header("john", "secret")));
+        assertEquals(1, interceptor.authenticateCount);
+        assertEquals(1, interceptor.getCredentialCacheHitCount());
+        assertEquals(2, interceptor.getAuthenticationSuccessCount());
+
+        // Failures are not cached
+        assertFalse(interceptor.isAuthenticated(header("john", "wrong")));
+        assertFalse(interceptor.isAuthenticated(header("john", "wrong")));
+        assertEquals(3, interceptor.authenticateCount);
+
+        interceptor.isAuthenticated(header("jane", "password"));
+        interceptor.invalidateCachedCredentials("john");
+        assertTrue(interceptor.isAuthenticated(header("john", "secret")));
+        assertTrue(interceptor.isAuthenticated(header("jane", "password")));
+        assertEquals(5, interceptor.authenticateCount);
+
+        interceptor.invalidateCachedCredentials();
+        assertTrue(interceptor.isAuthenticated(header("jane", "password")));
+        assertEquals(6, interceptor.authenticateCount);
+    }
+
+    private static String header(String username, String password) {
+        return "Basic " + encode(username + ":" + password);
+    }
+
+    private static String encode(String credentials) {
+        return Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Accepts "secret" for john, "pass:with:colons" for jane and "password" for everyone.
+     */
+    private static class CountingInterceptor extends AbstractBasicAuthSecurityInterceptor {
+
+        private int authenticateCount;
+
+        CountingInterceptor() {
+        }
+
+        CountingInterceptor(int maxCachedCredentials, long cacheTtl, TimeUnit unit) {
+            super(maxCachedCredentials, cacheTtl, unit);
+        }
+
+        @Override
+        protected boolean authenticate(String username, String password) {
+            authenticateCount++;
+            return "password".equals(password) ||
+                   ("john".equals(username) && "secret".equals(password)) ||
+                   ("jane".equals(username) && "pass:with:colons".equals(password));
+        }
+    }
+}
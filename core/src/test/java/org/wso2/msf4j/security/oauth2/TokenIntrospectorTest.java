@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.security.oauth2;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.msf4j.security.MSF4JSecurityException;
+import org.wso2.msf4j.security.SecurityErrorCode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.fail;
+
+/**
+ * Tests TokenIntrospector against a stub introspection endpoint.
+ */
+public class TokenIntrospectorTest {
+
+    private HttpServer server;
+    private String serverUrl;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    // Introspection responses of the stub server, by token
+    private final Map<String, String> responses = new ConcurrentHashMap<>();
+    private volatile CountDownLatch responseLatch = new CountDownLatch(0);
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/introspect", exchange -> {
+            requestCount.incrementAndGet();
+            String body = new String(IOUtils.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8);
+            String token = body.substring("token=".length(), body.indexOf('&'));
+            try {
+                responseLatch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String response = responses.get(token);
+            if (response == null) {
+                exchange.sendResponseHeaders(500, -1);
+            } else {
+                byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(bytes);
+                }
+            }
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        serverUrl = "http://localhost:" + server.getAddress().getPort() + "/introspect";
+    }
+
+    @AfterClass
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @BeforeMethod
+    public void reset() {
+        requestCount.set(0);
+        responses.clear();
+        responseLatch = new CountDownLatch(0);
+    }
+
+    @Test
+    public void testActiveTokenIsCached() throws Exception {
+        TokenIntrospector introspector = new TokenIntrospector(serverUrl, 1000, 1000, 10, 300);
+        responses.put("active", "{\"active\":true,\"exp\":" + (System.currentTimeMillis() / 1000 + 3600) + "}");
+
+        assertEquals("true", introspector.introspect("active").get(IntrospectionResponse.ACTIVE));
+        assertEquals("true", introspector.introspect("active").get(IntrospectionResponse.ACTIVE));
+        assertEquals(1, requestCount.get());
+    }
+
+    @Test
+    public void testInactiveTokenIsNotCached() throws Exception {
+        TokenIntrospector introspector = new TokenIntrospector(serverUrl, 1000, 1000, 10, 300);
+        responses.put("inactive", "{\"active\":false}");
+
+        assertEquals("false", introspector.introspect("inactive").get(IntrospectionResponse.ACTIVE));
+        assertEquals("false", introspector.introspect("inactive").get(IntrospectionResponse.ACTIVE));
+        assertEquals(2, requestCount.get());
+    }
+
+    @Test
+    public void testCachedUntilExpiry() throws Exception {
+        TokenIntrospector introspector = new TokenIntrospector(serverUrl, 1000, 1000, 10, 300);
+        long exp = System.currentTimeMillis() / 1000 + 1;
+        responses.put("expiring", "{\"active\":true,\"exp\":" + exp + "}");
+
+        introspector.introspect("expiring");
+        introspector.introspect("expiring");
+        assertEquals(1, requestCount.get());
+        while (System.currentTimeMillis() < exp * 1000) {
+            Thread.sleep(100);
+        }
+        introspector.introspect("expiring");
+        assertEquals(2, requestCount.get());
+    }
+
+    @Test
+    public void testCacheIsBounded() throws Exception {
+        TokenIntrospector introspector = new TokenIntrospector(serverUrl, 1000, 1000, 2, 300);
+        for (String token : new String[] { "first", "second", "third" }) {
+            responses.put(token, "{\"active\":true}");
+            introspector.introspect(token);
+        }
+        introspector.introspect("third");
+        introspector.introspect("second");
+        assertEquals(3, requestCount.get());
+        introspector.introspect("first");
+        assertEquals(4, requestCount.get());
+    }
+
+    @Test
+    public void testConcurrentLookupsAreCoalesced() throws Exception {
+        TokenIntrospector introspector = new TokenIntrospector(serverUrl, 1000, 5000, 10, 300);
+        responses.put("shared", "{\"active\":true}");
+        responseLatch = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Map<String, String>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> introspector.introspect("shared")));
+            }
+            Thread.sleep(200);
+            responseLatch.countDown();
+            for (Future<Map<String, String>> result : results) {
+                assertEquals("true", result.get(5, TimeUnit.SECONDS).get(IntrospectionResponse.ACTIVE));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, requestCount.get());
+    }
+
+    @Test
+    public void testServerError() throws Exception {
+        TokenIntrospector introspector = new TokenIntrospector(serverUrl, 1000, 1000, 10, 300);
+        try {
+            introspector.introspect("unknown");
+            fail("Introspection should fail when the server responds with an error");
+        } catch (MSF4JSecurityException e) {
+            assertEquals(SecurityErrorCode.GENERIC_ERROR, e.getErrorCode());
+        }
+    }
+}
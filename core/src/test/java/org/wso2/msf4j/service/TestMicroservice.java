@@ -27,8 +27,10 @@ import org.wso2.msf4j.HttpStreamHandler;
 import org.wso2.msf4j.HttpStreamer;
 import org.wso2.msf4j.Microservice;
 import org.wso2.msf4j.Request;
+import org.wso2.msf4j.cache.Cached;
 import org.wso2.msf4j.exception.MappedException;
 import org.wso2.msf4j.exception.MappedException2;
+import org.wso2.msf4j.executor.ExecuteOn;
 import org.wso2.msf4j.formparam.FileInfo;
 import org.wso2.msf4j.formparam.FormDataParam;
 import org.wso2.msf4j.formparam.FormItem;
@@ -48,14 +50,24 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.net.URISyntaxException;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.CookieParam;
 import javax.ws.rs.DELETE;
@@ -69,11 +81,15 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.NewCookie;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import static org.testng.AssertJUnit.fail;
 
@@ -345,6 +361,34 @@ public class TestMicroservice implements Microservice {
         return Response.noContent().build();
     }
 
+    @Path("/fileserver/tagged")
+    @GET
+    public Response serveTaggedFile() throws IOException {
+        return Response.ok(createTextFile("tagged", 256)).header(HttpHeaders.ETAG, "\"text-file\"").build();
+    }
+
+    @Path("/fileserver/large")
+    @GET
+    @ExecuteOn(ExecuteOn.IO)
+    public Response serveLargeFile() throws IOException {
+        // Large enough to be sent as more mapped regions than are added to the message at once
+        return Response.ok(createTextFile("large", 200000)).build();
+    }
+
+    /**
+     * Create a temporary text file whose lines are line-0 to line-(lines - 1).
+     */
+    private static File createTextFile(String prefix, int lines) throws IOException {
+        File file = File.createTempFile(prefix, ".txt");
+        file.deleteOnExit();
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < lines; i++) {
+                writer.write("line-" + i + "\n");
+            }
+        }
+        return file;
+    }
+
     @Path("/fileserver/ip/{fileType}")
     @GET
     public Response serveInputStream(@PathParam("fileType") String fileType) throws Exception {
@@ -364,6 +408,62 @@ public class TestMicroservice implements Microservice {
         return Response.noContent().build();
     }
 
+    @Path("/stream/download/{size}")
+    @GET
+    public Response streamDownload(@PathParam("size") int size) {
+        // Hands out the content in short, uneven reads, which are coalesced into chunks
+        InputStream inputStream = new InputStream() {
+            private int position;
+
+            @Override
+            public int read() {
+                return position < size ? streamedByte(position++) & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+                if (position == size) {
+                    return -1;
+                }
+                int count = Math.min(Math.min(length, 1000 + position % 777), size - position);
+                for (int i = 0; i < count; i++) {
+                    bytes[offset + i] = streamedByte(position++);
+                }
+                return count;
+            }
+        };
+        return Response.ok(inputStream).type(MediaType.APPLICATION_OCTET_STREAM).build();
+    }
+
+    @Path("/streamingOutput/download/{size}")
+    @GET
+    public Response streamingOutputDownload(@PathParam("size") int size) {
+        StreamingOutput output = (OutputStream outputStream) -> {
+            byte[] bytes = new byte[777];
+            int position = 0;
+            while (position < size) {
+                int count = Math.min(bytes.length, size - position);
+                for (int i = 0; i < count; i++) {
+                    bytes[i] = streamedByte(position + i);
+                }
+                // The same array is written again right away, so the stream must not hold on to it
+                outputStream.write(bytes, 0, count);
+                position += count;
+                if (position % (100 * bytes.length) == 0) {
+                    outputStream.flush();
+                }
+            }
+        };
+        return Response.ok(output).type(MediaType.APPLICATION_OCTET_STREAM).build();
+    }
+
+    /**
+     * Content of the streamed downloads. The period does not divide any chunk size.
+     */
+    public static byte streamedByte(int position) {
+        return (byte) (position % 251);
+    }
+
     @Path("/stream/upload")
     @PUT
     public void streamUpload(@Context HttpStreamer httpStreamer) throws Exception {
@@ -446,6 +546,17 @@ public class TestMicroservice implements Microservice {
         return Response.ok().entity(file).build();
     }
 
+    @Path("/gziptext")
+    @GET
+    @Produces("text/plain")
+    public String gzipText() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 256; i++) {
+            text.append("compressible-").append(i).append('\n');
+        }
+        return text.toString();
+    }
+
     @Path("/uexception")
     @GET
     public void testException() {
@@ -539,6 +650,41 @@ public class TestMicroservice implements Microservice {
         throw new MappedException2("Mapped exception 2 thrown");
     }
 
+    @Path("/async/completionStage/{name}")
+    @GET
+    public CompletionStage<String> asyncCompletionStage(@PathParam("name") String name) {
+        return CompletableFuture.supplyAsync(() -> "async-" + name);
+    }
+
+    @Path("/async/mappedException")
+    @GET
+    public CompletionStage<String> asyncExceptionMapping() {
+        return CompletableFuture.supplyAsync(() -> {
+            throw new CompletionException(new MappedException("Mapped exception thrown asynchronously"));
+        });
+    }
+
+    @Path("/async/suspended/{name}")
+    @GET
+    public void asyncSuspended(@PathParam("name") String name, @Suspended AsyncResponse asyncResponse) {
+        new Thread(() -> asyncResponse.resume(Response.ok("suspended-" + name).build())).start();
+    }
+
+    @Path("/async/timeout")
+    @GET
+    public void asyncTimeout(@Suspended AsyncResponse asyncResponse) {
+        asyncResponse.setTimeout(100, TimeUnit.MILLISECONDS);
+    }
+
+    private final AtomicInteger cachedInvocations = new AtomicInteger();
+
+    @Path("/cached/{name}")
+    @GET
+    @Cached(ttl = 1, unit = TimeUnit.MINUTES, varyByQuery = "lang")
+    public String cached(@PathParam("name") String name, @QueryParam("lang") String lang) {
+        return name + "-" + lang + "-" + cachedInvocations.incrementAndGet();
+    }
+
     @Path("/formParam")
     @POST
     @Consumes({MediaType.APPLICATION_FORM_URLENCODED, MediaType.MULTIPART_FORM_DATA})
@@ -619,6 +765,36 @@ public class TestMicroservice implements Microservice {
         return Response.ok().entity(stringBuilder.toString() + "-" + fileInfo.getFileName()).build();
     }
 
+    @POST
+    @Path("/streamFormItems")
+    @Consumes(MediaType.MULTIPART_FORM_DATA)
+    public Response streamFormItems(@Context Iterator<FormItem> formItems) throws IOException {
+        StringBuilder response = new StringBuilder();
+        while (formItems.hasNext()) {
+            FormItem item = formItems.next();
+            response.append(item.getFieldName()).append(':')
+                    .append(IOUtils.toByteArray(item.openStream()).length).append(' ');
+        }
+        return Response.ok().entity(response.toString().trim()).build();
+    }
+
+    @POST
+    @Path("/uploadedFile")
+    @Consumes(MediaType.MULTIPART_FORM_DATA)
+    public Response uploadedFile(@FormDataParam("file") File file) {
+        return Response.ok().entity(file.length() + ":" + file.getAbsolutePath()).build();
+    }
+
+    @GET
+    @Path("/failingLargeJson")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<Object> failingLargeJson() {
+        // Gson rejects the NaN only after the large string has been streamed
+        char[] chars = new char[100 * 1024];
+        Arrays.fill(chars, 'a');
+        return Arrays.asList(new String(chars), Double.NaN);
+    }
+
     @POST
     @Path("/getAllFormItemsURLEncoded")
     @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
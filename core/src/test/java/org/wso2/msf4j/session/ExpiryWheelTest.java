@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.session;
+
+import org.testng.annotations.Test;
+import org.wso2.msf4j.internal.session.ExpiryWheel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Tests ExpiryWheel.
+ */
+public class ExpiryWheelTest {
+
+    @Test
+    public void testExpiry() {
+        ExpiryWheel<Item> wheel = new ExpiryWheel<>(1000, 8, item -> item.expiryTime, 0);
+        Item first = new Item("first", 2500);
+        Item extended = new Item("extended", 3000);
+        Item distant = new Item("distant", 10500);
+        wheel.schedule(first);
+        wheel.schedule(extended);
+        wheel.schedule(distant);
+
+        assertEquals(Collections.emptyList(), advance(wheel, 2000));
+        assertEquals(Collections.singletonList("first"), advance(wheel, 3000));
+
+        // The new expiry time is picked up when the item is visited
+        extended.expiryTime = 6000;
+        assertEquals(Collections.emptyList(), advance(wheel, 4000));
+        assertEquals(Collections.emptyList(), advance(wheel, 6000));
+        assertEquals(Collections.singletonList("extended"), advance(wheel, 7000));
+
+        // Items further away than one turn of the wheel are not expired early
+        assertEquals(Collections.emptyList(), advance(wheel, 10000));
+        assertEquals(Collections.singletonList("distant"), advance(wheel, 11000));
+    }
+
+    @Test
+    public void testLongPause() {
+        ExpiryWheel<Item> wheel = new ExpiryWheel<>(1000, 8, item -> item.expiryTime, 0);
+        wheel.schedule(new Item("first", 1500));
+        wheel.schedule(new Item("second", 20000));
+        wheel.schedule(new Item("third", 200000));
+
+        List<String> expired = advance(wheel, 100000);
+        Collections.sort(expired);
+        assertEquals(Arrays.asList("first", "second"), expired);
+        assertEquals(Collections.singletonList("third"), advance(wheel, 200001));
+    }
+
+    private static List<String> advance(ExpiryWheel<Item> wheel, long nowMillis) {
+        List<String> expired = new ArrayList<>();
+        wheel.advance(nowMillis, item -> expired.add(item.name));
+        return expired;
+    }
+
+    private static final class Item {
+
+        private final String name;
+        private long expiryTime;
+
+        private Item(String name, long expiryTime) {
+            this.name = name;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.msf4j.session;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.msf4j.internal.session.SessionLog;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests SessionLog.
+ */
+public class SessionLogTest {
+
+    private Path dir;
+    private Path file;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("msf4j-sessions");
+        file = dir.resolve("sessions.log");
+    }
+
+    @AfterMethod
+    public void teardown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+    }
+
+    @Test
+    public void testAppendAndRead() throws IOException {
+        SessionLog sessionLog = new SessionLog(file);
+        Map<String, byte[]> records = new HashMap<>();
+        records.put("first", bytes("first-1"));
+        records.put("second", bytes("second-1"));
+        sessionLog.append(records);
+        records.clear();
+        records.put("first", bytes("first-2"));
+        records.put("second", null);
+        sessionLog.append(records);
+        sessionLog.close();
+
+        Map<String, byte[]> sessions = new SessionLog(file).read();
+        assertEquals(Collections.singleton("first"), sessions.keySet());
+        assertEquals("first-2", string(sessions.get("first")));
+    }
+
+    @Test
+    public void testCompact() throws IOException {
+        SessionLog sessionLog = new SessionLog(file);
+        for (int i = 0; i < 100; i++) {
+            sessionLog.append(Collections.singletonMap("session", bytes("value-" + i)));
+        }
+        long size = sessionLog.size();
+        sessionLog.compact(Collections.singletonMap("session", bytes("value-99")));
+        assertTrue(sessionLog.size() < size);
+
+        // Appending continues on the compacted log
+        sessionLog.append(Collections.singletonMap("other", bytes("other")));
+        sessionLog.close();
+        Map<String, byte[]> sessions = new SessionLog(file).read();
+        assertEquals(2, sessions.size());
+        assertEquals("value-99", string(sessions.get("session")));
+        assertEquals("other", string(sessions.get("other")));
+    }
+
+    @Test
+    public void testIncompleteRecord() throws IOException {
+        SessionLog sessionLog = new SessionLog(file);
+        sessionLog.append(Collections.singletonMap("session", bytes("value")));
+        sessionLog.close();
+        // A record cut short while it was written
+        Files.write(file, new byte[] {1, 0, 7, 's', 'e'}, StandardOpenOption.APPEND);
+
+        Map<String, byte[]> sessions = new SessionLog(file).read();
+        assertEquals(1, sessions.size());
+        assertEquals("value", string(sessions.get("session")));
+    }
+
+    @Test
+    public void testCorruptedRecord() throws IOException {
+        SessionLog sessionLog = new SessionLog(file);
+        sessionLog.append(Collections.singletonMap("first", bytes("first-value")));
+        long size = sessionLog.size();
+        sessionLog.append(Collections.singletonMap("second", bytes("second-value")));
+        sessionLog.append(Collections.singletonMap("third", bytes("third-value")));
+        sessionLog.close();
+        // Flip a bit in the serialized form of the second session
+        byte[] content = Files.readAllBytes(file);
+        content[(int) size + 15] ^= 1;
+        Files.write(file, content);
+
+        Map<String, byte[]> sessions = new SessionLog(file).read();
+        assertEquals(Collections.singleton("first"), sessions.keySet());
+        assertEquals("first-value", string(sessions.get("first")));
+    }
+
+    @Test
+    public void testRecordOfInvalidLength() throws IOException {
+        SessionLog sessionLog = new SessionLog(file);
+        sessionLog.append(Collections.singletonMap("session", bytes("value")));
+        sessionLog.close();
+        byte[] content = Files.readAllBytes(file);
+        // Records whose length is corrupted into a negative and into a huge value
+        for (byte[] length : new byte[][] {{(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xf0},
+                                           {0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xff}}) {
+            Files.write(file, content);
+            Files.write(file, new byte[] {1, 0, 1, 's'}, StandardOpenOption.APPEND);
+            Files.write(file, length, StandardOpenOption.APPEND);
+            assertEquals(Collections.singleton("session"), new SessionLog(file).read().keySet());
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -30,6 +30,7 @@ import java.util.Map.Entry;
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
 import static org.testng.AssertJUnit.assertTrue;
 
 /**
@@ -90,6 +91,26 @@ public class QueryStringDecoderUtilTest {
         assertEquals("=2", d.parameters().get("a").get(1));
     }
 
+    @Test
+    public void testSingleParameter() throws Exception {
+        QueryStringDecoderUtil d = new QueryStringDecoderUtil("/foo?a=1&b=x%20y&a=2&c&d=;e+f=3");
+        assertEquals(2, d.parameter("a").size());
+        assertEquals("1", d.parameter("a").get(0));
+        assertEquals("2", d.parameter("a").get(1));
+        assertEquals("x y", d.parameter("b").get(0));
+        assertEquals("", d.parameter("c").get(0));
+        assertEquals("", d.parameter("d").get(0));
+        assertEquals("3", d.parameter("e f").get(0));
+        assertNull(d.parameter("z"));
+
+        d = new QueryStringDecoderUtil("/foo");
+        assertNull(d.parameter("a"));
+        assertEquals(0, d.parameters().size());
+
+        d = new QueryStringDecoderUtil("/foo?a=1&a=2");
+        assertEquals(d.parameters().get("a"), d.parameter("a"));
+    }
+
     @Test
     public void testExotic() throws Exception {
         assertQueryString("", "");
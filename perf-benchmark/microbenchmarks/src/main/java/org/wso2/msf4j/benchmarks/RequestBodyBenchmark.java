@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.msf4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.msf4j.beanconversion.MediaTypeConverter;
+import org.wso2.msf4j.internal.beanconversion.BeanConverter;
+import org.wso2.msf4j.util.BufferUtil;
+import org.wso2.msf4j.util.CompositeByteBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Compares converting a chunked JSON request body after merging the chunks with {@link BufferUtil#merge(List)}
+ * against converting it through a {@link CompositeByteBuffer} view. Run with {@code -prof gc} to get the allocation
+ * per request, e.g. {@code java -jar target/benchmarks.jar RequestBodyBenchmark -prof gc}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class RequestBodyBenchmark {
+
+    // Size of the chunks delivered by the transport
+    private static final int CHUNK_SIZE = 8192;
+
+    @Param({"1024", "65536", "5242880"})
+    private int bodySize;
+
+    private MediaTypeConverter converter;
+    private List<ByteBuffer> chunks;
+
+    @Setup
+    public void setup() {
+        converter = BeanConverter.getConverter(MediaType.APPLICATION_JSON);
+        StringBuilder json = new StringBuilder("{");
+        int i = 0;
+        while (json.length() < bodySize) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("\"key").append(i).append("\":\"value").append(i).append('"');
+            i++;
+        }
+        json.append('}');
+        ByteBuffer body = ByteBuffer.wrap(json.toString().getBytes(Charset.defaultCharset()));
+        chunks = new ArrayList<>();
+        for (int position = 0; position < body.limit(); position += CHUNK_SIZE) {
+            ByteBuffer chunk = body.duplicate();
+            chunk.position(position);
+            chunk.limit(Math.min(position + CHUNK_SIZE, body.limit()));
+            chunks.add(chunk.slice());
+        }
+    }
+
+    @Benchmark
+    public Object merged() {
+        List<ByteBuffer> requestChunks = new ArrayList<>(chunks.size());
+        chunks.forEach(chunk -> requestChunks.add(chunk.duplicate()));
+        return converter.convertToObject(BufferUtil.merge(requestChunks), Map.class);
+    }
+
+    @Benchmark
+    public Object composite() {
+        return converter.convertToObject(new CompositeByteBuffer(chunks), Map.class);
+    }
+}
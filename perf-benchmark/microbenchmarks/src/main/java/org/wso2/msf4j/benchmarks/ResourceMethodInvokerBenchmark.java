@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.msf4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.msf4j.internal.router.ResourceMethodInvoker;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares invoking an echo style resource method through {@link ResourceMethodInvoker} against
+ * {@link Method#invoke(Object, Object...)}, which was used for every request before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ResourceMethodInvokerBenchmark {
+
+    private EchoService echoService;
+    private Method echoMethod;
+    private Method echoCountMethod;
+    private ResourceMethodInvoker echoInvoker;
+    private ResourceMethodInvoker echoCountInvoker;
+    private Object[] echoArgs;
+    private Object[] echoCountArgs;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        echoService = new EchoService();
+        echoMethod = EchoService.class.getMethod("echo", String.class);
+        echoCountMethod = EchoService.class.getMethod("echoCount", String.class, int.class);
+        echoInvoker = ResourceMethodInvoker.create(echoMethod);
+        echoCountInvoker = ResourceMethodInvoker.create(echoCountMethod);
+        echoArgs = new Object[]{"Hello MSF4J"};
+        echoCountArgs = new Object[]{"Hello MSF4J", 3};
+    }
+
+    @Benchmark
+    public Object reflectiveEcho() throws Exception {
+        return echoMethod.invoke(echoService, echoArgs);
+    }
+
+    @Benchmark
+    public Object invokerEcho() throws Exception {
+        return echoInvoker.invoke(echoService, echoArgs);
+    }
+
+    @Benchmark
+    public Object reflectiveEchoCount() throws Exception {
+        return echoCountMethod.invoke(echoService, echoCountArgs);
+    }
+
+    @Benchmark
+    public Object invokerEchoCount() throws Exception {
+        return echoCountInvoker.invoke(echoService, echoCountArgs);
+    }
+
+    /**
+     * Resource class used by the benchmark.
+     */
+    public static class EchoService {
+
+        public String echo(String message) {
+            return message;
+        }
+
+        public int echoCount(String message, int count) {
+            return message.length() * count;
+        }
+    }
+}